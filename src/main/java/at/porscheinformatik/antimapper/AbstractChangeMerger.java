@@ -0,0 +1,389 @@
+package at.porscheinformatik.antimapper;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * An abstract base implementation of a {@link ChangeMerger}. Searches the entities of the changed DTOs with a single
+ * pass over the collection, that stops as soon as all of them have been found. Uses a hash index of the keys of the
+ * DTOs, if the match function is a {@link KeyedMatchFunction}.
+ *
+ * @author ham
+ * @param <DTO> the type of DTO
+ * @param <Entity> the type of Entity
+ */
+public abstract class AbstractChangeMerger<DTO, Entity> implements ChangeMerger<DTO, Entity>
+{
+
+    private final Iterable<? extends DTO> upserts;
+    private final Iterable<? extends DTO> deletions;
+    private final Object[] hints;
+
+    private Set<Hint> hintFlags;
+
+    protected AbstractChangeMerger(Iterable<? extends DTO> upserts, Iterable<? extends DTO> deletions,
+        Object... hints)
+    {
+        super();
+
+        this.upserts = upserts;
+        this.deletions = deletions;
+        this.hints = hints;
+    }
+
+    protected abstract boolean isUniqueKeyMatchingNullable(DTO dto, Entity entity, Object[] hints);
+
+    protected abstract Entity merge(DTO dto, Entity entity, Object[] hints);
+
+    protected abstract Object[] getTransformerHints();
+
+    /**
+     * Returns the {@link Hint} flags of the hints and the transformer hints. They are collected once, at the first
+     * call.
+     *
+     * @return the flags, unmodifiable
+     */
+    protected Set<Hint> getHintFlags()
+    {
+        Set<Hint> hintFlags = this.hintFlags;
+
+        if (hintFlags == null)
+        {
+            hintFlags = Collections.unmodifiableSet(Hints.flagsOf(hints, getTransformerHints()));
+
+            this.hintFlags = hintFlags;
+        }
+
+        return hintFlags;
+    }
+
+    protected boolean containsHint(Object object)
+    {
+        if (object instanceof Hint)
+        {
+            return getHintFlags().contains(object);
+        }
+
+        return Hints.containsHint(hints, object) || Hints.containsHint(getTransformerHints(), object);
+    }
+
+    /**
+     * Returns the {@link MergeResult} of the hints or the transformer hints.
+     *
+     * @return the result, null if not available
+     */
+    protected MergeResult getMergeResult()
+    {
+        MergeResult result = Hints.hintOrNull(hints, MergeResult.class);
+
+        if (result == null)
+        {
+            result = Hints.hintOrNull(getTransformerHints(), MergeResult.class);
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the function used for finding the entity, that matches a DTO. Override this method to provide a
+     * {@link KeyedMatchFunction}, if the keys of the DTOs and entities are known.
+     *
+     * @param hints the hints
+     * @return the match function
+     */
+    protected MatchFunction<DTO, Entity> createMatchFunction(Object[] hints)
+    {
+        return (dto, entity) -> isUniqueKeyMatchingNullable(dto, entity, hints);
+    }
+
+    @Override
+    public <EntityCollection extends Collection<Entity>> EntityCollection intoCollection(EntityCollection entities,
+        Supplier<EntityCollection> entityCollectionFactory)
+    {
+        if (entities == null && upserts == null && !containsHint(Hint.OR_EMPTY))
+        {
+            return null;
+        }
+
+        try
+        {
+            boolean unmodifiable = containsHint(Hint.UNMODIFIABLE);
+            MergeResult result = getMergeResult();
+
+            CopyOnWriteTarget<Entity, EntityCollection> copyOnWrite = null;
+
+            if (entities == null)
+            {
+                entities = entityCollectionFactory.get();
+            }
+            else if (unmodifiable)
+            {
+                // shares the entities until the merge modifies them
+                copyOnWrite = new CopyOnWriteTarget<>(entities, entityCollectionFactory);
+            }
+
+            List<DTO> changes = new ArrayList<>();
+
+            addChanges(changes, upserts);
+
+            int upsertCount = changes.size();
+
+            addChanges(changes, deletions);
+
+            Collection<Entity> target = copyOnWrite != null ? copyOnWrite.view() : entities;
+
+            if (mergeChanges(target, changes, upsertCount) && result != null)
+            {
+                result.collectionChanged();
+            }
+
+            if (copyOnWrite != null)
+            {
+                entities = copyOnWrite.get();
+            }
+
+            if (unmodifiable)
+            {
+                entities = MapperUtils.toUnmodifiableCollection(entities);
+            }
+
+            return entities;
+        }
+        catch (Exception e)
+        {
+            throw new MapperException("Failed to merge changes into a collection: %s, %s => %s", e,
+                MapperUtils.abbreviate(String.valueOf(upserts), 4096),
+                MapperUtils.abbreviate(String.valueOf(deletions), 4096),
+                MapperUtils.abbreviate(String.valueOf(entities), 4096));
+        }
+    }
+
+    private static <DTO> void addChanges(List<DTO> changes, Iterable<? extends DTO> dtos)
+    {
+        if (dtos == null)
+        {
+            return;
+        }
+
+        for (DTO dto : dtos)
+        {
+            if (dto != null)
+            {
+                changes.add(dto);
+            }
+        }
+    }
+
+    /**
+     * Merges the changes and updates the collection. Returns true if the collection has changed.
+     */
+    @SuppressWarnings("unchecked")
+    private boolean mergeChanges(Collection<Entity> entities, List<DTO> changes, int upsertCount)
+    {
+        int[] positions = new int[changes.size()];
+        List<Entity> matches = new ArrayList<>(Collections.nCopies(changes.size(), null));
+
+        locate(entities, changes, positions, matches);
+
+        boolean keepNull = containsHint(Hint.KEEP_NULL);
+        BitSet removedPositions = new BitSet();
+        List<Entity> removedEntities = new ArrayList<>();
+        List<Entity> newEntities = new ArrayList<>();
+        boolean replaced = false;
+
+        for (int i = 0; i < changes.size(); i++)
+        {
+            boolean upsert = i < upsertCount;
+
+            if (!upsert && positions[i] < 0)
+            {
+                // already gone
+                continue;
+            }
+
+            Entity entity = matches.get(i);
+            Entity mergedEntity = merge(upsert ? changes.get(i) : null, entity, hints);
+            boolean keep = mergedEntity != null || (upsert && keepNull);
+
+            if (positions[i] < 0)
+            {
+                if (keep)
+                {
+                    newEntities.add(mergedEntity);
+                }
+
+                continue;
+            }
+
+            if (keep && mergedEntity == entity)
+            {
+                continue;
+            }
+
+            if (keep && entities instanceof List<?>)
+            {
+                ((List<Entity>) entities).set(positions[i], mergedEntity);
+                replaced = true;
+
+                continue;
+            }
+
+            removedPositions.set(positions[i]);
+            removedEntities.add(entity);
+
+            if (keep)
+            {
+                newEntities.add(mergedEntity);
+            }
+        }
+
+        if (!removedPositions.isEmpty())
+        {
+            remove(entities, removedPositions, removedEntities);
+        }
+
+        if (!newEntities.isEmpty())
+        {
+            entities.addAll(newEntities);
+        }
+
+        return replaced || !removedPositions.isEmpty() || !newEntities.isEmpty();
+    }
+
+    /**
+     * Searches the entities of the changes. Stores the position of the entity in the collection and the entity
+     * itself, or -1 if there is none. Iterates the collection until all changes have been found.
+     */
+    @SuppressWarnings("unchecked")
+    private void locate(Collection<Entity> entities, List<DTO> changes, int[] positions, List<Entity> matches)
+    {
+        MatchFunction<DTO, Entity> matchFunction = createMatchFunction(hints);
+        BitSet openChanges = new BitSet(changes.size());
+        KeyIndex<Integer> index = null;
+
+        openChanges.set(0, changes.size());
+
+        if (matchFunction instanceof KeyedMatchFunction<?, ?>)
+        {
+            KeyedMatchFunction<DTO, Entity> keyedMatchFunction = (KeyedMatchFunction<DTO, Entity>) matchFunction;
+            Object[] keys = new Object[changes.size()];
+
+            index = new KeyIndex<>(i -> keys[i], keys.length);
+
+            for (int i = 0; i < keys.length; i++)
+            {
+                keys[i] = keyedMatchFunction.leftKeyOf(changes.get(i));
+                index.add(i, i);
+            }
+        }
+
+        Iterator<Entity> iterator = entities.iterator();
+
+        for (int position = 0; !openChanges.isEmpty() && iterator.hasNext(); position++)
+        {
+            Entity entity = iterator.next();
+            int change = -1;
+
+            if (index != null)
+            {
+                KeyIndex.Entry<Integer> entry = index
+                    .poll(entity != null
+                        ? ((KeyedMatchFunction<DTO, Entity>) matchFunction).rightKeyOf(entity)
+                        : KeyIndex.keyOfNull(), null);
+
+                change = entry != null ? entry.position : -1;
+            }
+            else
+            {
+                change = openChanges.nextSetBit(0);
+
+                while (change >= 0 && !matchFunction.matches(changes.get(change), entity))
+                {
+                    change = openChanges.nextSetBit(change + 1);
+                }
+            }
+
+            if (change >= 0)
+            {
+                openChanges.clear(change);
+                matches.set(change, entity);
+                positions[change] = position;
+            }
+        }
+
+        for (int change = openChanges.nextSetBit(0); change >= 0; change = openChanges.nextSetBit(change + 1))
+        {
+            positions[change] = -1;
+        }
+    }
+
+    /**
+     * Removes the entities at the positions. Lists are compacted from the first removed position on, other
+     * collections remove the entities by identity.
+     */
+    @SuppressWarnings("unchecked")
+    private static <Entity> void remove(Collection<Entity> entities, BitSet removedPositions,
+        List<Entity> removedEntities)
+    {
+        if (entities instanceof List<?>)
+        {
+            List<Entity> list = (List<Entity>) entities;
+            int position = removedPositions.nextSetBit(0);
+
+            if (list instanceof RandomAccess)
+            {
+                int size = list.size();
+                int writeIndex = position;
+
+                for (int readIndex = position; readIndex < size; readIndex++)
+                {
+                    if (!removedPositions.get(readIndex))
+                    {
+                        list.set(writeIndex++, list.get(readIndex));
+                    }
+                }
+
+                list.subList(writeIndex, size).clear();
+
+                return;
+            }
+
+            ListIterator<Entity> iterator = list.listIterator(position);
+
+            for (int readIndex = position; position >= 0; readIndex++)
+            {
+                iterator.next();
+
+                if (readIndex == position)
+                {
+                    iterator.remove();
+                    position = removedPositions.nextSetBit(position + 1);
+                }
+            }
+
+            return;
+        }
+
+        if (entities instanceof Set<?>)
+        {
+            removedEntities.forEach(entities::remove);
+
+            return;
+        }
+
+        Set<Entity> removedEntitySet = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        removedEntitySet.addAll(removedEntities);
+        entities.removeIf(removedEntitySet::contains);
+    }
+
+}
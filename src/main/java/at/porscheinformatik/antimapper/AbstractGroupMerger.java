@@ -4,6 +4,9 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 public abstract class AbstractGroupMerger<GroupKey, DTO, Entity> implements GroupMerger<DTO, Entity>
@@ -12,6 +15,8 @@ public abstract class AbstractGroupMerger<GroupKey, DTO, Entity> implements Grou
     private final Map<GroupKey, ? extends Iterable<? extends DTO>> dtos;
     private final Object[] hints;
 
+    private Set<Hint> hintFlags;
+
     protected AbstractGroupMerger(Map<GroupKey, ? extends Iterable<? extends DTO>> dtos, Object... hints)
     {
         super();
@@ -28,11 +33,66 @@ public abstract class AbstractGroupMerger<GroupKey, DTO, Entity> implements Grou
 
     protected abstract Object[] getTransformerHints();
 
+    /**
+     * Returns the {@link Hint} flags of the hints and the transformer hints. They are collected once, at the first
+     * call.
+     *
+     * @return the flags, unmodifiable
+     */
+    protected Set<Hint> getHintFlags()
+    {
+        Set<Hint> hintFlags = this.hintFlags;
+
+        if (hintFlags == null)
+        {
+            hintFlags = Collections.unmodifiableSet(Hints.flagsOf(hints, getTransformerHints()));
+
+            this.hintFlags = hintFlags;
+        }
+
+        return hintFlags;
+    }
+
     protected boolean containsHint(Object object)
     {
+        if (object instanceof Hint)
+        {
+            return getHintFlags().contains(object);
+        }
+
         return Hints.containsHint(hints, object) || Hints.containsHint(getTransformerHints(), object);
     }
 
+    /**
+     * Returns the {@link MergeResult} of the hints or the transformer hints.
+     *
+     * @return the result, null if not available
+     */
+    protected MergeResult getMergeResult()
+    {
+        MergeResult result = Hints.hintOrNull(hints, MergeResult.class);
+
+        if (result == null)
+        {
+            result = Hints.hintOrNull(getTransformerHints(), MergeResult.class);
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the function used for finding the entity, that matches a DTO of a group. Override this method to provide
+     * a {@link KeyedMatchFunction}, if the keys of the DTOs and entities are known.
+     *
+     * @param hints the hints
+     * @return the match function
+     */
+    protected MatchFunction<Pair<?, ? extends DTO>, Entity> createMatchFunction(Object[] hints)
+    {
+        return (pair, entity) -> isUniqueKeyMatchingNullable(pair != null ? pair.getRight() : null, entity,
+            pair != null ? Hints.push(hints, pair.getLeft()) : hints);
+    }
+
     @Override
     public <EntityCollection extends Collection<Entity>> EntityCollection intoMixedCollection(EntityCollection entities,
         Supplier<EntityCollection> entityCollectionFactory)
@@ -56,6 +116,10 @@ public abstract class AbstractGroupMerger<GroupKey, DTO, Entity> implements Grou
         try
         {
             boolean unmodifiable = containsHint(Hint.UNMODIFIABLE);
+            MergeResult result = getMergeResult();
+            Object[] snapshot = result != null ? MergeResult.snapshotOf(entities) : null;
+
+            CopyOnWriteTarget<Entity, EntityCollection> copyOnWrite = null;
 
             if (entities == null)
             {
@@ -63,10 +127,8 @@ public abstract class AbstractGroupMerger<GroupKey, DTO, Entity> implements Grou
             }
             else if (unmodifiable)
             {
-                EntityCollection originalEntity = entities;
-
-                entities = entityCollectionFactory.get();
-                entities.addAll(originalEntity);
+                // shares the entities until the merge modifies them
+                copyOnWrite = new CopyOnWriteTarget<>(entities, entityCollectionFactory);
             }
 
             Collection<Pair<?, ? extends DTO>> pairs = new ArrayList<>();
@@ -76,14 +138,28 @@ public abstract class AbstractGroupMerger<GroupKey, DTO, Entity> implements Grou
                 .forEach(entry -> entry.getValue().forEach(item -> pairs.add(Pair.of(entry.getKey(), item))));
 
             boolean keepNull = containsHint(Hint.KEEP_NULL);
+            Collection<Entity> target = copyOnWrite != null ? copyOnWrite.view() : entities;
+            // with copy-on-write, the hook is called after the merge, with the collection instead of the view
+            Consumer<Collection<Entity>> afterMerge =
+                copyOnWrite == null ? collection -> afterMergeIntoCollection(collection, hints) : null;
 
-            entities = MapperUtils
-                .mapMixed(pairs.stream(), entities,
-                    (pair, entity) -> isUniqueKeyMatchingNullable(pair != null ? pair.getRight() : null, entity,
-                        pair != null ? Hints.join(hints, pair.getLeft()) : hints),
+            MapperUtils
+                .mapMixed(pairs.stream(), target, createMatchFunction(hints),
                     (pair, entity) -> merge(pair != null ? pair.getRight() : null, entity,
-                        pair != null ? Hints.join(hints, pair.getLeft()) : hints),
-                    keepMissing, keepNull ? null : dto -> dto != null, list -> afterMergeIntoCollection(list, hints));
+                        pair != null ? Hints.push(hints, pair.getLeft()) : hints),
+                    keepMissing, keepNull ? null : dto -> dto != null, afterMerge);
+
+            if (copyOnWrite != null)
+            {
+                entities = copyOnWrite.get();
+
+                afterMergeIntoCollection(entities, hints);
+            }
+
+            if (result != null)
+            {
+                result.merged(snapshot, entities);
+            }
 
             if (unmodifiable)
             {
@@ -122,6 +198,10 @@ public abstract class AbstractGroupMerger<GroupKey, DTO, Entity> implements Grou
         try
         {
             boolean unmodifiable = containsHint(Hint.UNMODIFIABLE);
+            MergeResult result = getMergeResult();
+            Object[] snapshot = result != null ? MergeResult.snapshotOf(entities) : null;
+
+            CopyOnWriteTarget<Entity, EntityCollection> copyOnWrite = null;
 
             if (entities == null)
             {
@@ -129,10 +209,8 @@ public abstract class AbstractGroupMerger<GroupKey, DTO, Entity> implements Grou
             }
             else if (unmodifiable)
             {
-                EntityCollection originalEntity = entities;
-
-                entities = entityCollectionFactory.get();
-                entities.addAll(originalEntity);
+                // shares the entities until the merge modifies them
+                copyOnWrite = new CopyOnWriteTarget<>(entities, entityCollectionFactory);
             }
 
             Collection<Pair<?, ? extends DTO>> pairs = new ArrayList<>();
@@ -142,15 +220,45 @@ public abstract class AbstractGroupMerger<GroupKey, DTO, Entity> implements Grou
                 .forEach(entry -> entry.getValue().forEach(item -> pairs.add(Pair.of(entry.getKey(), item))));
 
             boolean keepNull = containsHint(Hint.KEEP_NULL);
+            MatchFunction<Pair<?, ? extends DTO>, Entity> matchFunction = createMatchFunction(hints);
+            Collection<Entity> target = copyOnWrite != null ? copyOnWrite.view() : entities;
+            // with copy-on-write, the hook is called after the merge, with the collection instead of the view
+            Consumer<Collection<Entity>> afterMerge =
+                copyOnWrite == null ? collection -> afterMergeIntoCollection(collection, hints) : null;
 
-            entities = MapperUtils
-                .mapOrdered(pairs, entities,
-                    (pair, entity) -> isUniqueKeyMatchingNullable(pair != null ? pair.getRight() : null, entity,
-                        pair != null ? Hints.join(hints, pair.getLeft()) : hints),
-                    (pair, entity) -> merge(pair != null ? pair.getRight() : null, entity,
-                        pair != null ? Hints.join(hints, pair.getLeft()) : hints),
-                    keepMissing, keepNull ? null : entity -> entity != null,
-                    list -> afterMergeIntoCollection(list, hints));
+            if (entities instanceof SortedSet<?> && matchFunction instanceof SortedMatchFunction<?, ?>)
+            {
+                // the set defines the order, merge the sorted DTOs in a single pass without copying the set
+                MapperUtils
+                    .mapMixed(pairs.stream(), target, matchFunction,
+                        (pair, entity) -> merge(pair != null ? pair.getRight() : null, entity,
+                            pair != null ? Hints.push(hints, pair.getLeft()) : hints),
+                        keepMissing, keepNull ? null : entity -> entity != null,
+                        afterMerge);
+            }
+            else
+            {
+                boolean linearSpace = containsHint(Hint.LINEAR_SPACE);
+
+                MapperUtils
+                    .mapOrdered(pairs, target, matchFunction,
+                        (pair, entity) -> merge(pair != null ? pair.getRight() : null, entity,
+                            pair != null ? Hints.push(hints, pair.getLeft()) : hints),
+                        keepMissing, linearSpace, keepNull ? null : entity -> entity != null,
+                        afterMerge != null ? afterMerge::accept : null);
+            }
+
+            if (copyOnWrite != null)
+            {
+                entities = copyOnWrite.get();
+
+                afterMergeIntoCollection(entities, hints);
+            }
+
+            if (result != null)
+            {
+                result.merged(snapshot, entities);
+            }
 
             if (unmodifiable)
             {
@@ -4,6 +4,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.function.Supplier;
 
 /**
@@ -21,6 +22,8 @@ public abstract class AbstractGroupTransformer<DTO, GroupKey, Entity> implements
     private final Map<GroupKey, ? extends Iterable<? extends Entity>> entities;
     private final Object[] hints;
 
+    private Set<Hint> hintFlags;
+
     protected AbstractGroupTransformer(Map<GroupKey, ? extends Iterable<? extends Entity>> entities, Object... hints)
     {
         super();
@@ -34,8 +37,33 @@ public abstract class AbstractGroupTransformer<DTO, GroupKey, Entity> implements
 
     protected abstract Object[] getTransformerHints();
 
+    /**
+     * Returns the {@link Hint} flags of the hints and the transformer hints. They are collected once, at the first
+     * call.
+     *
+     * @return the flags, unmodifiable
+     */
+    protected Set<Hint> getHintFlags()
+    {
+        Set<Hint> hintFlags = this.hintFlags;
+
+        if (hintFlags == null)
+        {
+            hintFlags = Collections.unmodifiableSet(Hints.flagsOf(hints, getTransformerHints()));
+
+            this.hintFlags = hintFlags;
+        }
+
+        return hintFlags;
+    }
+
     protected boolean containsHint(Object object)
     {
+        if (object instanceof Hint)
+        {
+            return getHintFlags().contains(object);
+        }
+
         return Hints.containsHint(hints, object) || Hints.containsHint(getTransformerHints(), object);
     }
 
@@ -62,7 +90,7 @@ public abstract class AbstractGroupTransformer<DTO, GroupKey, Entity> implements
             for (Entry<GroupKey, ? extends Iterable<? extends Entity>> entry : entities.entrySet())
             {
                 dtos.put(entry.getKey(),
-                    transformAll(entry.getValue(), collectionFactory, Hints.join(hints, entry.getKey())));
+                    transformAll(entry.getValue(), collectionFactory, Hints.push(hints, entry.getKey())));
             }
 
             if (containsHint(Hint.UNMODIFIABLE))
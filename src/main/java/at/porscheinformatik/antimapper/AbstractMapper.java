@@ -2,6 +2,9 @@ package at.porscheinformatik.antimapper;
 
 /**
  * An implementation of a {@link Transformer} and extends the {@link AbstractMerger}.
+ * <p>
+ * Cyclic references need the DTO to be registered early, if a {@link TransformScope} is passed, see
+ * {@link AbstractTransformer}.
  *
  * @author ham
  * @param <DTO> the type of DTO
@@ -23,14 +26,21 @@ public abstract class AbstractMapper<DTO, Entity> extends AbstractMerger<DTO, En
     @Override
     public final DTO transform(Entity entity, Object... hints)
     {
-        hints = Hints.join(defaultHints, hints);
+        Object[] allHints = Hints.push(defaultHints, hints);
 
         if (entity == null)
         {
-            return transformNull(hints);
+            return transformNull(allHints);
         }
 
-        return transformNonNull(entity, hints);
+        TransformScope scope = Hints.hintOrNull(allHints, TransformScope.class);
+
+        if (scope != null)
+        {
+            return scope.transform(this, entity, () -> transformNonNull(entity, allHints));
+        }
+
+        return transformNonNull(entity, allHints);
     }
 
     /**
@@ -35,7 +35,7 @@ public abstract class AbstractMerger<DTO, Entity> implements Merger<DTO, Entity>
     @Override
     public final Entity merge(DTO dto, Entity entity, Object... hints)
     {
-        hints = Hints.join(defaultHints, hints);
+        hints = Hints.push(defaultHints, hints);
 
         if (dto == null)
         {
@@ -44,19 +44,56 @@ public abstract class AbstractMerger<DTO, Entity> implements Merger<DTO, Entity>
                 return null;
             }
 
+            MergeResult result = Hints.hintOrNull(hints, MergeResult.class);
+
+            if (result != null)
+            {
+                result.deleted();
+            }
+
             return mergeNull(entity, hints);
         }
 
         if ((entity == null) || (!isUniqueKeyMatching(dto, entity, hints)))
         {
             entity = create(dto, hints);
+
+            MergeResult result = Hints.hintOrNull(hints, MergeResult.class);
+
+            if (result != null)
+            {
+                result.created();
+            }
         }
+        else if (!isReportingModifications())
+        {
+            MergeResult result = Hints.hintOrNull(hints, MergeResult.class);
 
-        hints = Hints.join(hints, entity);
+            if (result != null)
+            {
+                // the modifications of the entity are unknown
+                result.mergedUnreported();
+            }
+        }
+
+        hints = Hints.push(hints, entity);
 
         return mergeNonNull(dto, entity, hints);
     }
 
+    /**
+     * Returns true, if {@link #mergeNonNull(Object, Object, Object[])} reports each modification of an entity to the
+     * {@link MergeResult} by calling {@link MergeResult#modified(Object...)} or
+     * {@link MergeResult#changed(Object[], Object, Object)}. Otherwise, each merge of an existing entity counts as
+     * change. The default implementation returns false.
+     *
+     * @return true if the modifications are reported
+     */
+    protected boolean isReportingModifications()
+    {
+        return false;
+    }
+
     /**
      * Maps null to an entity. The entity is never null (because DTO was null). The default implementation returns null.
      *
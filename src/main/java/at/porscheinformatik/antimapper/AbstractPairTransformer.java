@@ -48,9 +48,7 @@ public abstract class AbstractPairTransformer<DTO, LeftEntity, RightEntity>
         {
             DTOMap dtos = mapFactory.get();
 
-            stream.forEach(entityContainer -> {
-                DTO dto = transform(entityContainer, hints);
-
+            forEachTransformed(stream, (entityContainer, dto) -> {
                 if (dto == null && !keepNull)
                 {
                     return;
@@ -1,6 +1,13 @@
 package at.porscheinformatik.antimapper;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 
@@ -10,6 +17,8 @@ public abstract class AbstractStreamMerger<DTO, DTOContainer, Entity> implements
     private final Supplier<Stream<? extends DTOContainer>> streamSupplier;
     private final Object[] hints;
 
+    private Set<Hint> hintFlags;
+
     protected AbstractStreamMerger(Supplier<Stream<? extends DTOContainer>> streamSupplier, Object... hints)
     {
         super();
@@ -26,11 +35,89 @@ public abstract class AbstractStreamMerger<DTO, DTOContainer, Entity> implements
 
     protected abstract Object[] getTransformerHints();
 
+    /**
+     * Returns the {@link Hint} flags of the hints and the transformer hints. They are collected once, at the first
+     * call.
+     *
+     * @return the flags, unmodifiable
+     */
+    protected Set<Hint> getHintFlags()
+    {
+        Set<Hint> hintFlags = this.hintFlags;
+
+        if (hintFlags == null)
+        {
+            hintFlags = Collections.unmodifiableSet(Hints.flagsOf(hints, getTransformerHints()));
+
+            this.hintFlags = hintFlags;
+        }
+
+        return hintFlags;
+    }
+
     protected boolean containsHint(Object object)
     {
+        if (object instanceof Hint)
+        {
+            return getHintFlags().contains(object);
+        }
+
         return Hints.containsHint(hints, object) || Hints.containsHint(getTransformerHints(), object);
     }
 
+    /**
+     * Returns the {@link MergeResult} of the hints or the transformer hints.
+     *
+     * @return the result, null if not available
+     */
+    protected MergeResult getMergeResult()
+    {
+        MergeResult result = Hints.hintOrNull(hints, MergeResult.class);
+
+        if (result == null)
+        {
+            result = Hints.hintOrNull(getTransformerHints(), MergeResult.class);
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the pool for matching the DTOs in parallel. Returns null, if the {@link Hint#PARALLEL} is not set.
+     * Returns the {@link ForkJoinPool} of the hints, if available, the pool of the calling thread or the common pool
+     * otherwise. Only the matching runs in the pool, the entities are merged by the calling thread.
+     *
+     * @return the pool, null for a sequential match
+     */
+    protected ForkJoinPool getParallelPool()
+    {
+        if (!containsHint(Hint.PARALLEL))
+        {
+            return null;
+        }
+
+        ForkJoinPool pool = Hints.hintOrNull(hints, ForkJoinPool.class);
+
+        if (pool == null)
+        {
+            pool = Hints.hintOrNull(getTransformerHints(), ForkJoinPool.class);
+        }
+
+        return pool != null ? pool : MapperUtils.currentPool();
+    }
+
+    /**
+     * Returns the function used for finding the entity, that matches a DTO. Override this method to provide a
+     * {@link KeyedMatchFunction}, if the keys of the DTOs and entities are known.
+     *
+     * @param hints the hints
+     * @return the match function
+     */
+    protected MatchFunction<DTOContainer, Entity> createMatchFunction(Object[] hints)
+    {
+        return (dtoContainer, entity) -> isUniqueKeyMatchingNullable(dtoContainer, entity, hints);
+    }
+
     @Override
     public <EntityCollection extends Collection<Entity>> EntityCollection intoMixedCollection(EntityCollection entities,
         Supplier<EntityCollection> entityCollectionFactory)
@@ -53,6 +140,10 @@ public abstract class AbstractStreamMerger<DTO, DTOContainer, Entity> implements
         try
         {
             boolean unmodifiable = containsHint(Hint.UNMODIFIABLE);
+            MergeResult result = getMergeResult();
+            Object[] snapshot = result != null ? MergeResult.snapshotOf(entities) : null;
+
+            CopyOnWriteTarget<Entity, EntityCollection> copyOnWrite = null;
 
             if (entities == null)
             {
@@ -60,19 +151,32 @@ public abstract class AbstractStreamMerger<DTO, DTOContainer, Entity> implements
             }
             else if (unmodifiable)
             {
-                EntityCollection originalEntity = entities;
-
-                entities = entityCollectionFactory.get();
-                entities.addAll(originalEntity);
+                // shares the entities until the merge modifies them
+                copyOnWrite = new CopyOnWriteTarget<>(entities, entityCollectionFactory);
             }
 
             boolean keepNull = containsHint(Hint.KEEP_NULL);
+            Collection<Entity> target = copyOnWrite != null ? copyOnWrite.view() : entities;
+            // with copy-on-write, the hook is called after the merge, with the collection instead of the view
+            Consumer<Collection<Entity>> afterMerge =
+                copyOnWrite == null ? collection -> afterMergeIntoCollection(collection, hints) : null;
+
+            MapperUtils
+                .mapMixed(dtoContainers, target, createMatchFunction(hints),
+                    (dtoContainer, entity) -> merge(dtoContainer, entity, hints), keepMissing, getParallelPool(),
+                    keepNull ? null : dto -> dto != null, afterMerge);
+
+            if (copyOnWrite != null)
+            {
+                entities = copyOnWrite.get();
+
+                afterMergeIntoCollection(entities, hints);
+            }
 
-            entities = MapperUtils
-                .mapMixed(dtoContainers, entities,
-                    (dtoContainer, entity) -> isUniqueKeyMatchingNullable(dtoContainer, entity, hints),
-                    (dtoContainer, entity) -> merge(dtoContainer, entity, hints), keepMissing,
-                    keepNull ? null : dto -> dto != null, list -> afterMergeIntoCollection(list, hints));
+            if (result != null)
+            {
+                result.merged(snapshot, entities);
+            }
 
             if (unmodifiable)
             {
@@ -111,6 +215,10 @@ public abstract class AbstractStreamMerger<DTO, DTOContainer, Entity> implements
         try
         {
             boolean unmodifiable = containsHint(Hint.UNMODIFIABLE);
+            MergeResult result = getMergeResult();
+            Object[] snapshot = result != null ? MergeResult.snapshotOf(entities) : null;
+
+            CopyOnWriteTarget<Entity, EntityCollection> copyOnWrite = null;
 
             if (entities == null)
             {
@@ -118,18 +226,46 @@ public abstract class AbstractStreamMerger<DTO, DTOContainer, Entity> implements
             }
             else if (unmodifiable)
             {
-                EntityCollection originalEntity = entities;
-
-                entities = entityCollectionFactory.get();
-                entities.addAll(originalEntity);
+                // shares the entities until the merge modifies them
+                copyOnWrite = new CopyOnWriteTarget<>(entities, entityCollectionFactory);
             }
 
             boolean keepNull = containsHint(Hint.KEEP_NULL);
+            MatchFunction<DTOContainer, Entity> matchFunction = createMatchFunction(hints);
+            Collection<Entity> target = copyOnWrite != null ? copyOnWrite.view() : entities;
+            // with copy-on-write, the hook is called after the merge, with the collection instead of the view
+            Consumer<Collection<Entity>> afterMerge =
+                copyOnWrite == null ? collection -> afterMergeIntoCollection(collection, hints) : null;
 
-            entities = MapperUtils
-                .mapOrdered(dtoContainers, entities, (dto, entity) -> isUniqueKeyMatchingNullable(dto, entity, hints),
-                    (dtoContainer, entity) -> merge(dtoContainer, entity, hints), keepMissing,
-                    keepNull ? null : entity -> entity != null, list -> afterMergeIntoCollection(list, hints));
+            if (entities instanceof SortedSet<?> && matchFunction instanceof SortedMatchFunction<?, ?>)
+            {
+                // the set defines the order, merge the sorted DTOs in a single pass without copying the set
+                MapperUtils
+                    .mapMixed(dtoContainers, target, matchFunction,
+                        (dtoContainer, entity) -> merge(dtoContainer, entity, hints), keepMissing,
+                        keepNull ? null : entity -> entity != null, afterMerge);
+            }
+            else
+            {
+                boolean linearSpace = containsHint(Hint.LINEAR_SPACE);
+
+                MapperUtils
+                    .mapOrdered(dtoContainers, target, matchFunction,
+                        (dtoContainer, entity) -> merge(dtoContainer, entity, hints), keepMissing, linearSpace,
+                        keepNull ? null : entity -> entity != null, afterMerge != null ? afterMerge::accept : null);
+            }
+
+            if (copyOnWrite != null)
+            {
+                entities = copyOnWrite.get();
+
+                afterMergeIntoCollection(entities, hints);
+            }
+
+            if (result != null)
+            {
+                result.merged(snapshot, entities);
+            }
 
             if (unmodifiable)
             {
@@ -146,4 +282,191 @@ public abstract class AbstractStreamMerger<DTO, DTOContainer, Entity> implements
         }
     }
 
+    @Override
+    public <EntityCollection extends Collection<Entity>> MergePlan<Entity, EntityCollection> planMixedCollection(
+        EntityCollection entities, Supplier<EntityCollection> entityCollectionFactory)
+    {
+        return plan(entities, entityCollectionFactory, false);
+    }
+
+    @Override
+    public <EntityCollection extends Collection<Entity>> MergePlan<Entity, EntityCollection> planOrderedCollection(
+        EntityCollection entities, Supplier<EntityCollection> entityCollectionFactory)
+    {
+        return plan(entities, entityCollectionFactory, true);
+    }
+
+    /**
+     * Runs the merge algorithms on a copy of the entities and records their decisions instead of merging. Mixed
+     * collections use the hash index, even for sorted sets, which results in the same matches.
+     */
+    private <EntityCollection extends Collection<Entity>> MergePlan<Entity, EntityCollection> plan(
+        EntityCollection entities, Supplier<EntityCollection> entityCollectionFactory, boolean ordered)
+    {
+        Stream<? extends DTOContainer> dtoContainers = streamSupplier.get();
+        boolean keepMissing = containsHint(Hint.KEEP_MISSING);
+
+        if (dtoContainers == null)
+        {
+            boolean orEmpty = containsHint(Hint.OR_EMPTY);
+
+            if (entities == null && !orEmpty && !keepMissing)
+            {
+                return new MergePlan<>(this, entities, entityCollectionFactory, null, null, Collections.emptyList(),
+                    Collections.emptyList());
+            }
+
+            dtoContainers = Stream.empty();
+        }
+
+        try
+        {
+            MergePlan.Recorder<DTOContainer, Entity> recorder =
+                new MergePlan.Recorder<>(dtoContainers.toArray(), entities);
+            List<Object> values = recorder.values();
+            MatchFunction<DTOContainer, Entity> matchFunction = createMatchFunction(hints);
+
+            if (!ordered || entities instanceof SortedSet<?> && matchFunction instanceof SortedMatchFunction<?, ?>)
+            {
+                MapperUtils
+                    .mapMixed(recorder.sources().stream(), values, recorder.matchFunction(matchFunction),
+                        recorder.mapFunction(), keepMissing, null, null);
+            }
+            else
+            {
+                MapperUtils
+                    .mapOrdered(recorder.sources(), values, recorder.matchFunction(matchFunction),
+                        recorder.mapFunction(), keepMissing, containsHint(Hint.LINEAR_SPACE), null, null);
+            }
+
+            return recorder.toPlan(this, entities, entityCollectionFactory, values, ordered);
+        }
+        catch (Exception e)
+        {
+            throw new MapperException("Failed to plan the merge of DTOs into a collection: %s => %s", e,
+                MapperUtils.abbreviate(String.valueOf(dtoContainers), 4096),
+                MapperUtils.abbreviate(String.valueOf(entities), 4096));
+        }
+    }
+
+    @Override
+    public <EntityCollection extends Collection<Entity>> EntityCollection apply(
+        MergePlan<Entity, EntityCollection> plan)
+    {
+        if (plan.getMerger() != this)
+        {
+            throw new IllegalArgumentException("The plan has been created by another merger");
+        }
+
+        EntityCollection entities = plan.getEntities();
+
+        if (!plan.isUpToDate())
+        {
+            throw new MapperException("The entities have been modified after planning the merge: %s",
+                MapperUtils.abbreviate(String.valueOf(entities), 4096));
+        }
+
+        if (plan.isNullResult())
+        {
+            return null;
+        }
+
+        try
+        {
+            boolean unmodifiable = containsHint(Hint.UNMODIFIABLE);
+            MergeResult result = getMergeResult();
+            Object[] snapshot = result != null ? MergeResult.snapshotOf(entities) : null;
+
+            CopyOnWriteTarget<Entity, EntityCollection> copyOnWrite = null;
+
+            if (entities == null)
+            {
+                entities = plan.getEntityCollectionFactory().get();
+            }
+            else if (unmodifiable)
+            {
+                // shares the entities until the merge modifies them
+                copyOnWrite = new CopyOnWriteTarget<>(entities, plan.getEntityCollectionFactory());
+            }
+
+            if (!plan.isEmpty())
+            {
+                List<Entity> values = applyOperations(plan, containsHint(Hint.KEEP_NULL));
+                Collection<Entity> target = copyOnWrite != null ? copyOnWrite.view() : entities;
+
+                if (MapperUtils.isSorted(target) || !MapperUtils.isSame(values, target))
+                {
+                    target.clear();
+                    target.addAll(values);
+                }
+            }
+
+            if (copyOnWrite != null)
+            {
+                entities = copyOnWrite.get();
+            }
+
+            if (!plan.isEmpty())
+            {
+                afterMergeIntoCollection(entities, hints);
+            }
+
+            if (result != null)
+            {
+                result.merged(snapshot, entities);
+            }
+
+            if (unmodifiable)
+            {
+                entities = MapperUtils.toUnmodifiableCollection(entities);
+            }
+
+            return entities;
+        }
+        catch (Exception e)
+        {
+            throw new MapperException("Failed to apply the plan of a merge: %s => %s", e, plan,
+                MapperUtils.abbreviate(String.valueOf(entities), 4096));
+        }
+    }
+
+    /**
+     * Merges the entities of the plan and returns them in the order of the collection after the merge. Deleted
+     * entities, that do not merge to null, are added at the end, like the merge does.
+     */
+    @SuppressWarnings("unchecked")
+    private List<Entity> applyOperations(MergePlan<Entity, ?> plan, boolean keepNull)
+    {
+        List<Entity> values = new ArrayList<>(plan.getArrangement().size());
+
+        for (MergePlan.Operation<Entity> operation : plan.getArrangement())
+        {
+            Entity entity = operation.getEntity();
+
+            if (operation.getDTOIndex() >= 0)
+            {
+                entity = merge((DTOContainer) plan.dtoContainerOf(operation), entity, hints);
+
+                if (entity == null && !keepNull)
+                {
+                    continue;
+                }
+            }
+
+            values.add(entity);
+        }
+
+        for (MergePlan.Operation<Entity> operation : plan.getDeletions())
+        {
+            Entity entity = merge(null, operation.getEntity(), hints);
+
+            if (entity != null)
+            {
+                values.add(entity);
+            }
+        }
+
+        return values;
+    }
+
 }
@@ -2,12 +2,27 @@ package at.porscheinformatik.antimapper;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
+import java.util.function.IntFunction;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * A transformer for a given stream.
@@ -23,6 +38,8 @@ public abstract class AbstractStreamTransformer<DTO, Entity, EntityContainer> im
     protected final Supplier<Stream<? extends EntityContainer>> streamSupplier;
     protected final Object[] hints;
 
+    private Set<Hint> hintFlags;
+
     protected AbstractStreamTransformer(Supplier<Stream<? extends EntityContainer>> streamSupplier, Object... hints)
     {
         super();
@@ -37,11 +54,228 @@ public abstract class AbstractStreamTransformer<DTO, Entity, EntityContainer> im
 
     protected abstract Object[] getTransformerHints();
 
+    /**
+     * Returns the source, if it is a collection of containers. The collection methods iterate such a source directly,
+     * instead of creating a stream. The default implementation returns null.
+     *
+     * @return the collection, null if the source is no collection or if it is null
+     */
+    protected Collection<? extends EntityContainer> getSourceCollection()
+    {
+        return null;
+    }
+
+    /**
+     * Returns true, if the source supports {@link #forEachTransformedDirectly(BiConsumer)}. The default implementation
+     * returns false.
+     *
+     * @return true if supported
+     */
+    protected boolean isTransformableDirectly()
+    {
+        return false;
+    }
+
+    /**
+     * Transforms the entities of the source without streaming a container for each entity and passes each entity with
+     * its DTO to the consumer. The collection and map methods call it instead of streaming the source, if
+     * {@link #isTransformableDirectly()} is true and the entities are neither transformed in batches nor in parallel.
+     * The default implementation throws an {@link UnsupportedOperationException}.
+     *
+     * @param consumer the consumer of the entity and the DTO
+     * @return true if transformed, false if the source is null
+     */
+    protected boolean forEachTransformedDirectly(BiConsumer<? super Entity, ? super DTO> consumer)
+    {
+        throw new UnsupportedOperationException("Method \"forEachTransformedDirectly(..)\" not implemented");
+    }
+
+    /**
+     * Returns the entity of the container. The entities of each chunk are passed to the {@link BatchTransformer}. The
+     * default implementation throws an {@link UnsupportedOperationException}, implement it, if
+     * {@link #getBatchTransformer()} returns a transformer.
+     *
+     * @param container the container
+     * @return the entity
+     */
+    protected Entity toEntity(EntityContainer container)
+    {
+        throw new UnsupportedOperationException("Method \"toEntity(..)\" not implemented");
+    }
+
+    /**
+     * Returns the {@link BatchTransformer}, if the entities should be transformed in chunks. The default implementation
+     * returns null.
+     *
+     * @return the {@link BatchTransformer}, null if not available
+     */
+    protected BatchTransformer<DTO, ? super Entity> getBatchTransformer()
+    {
+        return null;
+    }
+
+    /**
+     * Returns the transformer, if it is a {@link BatchTransformer}. The stream transformers of the {@link Transformer}
+     * use it for implementing {@link #getBatchTransformer()}.
+     *
+     * @param <DTO> the type of DTO
+     * @param <Entity> the type of entity
+     * @param transformer the transformer
+     * @return the {@link BatchTransformer}, null if the transformer is none
+     */
+    static <DTO, Entity> BatchTransformer<DTO, Entity> batchTransformerOf(Transformer<DTO, Entity> transformer)
+    {
+        return transformer instanceof BatchTransformer ? (BatchTransformer<DTO, Entity>) transformer : null;
+    }
+
+    /**
+     * Returns the {@link Hint} flags of the hints and the transformer hints. They are collected once, at the first
+     * call.
+     *
+     * @return the flags, unmodifiable
+     */
+    protected Set<Hint> getHintFlags()
+    {
+        Set<Hint> hintFlags = this.hintFlags;
+
+        if (hintFlags == null)
+        {
+            hintFlags = Collections.unmodifiableSet(Hints.flagsOf(hints, getTransformerHints()));
+
+            this.hintFlags = hintFlags;
+        }
+
+        return hintFlags;
+    }
+
     protected boolean containsHint(Object object)
     {
+        if (object instanceof Hint)
+        {
+            return getHintFlags().contains(object);
+        }
+
         return Hints.containsHint(hints, object) || Hints.containsHint(getTransformerHints(), object);
     }
 
+    /**
+     * Executes the operation. If the {@link Hint#PARALLEL} is set and the hints contain a {@link ForkJoinPool}, the
+     * operation is executed in this pool, thus the parallel streams of the operation use the pool, too.
+     *
+     * @param <Result> the type of the result
+     * @param operation the operation
+     * @return the result of the operation
+     */
+    protected <Result> Result execute(Supplier<Result> operation)
+    {
+        if (!containsHint(Hint.PARALLEL))
+        {
+            return operation.get();
+        }
+
+        ForkJoinPool pool = Hints.hintOrNull(hints, ForkJoinPool.class);
+
+        if (pool == null)
+        {
+            pool = Hints.hintOrNull(getTransformerHints(), ForkJoinPool.class);
+        }
+
+        if (pool == null || ForkJoinTask.getPool() == pool)
+        {
+            return operation.get();
+        }
+
+        return pool.submit(operation::get).join();
+    }
+
+    /**
+     * Transforms the containers of the stream and passes them with their DTOs to the consumer, in the order of the
+     * stream. If the {@link Hint#PARALLEL} is set, the containers are transformed in parallel, but the consumer is
+     * still called by one thread at a time.
+     *
+     * @param stream the stream
+     * @param consumer the consumer of the container and the DTO
+     */
+    protected void forEachTransformed(Stream<? extends EntityContainer> stream,
+        BiConsumer<? super EntityContainer, ? super DTO> consumer)
+    {
+        BatchTransformer<DTO, ? super Entity> batchTransformer = getBatchTransformer();
+
+        if (batchTransformer != null)
+        {
+            forEachTransformedInBatches(stream, batchTransformer, consumer);
+
+            return;
+        }
+
+        if (!containsHint(Hint.PARALLEL))
+        {
+            stream.forEach(container -> consumer.accept(container, transform(container, hints)));
+
+            return;
+        }
+
+        execute(() -> {
+            stream
+                .parallel()
+                .map(container -> Pair.of(container, transform(container, hints)))
+                .forEachOrdered(pair -> consumer.accept(pair.getLeft(), pair.getRight()));
+
+            return null;
+        });
+    }
+
+    /**
+     * Splits the stream into chunks, prepares each chunk with the {@link BatchTransformer} and transforms the
+     * containers of the chunk.
+     */
+    private void forEachTransformedInBatches(Stream<? extends EntityContainer> stream,
+        BatchTransformer<DTO, ? super Entity> batchTransformer,
+        BiConsumer<? super EntityContainer, ? super DTO> consumer)
+    {
+        int batchSize = Math.max(1, batchTransformer.getBatchSize(hints));
+        Iterator<? extends EntityContainer> iterator = stream.iterator();
+        List<EntityContainer> containers = new ArrayList<>(Math.min(batchSize, 1024));
+        List<Entity> entities = new ArrayList<>(Math.min(batchSize, 1024));
+
+        while (iterator.hasNext())
+        {
+            EntityContainer container = iterator.next();
+
+            containers.add(container);
+            entities.add(toEntity(container));
+
+            if (containers.size() >= batchSize || !iterator.hasNext())
+            {
+                batchTransformer.transformBatch(entities, hints);
+
+                if (containsHint(Hint.PARALLEL))
+                {
+                    List<EntityContainer> chunk = containers;
+
+                    execute(() -> {
+                        chunk
+                            .parallelStream()
+                            .map(each -> Pair.of(each, transform(each, hints)))
+                            .forEachOrdered(pair -> consumer.accept(pair.getLeft(), pair.getRight()));
+
+                        return null;
+                    });
+                }
+                else
+                {
+                    for (EntityContainer each : containers)
+                    {
+                        consumer.accept(each, transform(each, hints));
+                    }
+                }
+
+                containers.clear();
+                entities.clear();
+            }
+        }
+    }
+
     @Override
     public Stream<DTO> toStream()
     {
@@ -59,6 +293,11 @@ public abstract class AbstractStreamTransformer<DTO, Entity, EntityContainer> im
 
         try
         {
+            if (containsHint(Hint.PARALLEL))
+            {
+                stream = stream.parallel();
+            }
+
             Stream<DTO> result = stream.map(dto -> transform(dto, hints));
 
             if (!containsHint(Hint.KEEP_NULL))
@@ -75,10 +314,56 @@ public abstract class AbstractStreamTransformer<DTO, Entity, EntityContainer> im
         }
     }
 
+    @Override
+    public Set<DTO> toHashSet()
+    {
+        return toSizedCollection(expectedSize -> expectedSize >= 0
+            ? new HashSet<>(MapperUtils.hashCapacity(expectedSize)) : new HashSet<>());
+    }
+
+    @Override
+    public Set<DTO> toLinkedHashSet()
+    {
+        return toSizedCollection(expectedSize -> expectedSize >= 0
+            ? new LinkedHashSet<>(MapperUtils.hashCapacity(expectedSize)) : new LinkedHashSet<>());
+    }
+
+    @Override
+    public List<DTO> toArrayList()
+    {
+        return toSizedCollection(expectedSize -> expectedSize >= 0 ? new ArrayList<>(expectedSize) : new ArrayList<>());
+    }
+
     @Override
     public <DTOCollection extends Collection<DTO>> DTOCollection toCollection(
         Supplier<DTOCollection> dtoCollectionFactory)
     {
+        return toSizedCollection(expectedSize -> dtoCollectionFactory.get());
+    }
+
+    /**
+     * Transforms the stream to a collection of DTOs, like {@link #toCollection(Supplier)}. The factory gets the number
+     * of entities, if the stream knows it (e.g. the stream of a {@link Collection} or a {@link Map}), -1 otherwise.
+     *
+     * @param <DTOCollection> the type of the collection
+     * @param dtoCollectionFactory the factory for the collection
+     * @return the collection
+     */
+    protected <DTOCollection extends Collection<DTO>> DTOCollection toSizedCollection(
+        IntFunction<DTOCollection> dtoCollectionFactory)
+    {
+        Collection<? extends EntityContainer> collection = getSourceCollection();
+
+        if (collection != null && getBatchTransformer() == null && !containsHint(Hint.PARALLEL))
+        {
+            return toSizedCollection(collection, dtoCollectionFactory);
+        }
+
+        if (isTransformedDirectly())
+        {
+            return toCollectionDirectly(dtoCollectionFactory);
+        }
+
         Stream<? extends EntityContainer> stream = streamSupplier.get();
 
         if (stream == null)
@@ -91,21 +376,177 @@ public abstract class AbstractStreamTransformer<DTO, Entity, EntityContainer> im
             stream = Stream.empty();
         }
 
-        DTOCollection dtos = toStream().collect(Collectors.toCollection(dtoCollectionFactory));
+        boolean keepNull = containsHint(Hint.KEEP_NULL);
+        Spliterator<? extends EntityContainer> spliterator = stream.spliterator();
+        DTOCollection dtos = dtoCollectionFactory.apply(expectedSizeOf(spliterator));
+
+        forEachTransformed(StreamSupport.stream(spliterator, false), (entity, dto) -> {
+            if (dto != null || keepNull)
+            {
+                dtos.add(dto);
+            }
+        });
+
+        if (containsHint(Hint.UNMODIFIABLE))
+        {
+            return MapperUtils.toUnmodifiableCollection(dtos);
+        }
+
+        return dtos;
+    }
+
+    /**
+     * Transforms the collection in a plain loop, without a stream.
+     */
+    private <DTOCollection extends Collection<DTO>> DTOCollection toSizedCollection(
+        Collection<? extends EntityContainer> collection, IntFunction<DTOCollection> dtoCollectionFactory)
+    {
+        boolean keepNull = containsHint(Hint.KEEP_NULL);
+        DTOCollection dtos = dtoCollectionFactory.apply(collection.size());
+
+        for (EntityContainer container : collection)
+        {
+            DTO dto = transform(container, hints);
+
+            if (dto != null || keepNull)
+            {
+                dtos.add(dto);
+            }
+        }
 
         if (containsHint(Hint.UNMODIFIABLE))
         {
-            dtos = MapperUtils.toUnmodifiableCollection(dtos);
+            return MapperUtils.toUnmodifiableCollection(dtos);
         }
 
         return dtos;
+    }
+
+    /**
+     * Transforms the entities to a collection by using {@link #forEachTransformedDirectly(BiConsumer)}.
+     */
+    private <DTOCollection extends Collection<DTO>> DTOCollection toCollectionDirectly(
+        IntFunction<DTOCollection> dtoCollectionFactory)
+    {
+        boolean keepNull = containsHint(Hint.KEEP_NULL);
+        DTOCollection dtos = dtoCollectionFactory.apply(-1);
+
+        boolean transformed = forEachTransformedDirectly((entity, dto) -> {
+            if (dto != null || keepNull)
+            {
+                dtos.add(dto);
+            }
+        });
+
+        if (!transformed && !containsHint(Hint.OR_EMPTY))
+        {
+            return null;
+        }
+
+        if (containsHint(Hint.UNMODIFIABLE))
+        {
+            return MapperUtils.toUnmodifiableCollection(dtos);
+        }
+
+        return dtos;
+    }
+
+    @Override
+    public List<DTO> toLazyList()
+    {
+        List<? extends EntityContainer> containers = toContainerList();
+
+        if (containers == null)
+        {
+            return containsHint(Hint.OR_EMPTY) ? Collections.emptyList() : null;
+        }
+
+        return new LazyList<DTO, EntityContainer>(containers, container -> transform(container, hints));
+    }
+
+    @Override
+    public <Key> Map<Key, DTO> toLazyMap(Function<Entity, Key> keyFunction)
+    {
+        List<? extends EntityContainer> containers = toContainerList();
+
+        if (containers == null)
+        {
+            return containsHint(Hint.OR_EMPTY) ? Collections.emptyMap() : null;
+        }
+
+        Map<Key, EntityContainer> containersByKey = new HashMap<>(MapperUtils.hashCapacity(containers.size()));
+
+        for (EntityContainer container : containers)
+        {
+            if (container != null)
+            {
+                containersByKey.put(toKey(keyFunction, container), container);
+            }
+        }
 
+        return new LazyMap<Key, DTO, EntityContainer>(containersByKey, container -> transform(container, hints));
+    }
+
+    /**
+     * Returns the containers as list with random access. Returns the source itself, if it is such a list, collects the
+     * containers otherwise. Does not transform anything.
+     */
+    private List<? extends EntityContainer> toContainerList()
+    {
+        Collection<? extends EntityContainer> collection = getSourceCollection();
+
+        if (collection instanceof List && collection instanceof RandomAccess)
+        {
+            return (List<? extends EntityContainer>) collection;
+        }
+
+        if (collection != null)
+        {
+            return new ArrayList<>(collection);
+        }
+
+        Stream<? extends EntityContainer> stream = streamSupplier.get();
+
+        if (stream == null)
+        {
+            return null;
+        }
+
+        return stream.collect(Collectors.toList());
+    }
+
+    @Override
+    public <Key> Map<Key, DTO> toHashMap(Function<Entity, Key> keyFunction)
+    {
+        return toSizedMap(expectedSize -> expectedSize >= 0
+            ? new HashMap<>(MapperUtils.hashCapacity(expectedSize)) : new HashMap<>(), keyFunction);
     }
 
     @Override
     public <Key, DTOMap extends Map<Key, DTO>> DTOMap toMap(Supplier<DTOMap> mapFactory,
         Function<Entity, Key> keyFunction)
     {
+        return toSizedMap(expectedSize -> mapFactory.get(), keyFunction);
+    }
+
+    /**
+     * Transforms the stream to a map of DTOs, like {@link #toMap(Supplier, Function)}. The factory gets the number of
+     * entities, if the stream knows it (e.g. the stream of a {@link Collection} or a {@link Map}), -1 otherwise.
+     *
+     * @param <Key> the type of the key
+     * @param <DTOMap> the type of the map
+     * @param mapFactory the factory for the map
+     * @param keyFunction the function to extract the key from one entity
+     * @return the map
+     */
+    protected <Key, DTOMap extends Map<Key, DTO>> DTOMap toSizedMap(IntFunction<DTOMap> mapFactory,
+        Function<Entity, Key> keyFunction)
+    {
+        if (isTransformedDirectly())
+        {
+            return toMapDirectly(mapFactory, keyFunction);
+        }
+
         Stream<? extends EntityContainer> stream = streamSupplier.get();
 
         if (stream == null)
@@ -122,16 +563,11 @@ public abstract class AbstractStreamTransformer<DTO, Entity, EntityContainer> im
 
         try
         {
-            DTOMap dtos = mapFactory.get();
-
-            stream.forEach(entity -> {
-                if (entity == null)
-                {
-                    return;
-                }
+            Spliterator<? extends EntityContainer> spliterator = stream.spliterator();
+            DTOMap dtos = mapFactory.apply(expectedSizeOf(spliterator));
 
+            forEachTransformed(StreamSupport.stream(spliterator, false).filter(Objects::nonNull), (entity, dto) -> {
                 Key key = toKey(keyFunction, entity);
-                DTO dto = transform(entity, hints);
 
                 if (dto != null || keepNull)
                 {
@@ -153,11 +589,54 @@ public abstract class AbstractStreamTransformer<DTO, Entity, EntityContainer> im
         }
     }
 
+    /**
+     * Transforms the entities to a map by using {@link #forEachTransformedDirectly(BiConsumer)}.
+     */
+    private <Key, DTOMap extends Map<Key, DTO>> DTOMap toMapDirectly(IntFunction<DTOMap> mapFactory,
+        Function<Entity, Key> keyFunction)
+    {
+        boolean keepNull = containsHint(Hint.KEEP_NULL);
+        DTOMap dtos = mapFactory.apply(-1);
+
+        try
+        {
+            boolean transformed = forEachTransformedDirectly((entity, dto) -> {
+                Key key = keyFunction.apply(entity);
+
+                if (dto != null || keepNull)
+                {
+                    dtos.put(key, dto);
+                }
+            });
+
+            if (!transformed && !containsHint(Hint.OR_EMPTY))
+            {
+                return null;
+            }
+        }
+        catch (Exception e)
+        {
+            throw new MapperException("Failed to transform entities to a map", e);
+        }
+
+        if (containsHint(Hint.UNMODIFIABLE))
+        {
+            return MapperUtils.toUnmodifiableMap(dtos);
+        }
+
+        return dtos;
+    }
+
     @Override
     public <GroupKey, DTOCollection extends Collection<DTO>, DTOMap extends Map<GroupKey, DTOCollection>> Map<GroupKey, DTOCollection> toGroupedMap(
         Supplier<DTOMap> mapFactory, Function<Entity, GroupKey> groupKeyFunction,
         Supplier<DTOCollection> collectionFactory)
     {
+        if (isTransformedDirectly())
+        {
+            return toGroupedMapDirectly(mapFactory, groupKeyFunction, collectionFactory);
+        }
+
         Stream<? extends EntityContainer> stream = streamSupplier.get();
 
         if (stream == null)
@@ -170,26 +649,23 @@ public abstract class AbstractStreamTransformer<DTO, Entity, EntityContainer> im
             stream = Stream.empty();
         }
 
+        boolean keepNull = containsHint(Hint.KEEP_NULL);
+
         try
         {
-            Map<GroupKey, DTOCollection> dtos = MapperUtils
-                .mapMixedGroups(stream, mapFactory.get(), entity -> toKey(groupKeyFunction, entity), collectionFactory,
-                    (entity, dto) -> false, (entity, dto) -> transform(entity, hints), false,
-                    containsHint(Hint.KEEP_NULL) ? null : dto -> dto != null, map -> {
-                        if (containsHint(Hint.UNMODIFIABLE))
-                        {
-                            List<GroupKey> keys = new ArrayList<>(map.keySet());
+            DTOMap dtos = mapFactory.get();
 
-                            keys.forEach(key -> map.put(key, MapperUtils.toUnmodifiableCollection(map.get(key))));
-                        }
-                    });
+            // a single pass, the DTOs are always new, there is nothing to match
+            forEachTransformed(stream, (entity, dto) -> {
+                GroupKey groupKey = toKey(groupKeyFunction, entity);
 
-            if (containsHint(Hint.UNMODIFIABLE))
-            {
-                dtos = MapperUtils.toUnmodifiableMap(dtos);
-            }
+                if (dto != null || keepNull)
+                {
+                    addToGroup(dtos, groupKey, dto, collectionFactory);
+                }
+            });
 
-            return dtos;
+            return toUnmodifiableGroupsIfNeeded(dtos);
         }
         catch (Exception e)
         {
@@ -198,4 +674,84 @@ public abstract class AbstractStreamTransformer<DTO, Entity, EntityContainer> im
         }
     }
 
+    /**
+     * Transforms the entities to a grouped map by using {@link #forEachTransformedDirectly(BiConsumer)}.
+     */
+    private <GroupKey, DTOCollection extends Collection<DTO>, DTOMap extends Map<GroupKey, DTOCollection>> Map<GroupKey, DTOCollection> toGroupedMapDirectly(
+        Supplier<DTOMap> mapFactory, Function<Entity, GroupKey> groupKeyFunction,
+        Supplier<DTOCollection> collectionFactory)
+    {
+        boolean keepNull = containsHint(Hint.KEEP_NULL);
+        DTOMap dtos = mapFactory.get();
+
+        try
+        {
+            boolean transformed = forEachTransformedDirectly((entity, dto) -> {
+                GroupKey groupKey = groupKeyFunction.apply(entity);
+
+                if (dto != null || keepNull)
+                {
+                    addToGroup(dtos, groupKey, dto, collectionFactory);
+                }
+            });
+
+            if (!transformed && !containsHint(Hint.OR_EMPTY))
+            {
+                return null;
+            }
+        }
+        catch (Exception e)
+        {
+            throw new MapperException("Failed to transform entities to a grouped map", e);
+        }
+
+        return toUnmodifiableGroupsIfNeeded(dtos);
+    }
+
+    private static <GroupKey, DTO, DTOCollection extends Collection<DTO>> void addToGroup(
+        Map<GroupKey, DTOCollection> dtos, GroupKey groupKey, DTO dto, Supplier<DTOCollection> collectionFactory)
+    {
+        DTOCollection dtoCollection = dtos.get(groupKey);
+
+        if (dtoCollection == null)
+        {
+            dtoCollection = collectionFactory.get();
+
+            dtos.put(groupKey, dtoCollection);
+        }
+
+        dtoCollection.add(dto);
+    }
+
+    private <GroupKey, DTOCollection extends Collection<DTO>> Map<GroupKey, DTOCollection> toUnmodifiableGroupsIfNeeded(
+        Map<GroupKey, DTOCollection> dtos)
+    {
+        if (!containsHint(Hint.UNMODIFIABLE))
+        {
+            return dtos;
+        }
+
+        for (Entry<GroupKey, DTOCollection> entry : dtos.entrySet())
+        {
+            entry.setValue(MapperUtils.toUnmodifiableCollection(entry.getValue()));
+        }
+
+        return MapperUtils.toUnmodifiableMap(dtos);
+    }
+
+    private boolean isTransformedDirectly()
+    {
+        return isTransformableDirectly() && getBatchTransformer() == null && !containsHint(Hint.PARALLEL);
+    }
+
+    /**
+     * Returns the exact number of elements of the spliterator, -1 if not known.
+     */
+    private static int expectedSizeOf(Spliterator<?> spliterator)
+    {
+        long size = spliterator.getExactSizeIfKnown();
+
+        return size <= Integer.MAX_VALUE ? (int) size : -1;
+    }
+
 }
@@ -2,6 +2,10 @@ package at.porscheinformatik.antimapper;
 
 /**
  * A default implementation for a {@link Transformer}. It just handles the null-case.
+ * <p>
+ * With a {@link TransformScope} hint, an entity, that references itself while its DTO is being created, fails with a
+ * {@link MapperException}, unless the transformer registers the DTO with
+ * {@link TransformScope#put(Object, Object, Object)} before transforming the children.
  *
  * @author ham
  * @param <DTO> the type of the DTO
@@ -35,14 +39,21 @@ public abstract class AbstractTransformer<DTO, Entity> implements Transformer<DT
     @Override
     public final DTO transform(Entity entity, Object... hints)
     {
-        hints = Hints.join(defaultHints, hints);
+        Object[] allHints = Hints.push(defaultHints, hints);
 
         if (entity == null)
         {
-            return transformNull(hints);
+            return transformNull(allHints);
         }
 
-        return transformNonNull(entity, hints);
+        TransformScope scope = Hints.hintOrNull(allHints, TransformScope.class);
+
+        if (scope != null)
+        {
+            return scope.transform(this, entity, () -> transformNonNull(entity, allHints));
+        }
+
+        return transformNonNull(entity, allHints);
     }
 
     /**
@@ -0,0 +1,46 @@
+package at.porscheinformatik.antimapper;
+
+import java.util.List;
+
+/**
+ * A {@link Transformer} that prepares the transformation of multiple entities at once. The collection and map methods
+ * of the {@link StreamTransformer}s split the entities into chunks of {@link #getBatchSize(Object...)} entities and
+ * call {@link #transformBatch(List, Object...)} for each chunk, before calling
+ * {@link #transform(Object, Object...)} for each entity of the chunk. Use it to fetch lazy associations, codes or
+ * translations of all entities with one query, instead of one query per entity.
+ *
+ * @author ham
+ * @param <DTO> the type of the DTO
+ * @param <Entity> the type of the entity
+ */
+public interface BatchTransformer<DTO, Entity> extends Transformer<DTO, Entity>
+{
+
+    /**
+     * The default number of entities in a chunk.
+     */
+    int DEFAULT_BATCH_SIZE = 256;
+
+    /**
+     * Prepares the transformation of the entities. Called once for each chunk, before the entities of the chunk get
+     * transformed. The hints are the hints of the stream transformer, they do not contain the hints added for single
+     * entities, like the key of a map entry or the parent of a flat map.
+     *
+     * @param entities the entities of the chunk, may contain null, never empty
+     * @param hints optional hints
+     */
+    void transformBatch(List<? extends Entity> entities, Object... hints);
+
+    /**
+     * Returns the maximum number of entities in a chunk. The default implementation returns
+     * {@link #DEFAULT_BATCH_SIZE}.
+     *
+     * @param hints optional hints
+     * @return the number of entities, at least 1
+     */
+    default int getBatchSize(Object... hints)
+    {
+        return DEFAULT_BATCH_SIZE;
+    }
+
+}
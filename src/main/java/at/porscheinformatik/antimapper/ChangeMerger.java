@@ -0,0 +1,110 @@
+package at.porscheinformatik.antimapper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+/**
+ * A merger for change sets: the DTOs, that have been created or updated, and the DTOs, that have been deleted. Unlike
+ * the {@link StreamMerger}, it does not need all DTOs of the collection. It searches the entities of the changed DTOs
+ * by their keys and touches only these entities, the others stay as they are. Entities, that are not part of the
+ * change set, are never deleted.
+ *
+ * @author ham
+ * @param <DTO> the type of DTO
+ * @param <Entity> the type of Entity
+ */
+public interface ChangeMerger<DTO, Entity>
+{
+
+    /**
+     * Merges the changes into the collection. Merges each created or updated DTO with the matching entity, or creates
+     * a new one, which is added at the end. Merges the matching entity of each deleted DTO with null and removes it,
+     * if the result is null. Deleted DTOs without matching entity are ignored. If the entities parameter is null, it
+     * creates a {@link Collection} if necessary. Ignores DTOs that merge to null, unless the {@link Hint#KEEP_NULL}
+     * hint is set. Returns an unmodifiable instance if the {@link Hint#UNMODIFIABLE} is set (creates a new result
+     * object in this case, that shares the entities until the changes modify them). Never returns null if the
+     * {@link Hint#OR_EMPTY} is set. With the {@link Hint#UNMODIFIABLE} hint, the factory is only called if the
+     * changes modify the entities. Otherwise the result is an unmodifiable view of the entities parameter itself.
+     * <p>
+     * Does not call {@link Merger#afterMergeIntoCollection(Collection, Object...)}, because the collection is not
+     * merged as a whole.
+     *
+     * @param <EntityCollection> the type of the collection
+     * @param entities the entities, may be null
+     * @param entityCollectionFactory a factory for the needed collection
+     * @return a collection
+     */
+    <EntityCollection extends Collection<Entity>> EntityCollection intoCollection(EntityCollection entities,
+        Supplier<EntityCollection> entityCollectionFactory);
+
+    /**
+     * Merges the changes into the collection. If the entities parameter is null, it creates a {@link HashSet} if
+     * necessary. See {@link #intoCollection(Collection, Supplier)}.
+     *
+     * @param entities the entities, may be null
+     * @return a collection
+     */
+    default Set<Entity> intoHashSet(Set<Entity> entities)
+    {
+        return intoCollection(entities, HashSet::new);
+    }
+
+    /**
+     * Merges the changes into the collection. If the entities parameter is null, it creates a {@link LinkedHashSet}
+     * if necessary. See {@link #intoCollection(Collection, Supplier)}.
+     *
+     * @param entities the entities, may be null
+     * @return a collection
+     */
+    default Set<Entity> intoLinkedHashSet(Set<Entity> entities)
+    {
+        return intoCollection(entities, LinkedHashSet::new);
+    }
+
+    /**
+     * Merges the changes into the collection. If the entities parameter is null, it creates a {@link TreeSet} if
+     * necessary. See {@link #intoCollection(Collection, Supplier)}.
+     *
+     * @param entities the entities, may be null
+     * @return a collection
+     */
+    default SortedSet<Entity> intoTreeSet(SortedSet<Entity> entities)
+    {
+        return intoCollection(entities,
+            () -> entities != null ? new TreeSet<>(entities.comparator()) : new TreeSet<>());
+    }
+
+    /**
+     * Merges the changes into the collection. If the entities parameter is null, it creates a {@link TreeSet} if
+     * necessary. See {@link #intoCollection(Collection, Supplier)}.
+     *
+     * @param entities the entities, may be null
+     * @param comparator the comparator for the tree set, will only be used for the create method
+     * @return a collection
+     */
+    default SortedSet<Entity> intoTreeSet(SortedSet<Entity> entities, Comparator<? super Entity> comparator)
+    {
+        return intoCollection(entities, () -> new TreeSet<>(comparator));
+    }
+
+    /**
+     * Merges the changes into the list. Updated entities keep their position. If the entities parameter is null, it
+     * creates an {@link ArrayList} if necessary. See {@link #intoCollection(Collection, Supplier)}.
+     *
+     * @param entities the entities, may be null
+     * @return a collection
+     */
+    default List<Entity> intoArrayList(List<Entity> entities)
+    {
+        return intoCollection(entities, ArrayList::new);
+    }
+
+}
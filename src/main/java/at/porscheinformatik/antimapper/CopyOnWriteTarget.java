@@ -0,0 +1,384 @@
+package at.porscheinformatik.antimapper;
+
+import java.util.AbstractCollection;
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * A merge target for the {@link Hint#UNMODIFIABLE} hint, that shares the original collection until the first
+ * modification. The view reads from the original collection. The first call, that modifies the view, copies the
+ * original collection into a new one of the factory and all further calls use the copy. Calls, that would not change
+ * anything, like setting the same element or removing nothing, do not copy. The original collection is never modified.
+ *
+ * @author ham
+ * @param <Entity> the type of entity
+ * @param <EntityCollection> the type of collection
+ */
+final class CopyOnWriteTarget<Entity, EntityCollection extends Collection<Entity>>
+{
+
+    private final EntityCollection original;
+    private final Supplier<EntityCollection> factory;
+    private final Collection<Entity> view;
+
+    private EntityCollection copy;
+
+    CopyOnWriteTarget(EntityCollection original, Supplier<EntityCollection> factory)
+    {
+        super();
+
+        this.original = original;
+        this.factory = factory;
+
+        if (original instanceof RandomAccess && original instanceof List<?>)
+        {
+            view = new RandomAccessListView();
+        }
+        else if (original instanceof List<?>)
+        {
+            view = new ListView();
+        }
+        else if (original instanceof SortedSet<?>)
+        {
+            view = new SortedCollectionView();
+        }
+        else
+        {
+            view = new CollectionView();
+        }
+    }
+
+    /**
+     * Returns the view, that should be used as merge target. It is a {@link List}, if the original collection is a
+     * list.
+     *
+     * @return the view
+     */
+    Collection<Entity> view()
+    {
+        return view;
+    }
+
+    /**
+     * Returns true, if the view has been modified and the original collection has been copied.
+     *
+     * @return true if copied
+     */
+    boolean isCopied()
+    {
+        return copy != null;
+    }
+
+    /**
+     * Returns the collection of the merge: the copy, if the view has been modified, the original collection otherwise.
+     *
+     * @return the collection
+     */
+    EntityCollection get()
+    {
+        return read();
+    }
+
+    private EntityCollection read()
+    {
+        return copy != null ? copy : original;
+    }
+
+    private EntityCollection write()
+    {
+        if (copy == null)
+        {
+            EntityCollection copy = factory.get();
+
+            copy.addAll(original);
+
+            this.copy = copy;
+        }
+
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Entity> readList()
+    {
+        return (List<Entity>) read();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Entity> writeList()
+    {
+        return (List<Entity>) write();
+    }
+
+    private boolean removeMatching(Predicate<? super Entity> filter)
+    {
+        if (copy == null && !original.stream().anyMatch(filter))
+        {
+            return false;
+        }
+
+        return write().removeIf(filter);
+    }
+
+    private class ListView extends AbstractList<Entity>
+    {
+
+        @Override
+        public Entity get(int index)
+        {
+            return readList().get(index);
+        }
+
+        @Override
+        public int size()
+        {
+            return read().size();
+        }
+
+        @Override
+        public boolean contains(Object o)
+        {
+            return read().contains(o);
+        }
+
+        @Override
+        public Entity set(int index, Entity element)
+        {
+            if (copy == null && readList().get(index) == element)
+            {
+                return element;
+            }
+
+            return writeList().set(index, element);
+        }
+
+        @Override
+        public void add(int index, Entity element)
+        {
+            modCount++;
+            writeList().add(index, element);
+        }
+
+        @Override
+        public boolean addAll(Collection<? extends Entity> c)
+        {
+            if (c.isEmpty())
+            {
+                return false;
+            }
+
+            modCount++;
+
+            return write().addAll(c);
+        }
+
+        @Override
+        public Entity remove(int index)
+        {
+            modCount++;
+
+            return writeList().remove(index);
+        }
+
+        @Override
+        protected void removeRange(int fromIndex, int toIndex)
+        {
+            if (fromIndex < toIndex)
+            {
+                modCount++;
+                writeList().subList(fromIndex, toIndex).clear();
+            }
+        }
+
+        @Override
+        public boolean removeIf(Predicate<? super Entity> filter)
+        {
+            modCount++;
+
+            return removeMatching(filter);
+        }
+
+        @Override
+        public void clear()
+        {
+            if (!read().isEmpty())
+            {
+                modCount++;
+                write().clear();
+            }
+        }
+
+        @Override
+        public Object[] toArray()
+        {
+            return read().toArray();
+        }
+
+        @Override
+        public <T> T[] toArray(T[] a)
+        {
+            return read().toArray(a);
+        }
+
+    }
+
+    private final class RandomAccessListView extends ListView implements RandomAccess
+    {
+        // marks the view as random access
+    }
+
+    private class CollectionView extends AbstractCollection<Entity>
+    {
+
+        @Override
+        public Iterator<Entity> iterator()
+        {
+            Iterator<Entity> iterator = read().iterator();
+
+            if (copy != null)
+            {
+                return iterator;
+            }
+
+            // iterates the original collection until the first removal
+            return new Iterator<Entity>()
+            {
+                private Iterator<Entity> delegate = iterator;
+                private int count;
+                private Entity current;
+
+                @Override
+                public boolean hasNext()
+                {
+                    return delegate.hasNext();
+                }
+
+                @Override
+                public Entity next()
+                {
+                    current = delegate.next();
+                    count++;
+
+                    return current;
+                }
+
+                @Override
+                public void remove()
+                {
+                    if (delegate == iterator)
+                    {
+                        if (original instanceof Set<?>)
+                        {
+                            // the copy may iterate in another order, but the value is unique
+                            write().remove(current);
+
+                            return;
+                        }
+
+                        // the copy has been filled in the order of the original, continue on the same position
+                        Iterator<Entity> copyIterator = write().iterator();
+
+                        for (int i = 0; i < count; i++)
+                        {
+                            copyIterator.next();
+                        }
+
+                        delegate = copyIterator;
+                    }
+
+                    delegate.remove();
+                }
+            };
+        }
+
+        @Override
+        public int size()
+        {
+            return read().size();
+        }
+
+        @Override
+        public boolean contains(Object o)
+        {
+            return read().contains(o);
+        }
+
+        @Override
+        public boolean add(Entity e)
+        {
+            return write().add(e);
+        }
+
+        @Override
+        public boolean addAll(Collection<? extends Entity> c)
+        {
+            if (c.isEmpty())
+            {
+                return false;
+            }
+
+            return write().addAll(c);
+        }
+
+        @Override
+        public boolean remove(Object o)
+        {
+            if (copy == null && !original.contains(o))
+            {
+                return false;
+            }
+
+            return write().remove(o);
+        }
+
+        @Override
+        public boolean removeIf(Predicate<? super Entity> filter)
+        {
+            return removeMatching(filter);
+        }
+
+        @Override
+        public void clear()
+        {
+            if (!read().isEmpty())
+            {
+                write().clear();
+            }
+        }
+
+        @Override
+        public Object[] toArray()
+        {
+            return read().toArray();
+        }
+
+        @Override
+        public <T> T[] toArray(T[] a)
+        {
+            return read().toArray(a);
+        }
+
+    }
+
+    private final class SortedCollectionView extends CollectionView implements SortedView
+    {
+        // marks the view as view of a sorted set
+    }
+
+    /**
+     * Marks the view of a {@link SortedSet}. The view itself is not sorted, but the values must be added again, if
+     * their sort keys may have changed.
+     */
+    interface SortedView
+    {
+        // marker
+    }
+
+}
@@ -24,8 +24,12 @@ public interface GroupMerger<DTO, Entity>
     /**
      * Maps a grouped map to a collection. Ignores the order. If the entities parameter is null, it creates a
      * {@link Collection} if necessary. Ignores DTOs that merge to null, unless the {@link Hint#KEEP_NULL} hint is set.
-     * Returns an unmodifiable instance if the {@link Hint#UNMODIFIABLE} is set (always creates a new result object in
-     * this case). Never returns null if the {@link Hint#OR_EMPTY} is set.
+     * Returns an unmodifiable instance if the {@link Hint#UNMODIFIABLE} is set (creates a new result object in this
+     * case, that shares the entities until the merge modifies them). Never returns null if the {@link Hint#OR_EMPTY} is
+     * set.
+     * <p>
+     * With the {@link Hint#UNMODIFIABLE} hint, the factory is only called if the merge modifies the entities, like in
+     * {@link StreamMerger#intoMixedCollection(Collection, Supplier)}.
      *
      * @param <EntityCollection> the type of the collection
      * @param entities the entities
@@ -38,8 +42,12 @@ public interface GroupMerger<DTO, Entity>
     /**
      * Maps a grouped map to a collection. Keeps the order. If the entities parameter is null, it creates a
      * {@link Collection} if necessary. Ignores DTOs that merge to null, unless the {@link Hint#KEEP_NULL} hint is set.
-     * Returns an unmodifiable instance if the {@link Hint#UNMODIFIABLE} is set (always creates a new result object in
-     * this case). Never returns null if the {@link Hint#OR_EMPTY} is set.
+     * Returns an unmodifiable instance if the {@link Hint#UNMODIFIABLE} is set (creates a new result object in this
+     * case, that shares the entities until the merge modifies them). Never returns null if the {@link Hint#OR_EMPTY} is
+     * set.
+     * <p>
+     * With the {@link Hint#UNMODIFIABLE} hint, the factory is only called if the merge modifies the entities, like in
+     * {@link StreamMerger#intoOrderedCollection(Collection, Supplier)}.
      *
      * @param <EntityCollection> the type of the collection
      * @param entities the entities
@@ -52,8 +60,9 @@ public interface GroupMerger<DTO, Entity>
     /**
      * Maps a grouped map to a collection. If the entities parameter is null, it creates a {@link HashSet} if necessary.
      * Ignores DTOs that merge to null, unless the {@link Hint#KEEP_NULL} hint is set. Returns an unmodifiable instance
-     * if the {@link Hint#UNMODIFIABLE} is set (always creates a new result object in this case). Never returns null if
-     * the {@link Hint#OR_EMPTY} is set.
+     * if the {@link Hint#UNMODIFIABLE} is set (creates a new result object in this case, that shares the entities until
+     * the merge modifies them, see {@link #intoMixedCollection(Collection, Supplier)}). Never returns null if the
+     * {@link Hint#OR_EMPTY} is set.
      *
      * @param entities the entities
      * @return the collection
@@ -66,8 +75,9 @@ public interface GroupMerger<DTO, Entity>
     /**
      * Maps a grouped map to a collection. If the entities parameter is null, it creates a {@link LinkedHashSet} if
      * necessary. Ignores DTOs that merge to null, unless the {@link Hint#KEEP_NULL} hint is set. Returns an
-     * unmodifiable instance if the {@link Hint#UNMODIFIABLE} is set (always creates a new result object in this case).
-     * Never returns null if the {@link Hint#OR_EMPTY} is set.
+     * unmodifiable instance if the {@link Hint#UNMODIFIABLE} is set (creates a new result object in this case, that
+     * shares the entities until the merge modifies them, see {@link #intoMixedCollection(Collection, Supplier)}). Never
+     * returns null if the {@link Hint#OR_EMPTY} is set.
      *
      * @param entities the entities
      * @return the collection
@@ -80,8 +90,9 @@ public interface GroupMerger<DTO, Entity>
     /**
      * Maps a grouped map to a collection. If the entities parameter is null, it creates a {@link TreeSet} if necessary.
      * Ignores DTOs that merge to null, unless the {@link Hint#KEEP_NULL} hint is set. Returns an unmodifiable instance
-     * if the {@link Hint#UNMODIFIABLE} is set (always creates a new result object in this case). Never returns null if
-     * the {@link Hint#OR_EMPTY} is set.
+     * if the {@link Hint#UNMODIFIABLE} is set (creates a new result object in this case, that shares the entities until
+     * the merge modifies them, see {@link #intoOrderedCollection(Collection, Supplier)}). Never returns null if the
+     * {@link Hint#OR_EMPTY} is set.
      *
      * @param entities the entities
      * @return the collection
@@ -95,8 +106,9 @@ public interface GroupMerger<DTO, Entity>
     /**
      * Maps a grouped map to a collection. If the entities parameter is null, it creates a {@link TreeSet} if necessary.
      * Ignores DTOs that merge to null, unless the {@link Hint#KEEP_NULL} hint is set. Returns an unmodifiable instance
-     * if the {@link Hint#UNMODIFIABLE} is set (always creates a new result object in this case). Never returns null if
-     * the {@link Hint#OR_EMPTY} is set.
+     * if the {@link Hint#UNMODIFIABLE} is set (creates a new result object in this case, that shares the entities until
+     * the merge modifies them, see {@link #intoOrderedCollection(Collection, Supplier)}). Never returns null if the
+     * {@link Hint#OR_EMPTY} is set.
      *
      * @param entities the entities
      * @param comparator the comparator
@@ -110,7 +122,8 @@ public interface GroupMerger<DTO, Entity>
     /**
      * Maps a grouped map to a list. If the entities parameter is null, it creates a {@link List} if necessary. Ignores
      * DTOs that merge to null, unless the {@link Hint#KEEP_NULL} hint is set. Returns an unmodifiable instance if the
-     * {@link Hint#UNMODIFIABLE} is set (always creates a new result object in this case). Never returns null if the
+     * {@link Hint#UNMODIFIABLE} is set (creates a new result object in this case, that shares the entities until the
+     * merge modifies them, see {@link #intoOrderedCollection(Collection, Supplier)}). Never returns null if the
      * {@link Hint#OR_EMPTY} is set.
      *
      * @param entities the entities
@@ -23,5 +23,20 @@ public enum Hint
      * Tells the collection and map transformer methods to create unmodifiable collections and maps. Tells the
      * collection and map merger methods to assume and create unmodifiable collections and maps.
      */
-    UNMODIFIABLE
+    UNMODIFIABLE,
+
+    /**
+     * Tells the ordered collection mergers to compute the differences in linear space, even if the collections would
+     * fit into the {@link MapperUtils#ORDERED_CELL_BUDGET cell budget}. This is slower, but needs less memory.
+     */
+    LINEAR_SPACE,
+
+    /**
+     * Tells the stream transformers to transform the entities in parallel. The collections and maps keep the order of
+     * the source, the DTOs are added by a single thread. Tells the mixed collection mergers to match the DTOs in
+     * parallel. The entities are still merged by the calling thread, in the order of the DTOs, and the result is the
+     * same as without the hint. If the hints contain a {@link java.util.concurrent.ForkJoinPool}, the parallel parts
+     * run in this pool, otherwise in the common pool. The mappers must be thread-safe.
+     */
+    PARALLEL
 }
@@ -0,0 +1,187 @@
+package at.porscheinformatik.antimapper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An immutable frame of hints, created by {@link Hints#cached(Object...)} and by
+ * {@link Hints#push(Object[], Object...)} on top of an existing frame. It references the parent hints instead of
+ * copying them, thus pushing hints is cheap, even if the mappers are nested deeply. Each frame caches the hints by the
+ * requested type. The frame is passed as the only element of a hints array. The methods of {@link Hints} look into
+ * these frames, use {@link Hints#flatten(Object[])} if you need a plain array. Plain hints arrays never get a frame,
+ * contexts are opt-in.
+ *
+ * @author ham
+ */
+public final class HintContext
+{
+
+    /**
+     * Marks types without hint in the cache.
+     */
+    private static final Object NONE = new Object();
+
+    private final Object[] parentHints;
+    private final Object[] hints;
+    private final Object[] array;
+
+    /**
+     * The hints by the requested type, created on demand.
+     */
+    private volatile Map<Class<?>, Object> cache;
+
+    /**
+     * True after the first lookup. The cache is created at the second lookup, thus short-lived frames, that are asked
+     * only once, do not create it.
+     */
+    private boolean asked;
+
+    HintContext(Object[] parentHints, Object[] hints)
+    {
+        super();
+
+        this.parentHints = parentHints;
+        this.hints = hints;
+
+        array = new Object[]{this};
+    }
+
+    /**
+     * Returns the hints array containing this frame as the only element.
+     *
+     * @return the hints array
+     */
+    Object[] asHints()
+    {
+        return array;
+    }
+
+    /**
+     * Returns the hint of the specified type, null if not available. The hints of this frame override the hints of
+     * the parent. Caches the results by the type from the second call on, thus subsequent calls for the same type,
+     * e.g. from nested frames, are answered in constant time. Assumes that the hints arrays are not modified after
+     * pushing them.
+     *
+     * @param <Any> the type of the hint
+     * @param type the type
+     * @return the hint
+     */
+    @SuppressWarnings("unchecked")
+    <Any> Any hintOrNull(Class<Any> type)
+    {
+        Map<Class<?>, Object> cache = this.cache;
+
+        if (cache == null)
+        {
+            if (!asked)
+            {
+                asked = true;
+
+                return (Any) lookup(type);
+            }
+
+            cache = new ConcurrentHashMap<>(4);
+
+            this.cache = cache;
+        }
+
+        Object hint = cache.get(type);
+
+        if (hint == null)
+        {
+            hint = lookup(type);
+
+            cache.put(type, hint != null ? hint : NONE);
+        }
+
+        return hint != NONE ? (Any) hint : null;
+    }
+
+    private Object lookup(Class<?> type)
+    {
+        Object hint = Hints.hintOrNull(hints, type);
+
+        if (hint == null)
+        {
+            hint = Hints.hintOrNull(parentHints, type);
+        }
+
+        return hint;
+    }
+
+    /**
+     * Returns true if this frame or the parent contains at least one value of the specified type.
+     *
+     * @param type the type
+     * @return true if available
+     */
+    boolean containsHint(Class<?> type)
+    {
+        return hintOrNull(type) != null;
+    }
+
+    /**
+     * Returns true if this frame or the parent contains at least one value that equals the specified object.
+     *
+     * @param object an object
+     * @return true if available
+     */
+    boolean containsHint(Object object)
+    {
+        return Hints.containsHint(hints, object) || Hints.containsHint(parentHints, object);
+    }
+
+    /**
+     * Returns all hints as plain array, the hints of the parent first.
+     *
+     * @return the hints
+     */
+    public Object[] toArray()
+    {
+        List<Object> list = new ArrayList<>();
+
+        addTo(list, parentHints);
+        addTo(list, hints);
+
+        return list.toArray();
+    }
+
+    /**
+     * Adds the hints to the list. Expands the contexts.
+     *
+     * @param list the list
+     * @param hints the hints, may be null
+     */
+    static void addTo(List<Object> list, Object[] hints)
+    {
+        if (hints == null)
+        {
+            return;
+        }
+
+        for (Object hint : hints)
+        {
+            if (hint instanceof HintContext)
+            {
+                HintContext context = (HintContext) hint;
+
+                addTo(list, context.parentHints);
+                addTo(list, context.hints);
+            }
+            else
+            {
+                list.add(hint);
+            }
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "HintContext" + Arrays.toString(toArray());
+    }
+
+}
@@ -1,13 +1,23 @@
 package at.porscheinformatik.antimapper;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
  * Utilities for hints
+ * <p>
+ * Hints are passed as plain arrays by default. For deeply nested mappers, the hints can be wrapped in a
+ * {@link HintContext} using {@link #cached(Object...)}. Hints pushed on top of a context are linked instead of copied.
+ * This is opt-in: mappers that get hints of a context get an array with the {@link HintContext} as its only element,
+ * thus they must read them with the methods of this class. Code that iterates the hints array directly or uses
+ * {@code Arrays.asList(hints)} must call {@link #flatten(Object[])} first.
  *
  * @author ham
  */
@@ -20,7 +30,8 @@ public final class Hints
     }
 
     /**
-     * Joins the left and right array
+     * Joins the left and right array. Consider using {@link #push(Object[], Object...)}, which does not copy the arrays
+     * of a {@link HintContext}.
      *
      * @param left the left array
      * @param right the right array
@@ -45,6 +56,100 @@ public final class Hints
         return result;
     }
 
+    /**
+     * Pushes the right hints on top of the left hints. If one of the arrays contains a {@link HintContext}, it does
+     * not copy the left array, but creates a new {@link HintContext} referencing it. The hints of the right array
+     * override the ones of the left array, like with a joined array. The methods of this class look into the context,
+     * use {@link #flatten(Object[])} for a plain array. Plain arrays are joined like with
+     * {@link #join(Object[], Object...)}, thus contexts are only used, if they have been created by
+     * {@link #cached(Object...)} before.
+     *
+     * @param left the left array
+     * @param right the right array
+     * @return the joined array, or the hints array containing the {@link HintContext}
+     */
+    public static Object[] push(Object[] left, Object... right)
+    {
+        if (left == null || left.length == 0)
+        {
+            return right;
+        }
+
+        if (right == null || right.length == 0)
+        {
+            return left;
+        }
+
+        if (!containsContext(left) && !containsContext(right))
+        {
+            // plain hints stay plain
+            return join(left, right);
+        }
+
+        return new HintContext(left, right).asHints();
+    }
+
+    private static boolean containsContext(Object[] hints)
+    {
+        for (Object hint : hints)
+        {
+            if (hint instanceof HintContext)
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Wraps the hints in a {@link HintContext}, that caches the hints by the requested type. Use it for passing a
+     * larger number of hints to deeply nested mappers. The array must not be modified afterwards. The mappers will
+     * get the hints as context: hints pushed on top of it by {@link #push(Object[], Object...)} are linked instead of
+     * copied, and the mappers must read the hints with the methods of this class.
+     *
+     * @param hints the hints
+     * @return the hints array containing the {@link HintContext}
+     */
+    public static Object[] cached(Object... hints)
+    {
+        if (hints == null || hints.length == 0)
+        {
+            return hints;
+        }
+
+        return new HintContext(null, hints).asHints();
+    }
+
+    /**
+     * Returns the hints as plain array. Expands the {@link HintContext}s created by {@link #push(Object[], Object...)}.
+     * Returns the array itself, if it contains no context.
+     *
+     * @param hints the hints
+     * @return the plain hints
+     */
+    public static Object[] flatten(Object[] hints)
+    {
+        if (hints == null)
+        {
+            return null;
+        }
+
+        for (Object hint : hints)
+        {
+            if (hint instanceof HintContext)
+            {
+                List<Object> list = new ArrayList<>();
+
+                HintContext.addTo(list, hints);
+
+                return list.toArray();
+            }
+        }
+
+        return hints;
+    }
+
     /**
      * Returns the hint of the specified type. Throws an exception, if there's no value of the specified type.
      *
@@ -87,7 +192,7 @@ public final class Hints
 
         throw new IllegalArgumentException(String
             .format("The hint of type %s is missing. Available hints are: %s", MapperUtils.toClassName(type),
-                Arrays.stream(hints).map(MapperUtils::toClassName).collect(Collectors.joining(", "))));
+                Arrays.stream(flatten(hints)).map(MapperUtils::toClassName).collect(Collectors.joining(", "))));
     }
 
     /**
@@ -121,9 +226,20 @@ public final class Hints
         {
             for (int i = hints.length - 1; i >= 0; i--)
             {
-                if (type.isInstance(hints[i]))
+                Object hint = hints[i];
+
+                if (hint instanceof HintContext)
                 {
-                    return (Any) hints[i];
+                    Any value = ((HintContext) hint).hintOrNull(type);
+
+                    if (value != null)
+                    {
+                        return value;
+                    }
+                }
+                else if (type.isInstance(hint))
+                {
+                    return (Any) hint;
                 }
             }
         }
@@ -157,7 +273,7 @@ public final class Hints
         {
             for (Object hint : hints)
             {
-                if (type.isInstance(hint))
+                if (hint instanceof HintContext ? ((HintContext) hint).containsHint(type) : type.isInstance(hint))
                 {
                     return true;
                 }
@@ -180,7 +296,9 @@ public final class Hints
         {
             for (Object hint : hints)
             {
-                if (Objects.equals(object, hint))
+                if (hint instanceof HintContext
+                    ? ((HintContext) hint).containsHint(object)
+                    : Objects.equals(object, hint))
                 {
                     return true;
                 }
@@ -190,6 +308,35 @@ public final class Hints
         return false;
     }
 
+    /**
+     * Collects the {@link Hint} flags contained in the specified hints arrays.
+     *
+     * @param hints the hints arrays, may contain null
+     * @return a new set with the flags
+     */
+    public static Set<Hint> flagsOf(Object[]... hints)
+    {
+        Set<Hint> flags = EnumSet.noneOf(Hint.class);
+
+        for (Object[] current : hints)
+        {
+            if (current == null)
+            {
+                continue;
+            }
+
+            for (Object hint : flatten(current))
+            {
+                if (hint instanceof Hint)
+                {
+                    flags.add((Hint) hint);
+                }
+            }
+        }
+
+        return flags;
+    }
+
     /**
      * Returns a string describing the classes of the specified hints
      *
@@ -204,7 +351,7 @@ public final class Hints
         }
 
         return "Hints["
-            + Arrays.stream(hints).map(hint -> MapperUtils.toClassName(hint)).collect(Collectors.joining(", "))
+            + Arrays.stream(flatten(hints)).map(hint -> MapperUtils.toClassName(hint)).collect(Collectors.joining(", "))
             + "]";
     }
 
@@ -0,0 +1,166 @@
+package at.porscheinformatik.antimapper;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A hash index of values by their keys. Values with the same key are kept in the order they have been added. Each
+ * entry remembers the position of the value in its original collection.
+ *
+ * @param <Value> the type of the values
+ * @author ham
+ */
+final class KeyIndex<Value>
+{
+
+    /**
+     * An entry of the index.
+     *
+     * @param <Value> the type of the value
+     */
+    static final class Entry<Value>
+    {
+        final int position;
+        final Value value;
+
+        Entry<Value> next;
+
+        Entry(int position, Value value)
+        {
+            super();
+
+            this.position = position;
+            this.value = value;
+        }
+    }
+
+    private static final class Bucket<Value>
+    {
+        Entry<Value> head;
+        Entry<Value> tail;
+    }
+
+    /**
+     * Null values have no key. They are stored using this marker.
+     */
+    private static final Object NULL_VALUE = new Object();
+
+    private final Function<? super Value, ?> keyFunction;
+    private final Map<Object, Bucket<Value>> buckets;
+
+    KeyIndex(Function<? super Value, ?> keyFunction, int expectedSize)
+    {
+        super();
+
+        this.keyFunction = keyFunction;
+
+        buckets = new HashMap<>(MapperUtils.hashCapacity(expectedSize));
+    }
+
+    /**
+     * Adds the value to the index.
+     *
+     * @param position the position of the value in the original collection
+     * @param value the value, may be null
+     */
+    void add(int position, Value value)
+    {
+        Object key = value != null ? keyFunction.apply(value) : NULL_VALUE;
+        Bucket<Value> bucket = buckets.get(key);
+
+        if (bucket == null)
+        {
+            bucket = new Bucket<>();
+
+            buckets.put(key, bucket);
+        }
+
+        Entry<Value> entry = new Entry<>(position, value);
+
+        if (bucket.tail == null)
+        {
+            bucket.head = entry;
+        }
+        else
+        {
+            bucket.tail.next = entry;
+        }
+
+        bucket.tail = entry;
+    }
+
+    /**
+     * Removes and returns the first entry with the specified key. Entries, that match the skip predicate, are removed
+     * silently. The predicate must be stable: an entry, that has been skipped once, must be skipped forever.
+     *
+     * @param key the key, use {@link #keyOfNull()} for searching null values
+     * @param skip optional predicate for entries that are not available anymore
+     * @return the entry, null if there is none
+     */
+    Entry<Value> poll(Object key, Predicate<Entry<Value>> skip)
+    {
+        Entry<Value> entry = peek(key, skip);
+
+        if (entry != null)
+        {
+            Bucket<Value> bucket = buckets.get(key);
+
+            bucket.head = entry.next;
+
+            if (bucket.head == null)
+            {
+                buckets.remove(key);
+            }
+        }
+
+        return entry;
+    }
+
+    /**
+     * Returns the first entry with the specified key, but keeps it in the index. Entries, that match the skip
+     * predicate, are removed silently. The predicate must be stable: an entry, that has been skipped once, must be
+     * skipped forever. Use it with a predicate, that skips the used entries, if an entry may stay available.
+     *
+     * @param key the key, use {@link #keyOfNull()} for searching null values
+     * @param skip optional predicate for entries that are not available anymore
+     * @return the entry, null if there is none
+     */
+    Entry<Value> peek(Object key, Predicate<Entry<Value>> skip)
+    {
+        Bucket<Value> bucket = buckets.get(key);
+
+        if (bucket == null)
+        {
+            return null;
+        }
+
+        Entry<Value> entry = bucket.head;
+
+        while (entry != null && skip != null && skip.test(entry))
+        {
+            entry = entry.next;
+        }
+
+        bucket.head = entry;
+
+        if (entry == null)
+        {
+            buckets.remove(key);
+        }
+
+        return entry;
+    }
+
+    /**
+     * Returns the key used for indexing null values.
+     *
+     * @return the key
+     */
+    static Object keyOfNull()
+    {
+        return NULL_VALUE;
+    }
+
+}
@@ -0,0 +1,84 @@
+package at.porscheinformatik.antimapper;
+
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * A {@link MatchFunction} that compares objects by their keys. The mapping utilities detect this function and use a
+ * hash index for searching matching objects instead of comparing each object with each other.
+ *
+ * @param <DTO> the type of the left object
+ * @param <Entity> the type of the right object
+ * @author ham
+ */
+public interface KeyedMatchFunction<DTO, Entity> extends MatchFunction<DTO, Entity>
+{
+
+    /**
+     * Creates a {@link KeyedMatchFunction} using the specified key functions.
+     *
+     * @param <DTO> the type of the left object
+     * @param <Entity> the type of the right object
+     * @param leftKeyFunction the function extracting the key of the left object, never called with null
+     * @param rightKeyFunction the function extracting the key of the right object, never called with null
+     * @return the match function
+     */
+    static <DTO, Entity> KeyedMatchFunction<DTO, Entity> of(Function<? super DTO, ?> leftKeyFunction,
+        Function<? super Entity, ?> rightKeyFunction)
+    {
+        Objects.requireNonNull(leftKeyFunction);
+        Objects.requireNonNull(rightKeyFunction);
+
+        return new KeyedMatchFunction<DTO, Entity>()
+        {
+            @Override
+            public Object leftKeyOf(DTO left)
+            {
+                return leftKeyFunction.apply(left);
+            }
+
+            @Override
+            public Object rightKeyOf(Entity right)
+            {
+                return rightKeyFunction.apply(right);
+            }
+        };
+    }
+
+    /**
+     * Returns the key of the left object. The key must implement {@link Object#hashCode()} and
+     * {@link Object#equals(Object)}. The key may be null, null keys match each other.
+     *
+     * @param left the left object, never null
+     * @return the key, may be null
+     */
+    Object leftKeyOf(DTO left);
+
+    /**
+     * Returns the key of the right object. The key must implement {@link Object#hashCode()} and
+     * {@link Object#equals(Object)}. The key may be null, null keys match each other.
+     *
+     * @param right the right object, never null
+     * @return the key, may be null
+     */
+    Object rightKeyOf(Entity right);
+
+    /**
+     * Returns true if the keys of both objects are equal. A null object only matches another null object.
+     *
+     * @param left the left object, may be null
+     * @param right the right object, may be null
+     * @return true if the left object matches the right object, false otherwise
+     */
+    @Override
+    default boolean matches(DTO left, Entity right)
+    {
+        if (left == null || right == null)
+        {
+            return left == null && right == null;
+        }
+
+        return Objects.equals(leftKeyOf(left), rightKeyOf(right));
+    }
+
+}
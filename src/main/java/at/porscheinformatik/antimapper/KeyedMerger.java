@@ -0,0 +1,47 @@
+package at.porscheinformatik.antimapper;
+
+import java.util.Objects;
+
+/**
+ * A {@link Merger} that identifies DTOs and entities by a unique key. Mixed collection merges use a hash index of these
+ * keys to find the matching entity, instead of calling {@link #isUniqueKeyMatching(Object, Object, Object...)} for
+ * each DTO/entity combination.
+ *
+ * @author ham
+ * @param <DTO> the dto type
+ * @param <Entity> the entity type
+ */
+public interface KeyedMerger<DTO, Entity> extends Merger<DTO, Entity>
+{
+
+    /**
+     * Returns the unique key of the DTO, most often the id. The key must implement {@link Object#hashCode()} and
+     * {@link Object#equals(Object)}. The key may be null, null keys will match each other, but no DTO and no entity
+     * will be matched twice.
+     *
+     * @param dto the DTO, never null
+     * @param hints optional hints
+     * @return the key, may be null
+     */
+    Object getDTOUniqueKey(DTO dto, Object... hints);
+
+    /**
+     * Returns the unique key of the entity, most often the id. The key must be comparable with the key returned by
+     * {@link #getDTOUniqueKey(Object, Object...)}.
+     *
+     * @param entity the entity, never null
+     * @param hints optional hints
+     * @return the key, may be null
+     */
+    Object getEntityUniqueKey(Entity entity, Object... hints);
+
+    /**
+     * Compares the keys of the DTO and the entity.
+     */
+    @Override
+    default boolean isUniqueKeyMatching(DTO dto, Entity entity, Object... hints)
+    {
+        return Objects.equals(getDTOUniqueKey(dto, hints), getEntityUniqueKey(entity, hints));
+    }
+
+}
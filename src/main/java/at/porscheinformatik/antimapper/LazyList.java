@@ -0,0 +1,61 @@
+package at.porscheinformatik.antimapper;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Function;
+
+/**
+ * An unmodifiable list view, that transforms the elements of the source list on first access and caches the results.
+ * The source list must support random access and must not be modified while the view is in use. The view is not
+ * thread-safe.
+ *
+ * @param <DTO> the type of the elements
+ * @param <Container> the type of the source elements
+ * @author ham
+ */
+final class LazyList<DTO, Container> extends AbstractList<DTO> implements RandomAccess
+{
+
+    /**
+     * Marks elements, that transformed to null.
+     */
+    private static final Object NULL = new Object();
+
+    private final List<? extends Container> containers;
+    private final Function<? super Container, ? extends DTO> transformation;
+    private final Object[] dtos;
+
+    LazyList(List<? extends Container> containers, Function<? super Container, ? extends DTO> transformation)
+    {
+        super();
+
+        this.containers = containers;
+        this.transformation = transformation;
+
+        dtos = new Object[containers.size()];
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public DTO get(int index)
+    {
+        Object dto = dtos[index];
+
+        if (dto == null)
+        {
+            dto = transformation.apply(containers.get(index));
+
+            dtos[index] = dto != null ? dto : NULL;
+        }
+
+        return dto != NULL ? (DTO) dto : null;
+    }
+
+    @Override
+    public int size()
+    {
+        return dtos.length;
+    }
+
+}
@@ -0,0 +1,139 @@
+package at.porscheinformatik.antimapper;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * An unmodifiable map view, that transforms the values of the source map on first access and caches the results. The
+ * keys are known in advance, thus {@link #containsKey(Object)} and {@link #size()} do not transform anything. The view
+ * is not thread-safe.
+ *
+ * @param <Key> the type of the keys
+ * @param <DTO> the type of the values
+ * @param <Container> the type of the source values
+ * @author ham
+ */
+final class LazyMap<Key, DTO, Container> extends AbstractMap<Key, DTO>
+{
+
+    /**
+     * Marks values, that transformed to null.
+     */
+    private static final Object NULL = new Object();
+
+    private final Map<Key, ? extends Container> containers;
+    private final Function<? super Container, ? extends DTO> transformation;
+    private final Map<Key, Object> dtos;
+
+    private Set<Entry<Key, DTO>> entrySet;
+
+    LazyMap(Map<Key, ? extends Container> containers, Function<? super Container, ? extends DTO> transformation)
+    {
+        super();
+
+        this.containers = containers;
+        this.transformation = transformation;
+
+        dtos = new HashMap<>();
+    }
+
+    @Override
+    public DTO get(Object key)
+    {
+        if (!containers.containsKey(key))
+        {
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        Key containerKey = (Key) key;
+
+        return dtoOf(containerKey, containers.get(key));
+    }
+
+    @Override
+    public boolean containsKey(Object key)
+    {
+        return containers.containsKey(key);
+    }
+
+    @Override
+    public Set<Key> keySet()
+    {
+        return Collections.unmodifiableSet(containers.keySet());
+    }
+
+    @Override
+    public int size()
+    {
+        return containers.size();
+    }
+
+    @Override
+    public Set<Entry<Key, DTO>> entrySet()
+    {
+        Set<Entry<Key, DTO>> entrySet = this.entrySet;
+
+        if (entrySet == null)
+        {
+            entrySet = new AbstractSet<Entry<Key, DTO>>()
+            {
+                @Override
+                public Iterator<Entry<Key, DTO>> iterator()
+                {
+                    Iterator<? extends Entry<Key, ? extends Container>> iterator = containers.entrySet().iterator();
+
+                    return new Iterator<Entry<Key, DTO>>()
+                    {
+                        @Override
+                        public boolean hasNext()
+                        {
+                            return iterator.hasNext();
+                        }
+
+                        @Override
+                        public Entry<Key, DTO> next()
+                        {
+                            Entry<Key, ? extends Container> entry = iterator.next();
+                            Key key = entry.getKey();
+
+                            return new SimpleImmutableEntry<>(key, dtoOf(key, entry.getValue()));
+                        }
+                    };
+                }
+
+                @Override
+                public int size()
+                {
+                    return containers.size();
+                }
+            };
+
+            this.entrySet = entrySet;
+        }
+
+        return entrySet;
+    }
+
+    @SuppressWarnings("unchecked")
+    private DTO dtoOf(Key key, Container container)
+    {
+        Object dto = dtos.get(key);
+
+        if (dto == null)
+        {
+            dto = transformation.apply(container);
+
+            dtos.put(key, dto != null ? dto : NULL);
+        }
+
+        return dto != NULL ? (DTO) dto : null;
+    }
+
+}
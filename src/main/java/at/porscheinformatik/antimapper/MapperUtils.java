@@ -1,26 +1,32 @@
 package at.porscheinformatik.antimapper;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.NavigableMap;
 import java.util.NavigableSet;
 import java.util.Objects;
+import java.util.RandomAccess;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -32,6 +38,13 @@ import java.util.stream.StreamSupport;
 public final class MapperUtils
 {
 
+    /**
+     * The maximum number of cells, the ordered mappings may allocate for computing the differences between the lists,
+     * about 64 MB. A cell is an int. If the lists are too different, the ordered mappings switch to the linear space
+     * algorithm, which is slower. Use the {@link Hint#LINEAR_SPACE} to switch for a single mapping.
+     */
+    public static final long ORDERED_CELL_BUDGET = 16 * 1024 * 1024;
+
     private MapperUtils()
     {
         super();
@@ -109,7 +122,8 @@ public final class MapperUtils
      * Maps the source iterable into the target collection. Ignores the order. Searches for existing objects by using
      * the specified match function, which may only match some important keys (maps the object even if the match
      * function returns true). Maps the source entry to the target entry by using the specified map function. The map
-     * function must be able to handle null as target value (create a new instance).
+     * function must be able to handle null as target value (create a new instance). Uses a hash index for searching, if
+     * the match function is a {@link KeyedMatchFunction}.
      *
      * @param <SourceValue> the type of the values in the source iterable
      * @param <TargetCollection> the type of the target collection
@@ -137,7 +151,8 @@ public final class MapperUtils
      * Maps the source iterable into the target collection. Ignores the order. Searches for existing objects by using
      * the specified match function, which may only match some important keys (maps the object even if the match
      * function returns true). Maps the source entry to the target entry by using the specified map function. The map
-     * function must be able to handle null as target value (create a new instance).
+     * function must be able to handle null as target value (create a new instance). Uses a hash index for searching, if
+     * the match function is a {@link KeyedMatchFunction}.
      *
      * @param <SourceValue> the type of the values in the source iterable
      * @param <TargetCollection> the type of the target collection
@@ -166,7 +181,10 @@ public final class MapperUtils
      * Maps the source stream into the target collection. Ignores the order. Searches for existing objects by using the
      * specified match function, which may only match some important keys (maps the object even if the match function
      * returns true). Maps the source entry to the target entry by using the specified map function. The map function
-     * must be able to handle null as target value (create a new instance).
+     * must be able to handle null as target value (create a new instance). Uses a hash index for searching, if the
+     * match function is a {@link KeyedMatchFunction}. Sorts the source values and walks them in lockstep with the
+     * target values, if the match function is a {@link SortedMatchFunction} and the target collection is a
+     * {@link SortedSet}.
      *
      * @param <SourceValue> the type of the values in the source iterable
      * @param <TargetCollection> the type of the target collection
@@ -193,7 +211,10 @@ public final class MapperUtils
      * Maps the source stream into the target collection. Ignores the order. Searches for existing objects by using the
      * specified match function, which may only match some important keys (maps the object even if the match function
      * returns true). Maps the source entry to the target entry by using the specified map function. The map function
-     * must be able to handle null as target value (create a new instance).
+     * must be able to handle null as target value (create a new instance). Uses a hash index for searching, if the
+     * match function is a {@link KeyedMatchFunction}. Sorts the source values and walks them in lockstep with the
+     * target values, if the match function is a {@link SortedMatchFunction} and the target collection is a
+     * {@link SortedSet}.
      *
      * @param <SourceValue> the type of the values in the source iterable
      * @param <TargetCollection> the type of the target collection
@@ -213,6 +234,80 @@ public final class MapperUtils
         MatchFunction<SourceValue, TargetValue> matchFunction,
         BiFunction<SourceValue, TargetValue, TargetValue> mapFunction, boolean keepMissing,
         Predicate<TargetValue> filter, Consumer<TargetCollection> afterMapConsumer)
+    {
+        return mapMixed(sourceStream, targetCollection, matchFunction, mapFunction, keepMissing, (ForkJoinPool) null,
+            filter, afterMapConsumer);
+    }
+
+    /**
+     * Maps the source stream into the target collection. Ignores the order. Searches for existing objects by using the
+     * specified match function, which may only match some important keys (maps the object even if the match function
+     * returns true). Maps the source entry to the target entry by using the specified map function. The map function
+     * must be able to handle null as target value (create a new instance). Uses a hash index for searching, if the
+     * match function is a {@link KeyedMatchFunction}. Sorts the source values and walks them in lockstep with the
+     * target values, if the match function is a {@link SortedMatchFunction} and the target collection is a
+     * {@link SortedSet}. If parallel is set, the source values are matched in parallel (the keys of a
+     * {@link KeyedMatchFunction} are computed in parallel), the map function is still called by the calling thread, in
+     * the order of the source. The result is the same as the sequential one. The source values are matched in the
+     * {@link ForkJoinPool} of the calling thread, if any, in the common pool otherwise.
+     *
+     * @param <SourceValue> the type of the values in the source iterable
+     * @param <TargetCollection> the type of the target collection
+     * @param <TargetValue> the type of the values in the target collection
+     * @param sourceStream the source stream, may be null
+     * @param targetCollection the target collection, may not be null
+     * @param matchFunction the function to compare the source and the target object
+     * @param mapFunction the function to map the source to a target object (the source and the target object may be
+     *            null)
+     * @param keepMissing true to keep missing items
+     * @param parallel true to match the source values in parallel, the match function must be thread-safe
+     * @param filter optional filter for excluding results
+     * @param afterMapConsumer optional consumer, executed after a successful mapping
+     * @return the target collection itself
+     */
+    public static <SourceValue, TargetCollection extends Collection<TargetValue>, TargetValue> TargetCollection mapMixed(
+        Stream<? extends SourceValue> sourceStream, TargetCollection targetCollection,
+        MatchFunction<SourceValue, TargetValue> matchFunction,
+        BiFunction<SourceValue, TargetValue, TargetValue> mapFunction, boolean keepMissing, boolean parallel,
+        Predicate<TargetValue> filter, Consumer<TargetCollection> afterMapConsumer)
+    {
+        return mapMixed(sourceStream, targetCollection, matchFunction, mapFunction, keepMissing,
+            parallel ? currentPool() : null, filter, afterMapConsumer);
+    }
+
+    /**
+     * Maps the source stream into the target collection. Ignores the order. Searches for existing objects by using the
+     * specified match function, which may only match some important keys (maps the object even if the match function
+     * returns true). Maps the source entry to the target entry by using the specified map function. The map function
+     * must be able to handle null as target value (create a new instance). Uses a hash index for searching, if the
+     * match function is a {@link KeyedMatchFunction}. Sorts the source values and walks them in lockstep with the
+     * target values, if the match function is a {@link SortedMatchFunction} and the target collection is a
+     * {@link SortedSet}. If a pool is set, the source values are matched in parallel in this pool (the keys of a
+     * {@link KeyedMatchFunction} are computed in parallel). Only the matching runs in the pool, the map function is
+     * called by the calling thread, in the order of the source, and the target collection is only modified by the
+     * calling thread. The result is the same as the sequential one.
+     *
+     * @param <SourceValue> the type of the values in the source iterable
+     * @param <TargetCollection> the type of the target collection
+     * @param <TargetValue> the type of the values in the target collection
+     * @param sourceStream the source stream, may be null
+     * @param targetCollection the target collection, may not be null
+     * @param matchFunction the function to compare the source and the target object
+     * @param mapFunction the function to map the source to a target object (the source and the target object may be
+     *            null)
+     * @param keepMissing true to keep missing items
+     * @param pool the pool for matching the source values in parallel, null to match them sequentially, the match
+     *            function must be thread-safe
+     * @param filter optional filter for excluding results
+     * @param afterMapConsumer optional consumer, executed after a successful mapping
+     * @return the target collection itself
+     */
+    @SuppressWarnings("unchecked")
+    public static <SourceValue, TargetCollection extends Collection<TargetValue>, TargetValue> TargetCollection mapMixed(
+        Stream<? extends SourceValue> sourceStream, TargetCollection targetCollection,
+        MatchFunction<SourceValue, TargetValue> matchFunction,
+        BiFunction<SourceValue, TargetValue, TargetValue> mapFunction, boolean keepMissing, ForkJoinPool pool,
+        Predicate<TargetValue> filter, Consumer<TargetCollection> afterMapConsumer)
     {
         Objects.requireNonNull(targetCollection);
 
@@ -223,10 +318,43 @@ public final class MapperUtils
             return targetCollection;
         }
 
-        Map<TargetValue, Void> mappedTargetValues = new IdentityHashMap<>();
+        MixedTargets<TargetValue> targets = new MixedTargets<>(targetCollection);
 
-        mapMixedUpdate(mappedTargetValues, sourceStream, targetCollection, matchFunction, mapFunction, filter);
-        mapMixedDelete(mappedTargetValues, targetCollection, mapFunction, keepMissing, filter);
+        if (matchFunction instanceof SortedMatchFunction<?, ?> && targetCollection instanceof SortedSet<?>)
+        {
+            mapMixedUpdateSorted(targets, sourceStream, targetCollection,
+                (SortedMatchFunction<SourceValue, TargetValue>) matchFunction, mapFunction, filter);
+        }
+        else if (matchFunction instanceof KeyedMatchFunction<?, ?>)
+        {
+            if (pool != null)
+            {
+                mapMixedUpdateByKeyParallel(targets, sourceStream, targetCollection,
+                    (KeyedMatchFunction<SourceValue, TargetValue>) matchFunction, mapFunction, filter, pool);
+            }
+            else
+            {
+                mapMixedUpdateByKey(targets, sourceStream, targetCollection,
+                    (KeyedMatchFunction<SourceValue, TargetValue>) matchFunction, mapFunction, filter);
+            }
+        }
+        else if (pool != null)
+        {
+            mapMixedUpdateParallel(targets, sourceStream, targetCollection, matchFunction, mapFunction, filter, pool);
+        }
+        else
+        {
+            mapMixedUpdate(targets, sourceStream, targetCollection, matchFunction, mapFunction, filter);
+        }
+
+        if (targetCollection instanceof List<?>)
+        {
+            mapMixedDeleteFromList(targets, (List<TargetValue>) targetCollection, mapFunction, keepMissing, filter);
+        }
+        else
+        {
+            mapMixedDelete(targets, targetCollection, mapFunction, keepMissing, filter);
+        }
 
         if (afterMapConsumer != null)
         {
@@ -236,91 +364,411 @@ public final class MapperUtils
         return targetCollection;
     }
 
-    @SuppressWarnings("unchecked")
     private static <TargetValue, TargetCollection extends Collection<TargetValue>, SourceValue> void mapMixedUpdate(
-        Map<TargetValue, Void> mappedTargetValues, Stream<? extends SourceValue> sourceStream,
+        MixedTargets<TargetValue> targets, Stream<? extends SourceValue> sourceStream,
         TargetCollection targetCollection, MatchFunction<SourceValue, TargetValue> matchFunction,
         BiFunction<SourceValue, TargetValue, TargetValue> mapFunction, Predicate<TargetValue> filter)
     {
         sourceStream.forEach(sourceValue -> {
-            TargetValue targetValue = null;
-            int index = 0;
+            int position = targets.nextUnmapped(0);
 
-            for (TargetValue currentTargetValue : targetCollection)
+            while (position < targets.size() && !matchFunction.matches(sourceValue, targets.get(position)))
             {
-                if (mappedTargetValues.containsKey(currentTargetValue))
-                {
-                    continue;
-                }
+                position = targets.nextUnmapped(position + 1);
+            }
+
+            mapMixedValue(targets, targetCollection, sourceValue, position < targets.size() ? position : -1,
+                mapFunction, filter);
+        });
+    }
+
+    /**
+     * Same as {@link #mapMixedUpdate(MixedTargets, Stream, Collection, MatchFunction, BiFunction, Predicate)}, but
+     * searches the first matching target value of each source value in parallel in the pool, ignoring the mapped ones.
+     * The source values claim their target values in the order of the source. If the target value has already been
+     * claimed by a previous source value, the search continues with the next unmapped target value, like the
+     * sequential search.
+     */
+    @SuppressWarnings("unchecked")
+    private static <TargetValue, TargetCollection extends Collection<TargetValue>, SourceValue> void mapMixedUpdateParallel(
+        MixedTargets<TargetValue> targets, Stream<? extends SourceValue> sourceStream,
+        TargetCollection targetCollection, MatchFunction<SourceValue, TargetValue> matchFunction,
+        BiFunction<SourceValue, TargetValue, TargetValue> mapFunction, Predicate<TargetValue> filter,
+        ForkJoinPool pool)
+    {
+        SourceValue[] sources = (SourceValue[]) sourceStream.toArray();
+        int[] candidates = new int[sources.length];
 
-                if (matchFunction.matches(sourceValue, currentTargetValue))
+        runInPool(pool, () -> IntStream.range(0, sources.length).parallel().forEach(index -> {
+            int position = 0;
+
+            while (position < targets.size() && !matchFunction.matches(sources[index], targets.get(position)))
+            {
+                position++;
+            }
+
+            candidates[index] = position;
+        }));
+
+        for (int index = 0; index < sources.length; index++)
+        {
+            SourceValue sourceValue = sources[index];
+            int position = candidates[index];
+
+            if (position < targets.size() && targets.isMapped(position))
+            {
+                // claimed by a previous source value
+                position = targets.nextUnmapped(position + 1);
+
+                while (position < targets.size() && !matchFunction.matches(sourceValue, targets.get(position)))
                 {
-                    targetValue = currentTargetValue;
-                    break;
+                    position = targets.nextUnmapped(position + 1);
                 }
+            }
+
+            mapMixedValue(targets, targetCollection, sourceValue, position < targets.size() ? position : -1,
+                mapFunction, filter);
+        }
+    }
+
+    /**
+     * Same as {@link #mapMixedUpdateByKey(MixedTargets, Stream, Collection, KeyedMatchFunction, BiFunction, Predicate)},
+     * but computes the keys of the source and the target values in parallel in the pool. The index is built and polled
+     * by the calling thread.
+     */
+    @SuppressWarnings("unchecked")
+    private static <TargetValue, TargetCollection extends Collection<TargetValue>, SourceValue> void mapMixedUpdateByKeyParallel(
+        MixedTargets<TargetValue> targets, Stream<? extends SourceValue> sourceStream,
+        TargetCollection targetCollection, KeyedMatchFunction<SourceValue, TargetValue> matchFunction,
+        BiFunction<SourceValue, TargetValue, TargetValue> mapFunction, Predicate<TargetValue> filter,
+        ForkJoinPool pool)
+    {
+        SourceValue[] sources = (SourceValue[]) sourceStream.toArray();
+        Object[] sourceKeys = new Object[sources.length];
+        Object[] targetKeys = new Object[targets.size()];
+
+        runInPool(pool, () -> {
+            IntStream.range(0, sources.length).parallel().forEach(index -> {
+                sourceKeys[index] =
+                    sources[index] != null ? matchFunction.leftKeyOf(sources[index]) : KeyIndex.keyOfNull();
+            });
+
+            IntStream.range(0, targetKeys.length).parallel().forEach(position -> {
+                TargetValue targetValue = targets.get(position);
+
+                targetKeys[position] =
+                    targetValue != null ? matchFunction.rightKeyOf(targetValue) : KeyIndex.keyOfNull();
+            });
+        });
+
+        KeyIndex<Integer> index = new KeyIndex<>(position -> targetKeys[position], targets.size());
 
-                index += 1;
+        for (int position = 0; position < targetKeys.length; position++)
+        {
+            index.add(position, position);
+        }
+
+        for (int i = 0; i < sources.length; i++)
+        {
+            // the match stays in the index, if the filter rejects the result
+            KeyIndex.Entry<Integer> match = index.peek(sourceKeys[i], entry -> targets.isMapped(entry.position));
+
+            mapMixedValue(targets, targetCollection, sources[i], match != null ? match.position : -1, mapFunction,
+                filter);
+        }
+    }
+
+    /**
+     * Returns the {@link ForkJoinPool} of the calling thread, the common pool if the thread is not part of a pool.
+     */
+    static ForkJoinPool currentPool()
+    {
+        ForkJoinPool pool = ForkJoinTask.getPool();
+
+        return pool != null ? pool : ForkJoinPool.commonPool();
+    }
+
+    /**
+     * Runs the task in the pool and waits for it. Runs it directly, if the calling thread is already part of the pool.
+     */
+    private static void runInPool(ForkJoinPool pool, Runnable task)
+    {
+        if (ForkJoinTask.getPool() == pool)
+        {
+            task.run();
+
+            return;
+        }
+
+        pool.submit(task).join();
+    }
+
+    /**
+     * Same as {@link #mapMixedUpdate(MixedTargets, Stream, Collection, MatchFunction, BiFunction, Predicate)}, but
+     * uses a hash index of the keys of the target values instead of searching the whole target collection for each
+     * source value.
+     */
+    private static <TargetValue, TargetCollection extends Collection<TargetValue>, SourceValue> void mapMixedUpdateByKey(
+        MixedTargets<TargetValue> targets, Stream<? extends SourceValue> sourceStream,
+        TargetCollection targetCollection, KeyedMatchFunction<SourceValue, TargetValue> matchFunction,
+        BiFunction<SourceValue, TargetValue, TargetValue> mapFunction, Predicate<TargetValue> filter)
+    {
+        KeyIndex<TargetValue> index = new KeyIndex<>(matchFunction::rightKeyOf, targets.size());
+
+        for (int position = 0; position < targets.size(); position++)
+        {
+            index.add(position, targets.get(position));
+        }
+
+        sourceStream.forEach(sourceValue -> {
+            // the match stays in the index, if the filter rejects the result, it is skipped after being mapped
+            KeyIndex.Entry<TargetValue> match = index
+                .peek(sourceValue != null ? matchFunction.leftKeyOf(sourceValue) : KeyIndex.keyOfNull(),
+                    entry -> targets.isMapped(entry.position));
+
+            mapMixedValue(targets, targetCollection, sourceValue, match != null ? match.position : -1, mapFunction,
+                filter);
+        });
+    }
+
+    /**
+     * Same as {@link #mapMixedUpdateByKey(MixedTargets, Stream, Collection, KeyedMatchFunction, BiFunction, Predicate)},
+     * but sorts the source values by their keys and walks them in lockstep with the target values of the sorted set.
+     * Falls back to the hash index, if there are null values or keys, or if the target values are not sorted by their
+     * keys.
+     */
+    @SuppressWarnings("unchecked")
+    private static <TargetValue, TargetCollection extends Collection<TargetValue>, SourceValue> void mapMixedUpdateSorted(
+        MixedTargets<TargetValue> targets, Stream<? extends SourceValue> sourceStream,
+        TargetCollection targetCollection, SortedMatchFunction<SourceValue, TargetValue> matchFunction,
+        BiFunction<SourceValue, TargetValue, TargetValue> mapFunction, Predicate<TargetValue> filter)
+    {
+        SourceValue[] sources = (SourceValue[]) sourceStream.toArray();
+        Object[] sourceKeys = new Object[sources.length];
+        Object[] targetKeys = new Object[targets.size()];
+        boolean sorted = true;
+
+        for (int i = 0; sorted && i < sources.length; i++)
+        {
+            sourceKeys[i] = sources[i] != null ? matchFunction.leftKeyOf(sources[i]) : null;
+            // null values have no keys, they are matched by the hash index
+            sorted = sourceKeys[i] != null && sourceKeys[i] != KeyIndex.keyOfNull();
+        }
+
+        for (int i = 0; sorted && i < targetKeys.length; i++)
+        {
+            TargetValue targetValue = targets.get(i);
+
+            targetKeys[i] = targetValue != null ? matchFunction.rightKeyOf(targetValue) : null;
+            sorted = targetKeys[i] != null
+                && (i == 0 || matchFunction.compareKeys(targetKeys[i - 1], targetKeys[i]) <= 0);
+        }
+
+        if (!sorted)
+        {
+            mapMixedUpdateByKey(targets, Arrays.stream(sources), targetCollection, matchFunction, mapFunction, filter);
+
+            return;
+        }
+
+        Integer[] order = new Integer[sources.length];
+
+        for (int i = 0; i < order.length; i++)
+        {
+            order[i] = i;
+        }
+
+        // stable, source values with the same key keep their order
+        Arrays.sort(order, (left, right) -> matchFunction.compareKeys(sourceKeys[left], sourceKeys[right]));
+
+        int position = 0;
+
+        for (Integer index : order)
+        {
+            int compare = -1;
+
+            while (position < targetKeys.length
+                && (compare = matchFunction.compareKeys(sourceKeys[index], targetKeys[position])) > 0)
+            {
+                // missing, will be handled later
+                position++;
+            }
+
+            mapMixedValue(targets, targetCollection, sources[index], compare == 0 ? position : -1, mapFunction,
+                filter);
+
+            if (compare == 0 && targets.isMapped(position))
+            {
+                // the target value stays available, if the filter has rejected the result
+                position++;
             }
+        }
+    }
+
+    /**
+     * Maps the source value to the target value at the specified position of the snapshot and updates the target
+     * collection.
+     */
+    @SuppressWarnings("unchecked")
+    private static <TargetValue, TargetCollection extends Collection<TargetValue>, SourceValue> void mapMixedValue(
+        MixedTargets<TargetValue> targets, TargetCollection targetCollection, SourceValue sourceValue, int position,
+        BiFunction<SourceValue, TargetValue, TargetValue> mapFunction, Predicate<TargetValue> filter)
+    {
+        TargetValue targetValue = position >= 0 ? targets.get(position) : null;
+        TargetValue newTargetValue = mapFunction.apply(sourceValue, targetValue);
+
+        if (filter != null && !filter.test(newTargetValue))
+        {
+            return;
+        }
+
+        if (targetValue == null)
+        {
+            targetCollection.add(newTargetValue);
+            targets.added(newTargetValue);
+        }
+        else if (targetValue == newTargetValue)
+        {
+            targets.mapped(position);
+        }
+        else if (targetCollection instanceof List<?>)
+        {
+            ((List<TargetValue>) targetCollection).set(position, newTargetValue);
+            targets.mapped(position);
+            targets.added(newTargetValue);
+        }
+        else
+        {
+            // the old value stays unmapped, it will be deleted later
+            targetCollection.add(newTargetValue);
+            targets.added(newTargetValue);
+        }
+    }
 
-            TargetValue newTargetValue = mapFunction.apply(sourceValue, targetValue);
+    /**
+     * Same as {@link #mapMixedDelete(MixedTargets, Collection, BiFunction, boolean, Predicate)}, but uses the positions
+     * in the list. Moves the remaining values of a {@link RandomAccess} list to the front in a single pass, instead of
+     * removing them one by one. The values after the snapshot have been added by the mapping.
+     */
+    private static <TargetValue> void mapMixedDeleteFromList(MixedTargets<TargetValue> targets,
+        List<TargetValue> targetList, BiFunction<?, TargetValue, TargetValue> mapFunction, boolean keepMissing,
+        Predicate<TargetValue> filter)
+    {
+        List<TargetValue> newTargetValues = new ArrayList<>();
 
-            if (filter != null && !filter.test(newTargetValue))
+        if (targetList instanceof RandomAccess)
+        {
+            int size = targetList.size();
+            int writeIndex = 0;
+
+            for (int readIndex = 0; readIndex < size; readIndex++)
             {
-                return;
+                TargetValue targetValue = targetList.get(readIndex);
+
+                if (readIndex < targets.size() && !targets.isMapped(readIndex))
+                {
+                    TargetValue newTargetValue = keepMissing ? targetValue : mapFunction.apply(null, targetValue);
+
+                    if (newTargetValue == null || (filter != null && !filter.test(newTargetValue)))
+                    {
+                        continue;
+                    }
+
+                    if (targetValue != newTargetValue)
+                    {
+                        newTargetValues.add(newTargetValue);
+
+                        continue;
+                    }
+                }
+
+                if (writeIndex != readIndex)
+                {
+                    targetList.set(writeIndex, targetValue);
+                }
+
+                writeIndex++;
             }
 
-            if (targetValue == null)
+            if (writeIndex < size)
             {
-                targetCollection.add(newTargetValue);
+                targetList.subList(writeIndex, size).clear();
             }
-            else if (targetValue != newTargetValue)
+        }
+        else
+        {
+            Iterator<TargetValue> targetIterator = targetList.iterator();
+
+            for (int position = 0; position < targets.size(); position++)
             {
-                if (targetCollection instanceof List<?>)
+                TargetValue targetValue = targetIterator.next();
+
+                if (targets.isMapped(position))
                 {
-                    ((List<TargetValue>) targetCollection).set(index, newTargetValue);
+                    continue;
                 }
-                else
+
+                TargetValue newTargetValue = keepMissing ? targetValue : mapFunction.apply(null, targetValue);
+
+                if (newTargetValue == null || (filter != null && !filter.test(newTargetValue)))
                 {
-                    targetCollection.add(newTargetValue);
+                    targetIterator.remove();
+
+                    continue;
+                }
+
+                if (targetValue != newTargetValue)
+                {
+                    targetIterator.remove();
+                    newTargetValues.add(newTargetValue);
                 }
             }
+        }
 
-            mappedTargetValues.put(newTargetValue, null);
-        });
+        if (newTargetValues.size() > 0)
+        {
+            targetList.addAll(newTargetValues);
+        }
     }
 
+    /**
+     * Maps the values of the snapshot, that have not been mapped, and removes the missing ones by identity with a
+     * single pass over the target collection.
+     */
     private static <TargetValue, TargetCollection extends Collection<TargetValue>> void mapMixedDelete(
-        Map<TargetValue, Void> mappedTargetValues, TargetCollection targetCollection,
+        MixedTargets<TargetValue> targets, TargetCollection targetCollection,
         BiFunction<?, TargetValue, TargetValue> mapFunction, boolean keepMissing, Predicate<TargetValue> filter)
     {
         List<TargetValue> newTargetValues = new ArrayList<>();
-        Iterator<TargetValue> targetIterator = targetCollection.iterator();
+        Set<TargetValue> removedTargetValues = null;
 
-        while (targetIterator.hasNext())
+        for (int position = targets.nextUnmapped(0); position < targets.size(); position =
+            targets.nextUnmapped(position + 1))
         {
-            TargetValue targetValue = targetIterator.next();
-
-            if (mappedTargetValues.containsKey(targetValue))
-            {
-                continue;
-            }
-
+            TargetValue targetValue = targets.get(position);
             TargetValue newTargetValue = keepMissing ? targetValue : mapFunction.apply(null, targetValue);
 
-            if (newTargetValue == null || (filter != null && !filter.test(newTargetValue)))
+            if (newTargetValue != null && (filter == null || filter.test(newTargetValue)))
             {
-                targetIterator.remove();
+                if (targetValue == newTargetValue)
+                {
+                    continue;
+                }
 
-                continue;
+                newTargetValues.add(newTargetValue);
             }
 
-            if (targetValue == newTargetValue)
+            if (removedTargetValues == null)
             {
-                continue;
+                removedTargetValues = Collections.newSetFromMap(new IdentityHashMap<>());
             }
 
-            targetIterator.remove();
-            newTargetValues.add(newTargetValue);
+            removedTargetValues.add(targetValue);
+        }
+
+        if (removedTargetValues != null)
+        {
+            targetCollection.removeIf(removedTargetValues::contains);
         }
 
         if (newTargetValues.size() > 0)
@@ -383,9 +831,42 @@ public final class MapperUtils
         MatchFunction<SourceValue, TargetValue> matchFunction,
         BiFunction<SourceValue, TargetValue, TargetValue> mapFunction, boolean keepMissing,
         Predicate<TargetValue> filter, Consumer<List<TargetValue>> afterMapConsumer)
+    {
+        return mapOrdered(sourceStream, targetCollection, matchFunction, mapFunction, keepMissing, false, filter,
+            afterMapConsumer);
+    }
+
+    /**
+     * Maps the source stream into the target collection. Keeps the order. Searches for existing objects by using the
+     * specified match function, which may only match some important keys (maps the object even if the match function
+     * returns true). Maps the source entry to the target entry by using the specified map function. The map function
+     * must be able to handle null as target value (create a new instance). Tries to rescue removed target values by
+     * reusing them (if the unique key matches). Computes the differences in linear space, if the lists are too large
+     * for the cell budget.
+     *
+     * @param <SourceValue> the type of the values in the source iterable
+     * @param <TargetCollection> the type of the target collection
+     * @param <TargetValue> the type of the values in the target collection
+     * @param sourceStream the source stream, may be null
+     * @param targetCollection the target collection, may not be null
+     * @param matchFunction the function to compare the source and the target object
+     * @param mapFunction the function to map the source to a target object (the source and the target object may be
+     *            null)
+     * @param keepMissing true to keep missing items
+     * @param linearSpace true to compute the differences in linear space, even if the lists would fit into the
+     *            {@link #ORDERED_CELL_BUDGET cell budget}
+     * @param filter optional filter for excluding results
+     * @param afterMapConsumer optional consumer, executed after a successful mapping
+     * @return the target collection itself
+     */
+    public static <SourceValue, TargetCollection extends Collection<TargetValue>, TargetValue> TargetCollection mapOrdered(
+        Stream<? extends SourceValue> sourceStream, TargetCollection targetCollection,
+        MatchFunction<SourceValue, TargetValue> matchFunction,
+        BiFunction<SourceValue, TargetValue, TargetValue> mapFunction, boolean keepMissing,
+        boolean linearSpace, Predicate<TargetValue> filter, Consumer<List<TargetValue>> afterMapConsumer)
     {
         return mapOrdered(sourceStream != null ? sourceStream.collect(Collectors.toList()) : null, targetCollection,
-            matchFunction, mapFunction, keepMissing, filter, afterMapConsumer);
+            matchFunction, mapFunction, keepMissing, linearSpace, filter, afterMapConsumer);
     }
 
     /**
@@ -437,12 +918,45 @@ public final class MapperUtils
      * @param afterMapConsumer optional consumer, executed after a successful mapping
      * @return the target collection itself
      */
-    @SuppressWarnings("unchecked")
     public static <SourceValue, TargetCollection extends Collection<TargetValue>, TargetValue> TargetCollection mapOrdered(
         Iterable<? extends SourceValue> sourceIterable, TargetCollection targetCollection,
         MatchFunction<SourceValue, TargetValue> matchFunction,
         BiFunction<SourceValue, TargetValue, TargetValue> mapFunction, boolean keepMissing,
         Predicate<TargetValue> filter, Consumer<List<TargetValue>> afterMapConsumer)
+    {
+        return mapOrdered(sourceIterable, targetCollection, matchFunction, mapFunction, keepMissing, false, filter,
+            afterMapConsumer);
+    }
+
+    /**
+     * Maps the source iterable into the target collection. Keeps the order. Searches for existing objects by using the
+     * specified match function, which may only match some important keys (maps the object even if the match function
+     * returns true). Maps the source entry to the target entry by using the specified map function. The map function
+     * must be able to handle null as target value (create a new instance). Tries to rescue removed target values by
+     * reusing them (if the unique key matches). Computes the differences in linear space, if the lists are too large
+     * for the cell budget.
+     *
+     * @param <SourceValue> the type of the values in the source iterable
+     * @param <TargetCollection> the type of the target collection
+     * @param <TargetValue> the type of the values in the target collection
+     * @param sourceIterable the source iterable, may be null
+     * @param targetCollection the target collection, may not be null
+     * @param matchFunction the function to compare the source and the target object
+     * @param mapFunction the function to map the source to a target object (the source and the target object may be
+     *            null)
+     * @param keepMissing true to keep missing items
+     * @param linearSpace true to compute the differences in linear space, even if the lists would fit into the
+     *            {@link #ORDERED_CELL_BUDGET cell budget}
+     * @param filter optional filter for excluding results
+     * @param afterMapConsumer optional consumer, executed after a successful mapping
+     * @return the target collection itself
+     */
+    @SuppressWarnings("unchecked")
+    public static <SourceValue, TargetCollection extends Collection<TargetValue>, TargetValue> TargetCollection mapOrdered(
+        Iterable<? extends SourceValue> sourceIterable, TargetCollection targetCollection,
+        MatchFunction<SourceValue, TargetValue> matchFunction,
+        BiFunction<SourceValue, TargetValue, TargetValue> mapFunction, boolean keepMissing,
+        boolean linearSpace, Predicate<TargetValue> filter, Consumer<List<TargetValue>> afterMapConsumer)
     {
         Objects.requireNonNull(targetCollection);
 
@@ -474,11 +988,12 @@ public final class MapperUtils
             targetList = new ArrayList<>(targetCollection);
         }
 
-        mapOrdered(sourceList, targetList, matchFunction, mapFunction, keepMissing, filter, afterMapConsumer);
+        mapOrdered(sourceList, targetList, matchFunction, mapFunction, keepMissing, linearSpace, filter,
+            afterMapConsumer);
 
-        if (targetCollection != targetList)
+        if (targetCollection != targetList && (isSorted(targetCollection) || !isSame(targetList, targetCollection)))
         {
-            // the target is not a list - rebuild it
+            // the target is not a list - rebuild it, sorted ones always, the merge may have changed the sort keys
             if (targetCollection.size() > 0)
             {
                 targetCollection.clear();
@@ -543,19 +1058,52 @@ public final class MapperUtils
         BiFunction<SourceValue, TargetValue, TargetValue> mapFunction, boolean keepMissing,
         Predicate<TargetValue> filter, Consumer<List<TargetValue>> afterMapConsumer)
     {
-        int[][] table = buildLCSTable(sourceList, targetList, matchFunction);
+        return mapOrdered(sourceList, targetList, matchFunction, mapFunction, keepMissing, false, filter,
+            afterMapConsumer);
+    }
 
+    /**
+     * Maps the source list into the target list. Keeps the order. Searches for existing objects by using the specified
+     * match function, which may only match some important keys (maps the object even if the match function returns
+     * true). Maps the source entry to the target entry by using the specified map function. The map function must be
+     * able to handle null as target value (create a new instance). Tries to rescue removed target values by reusing
+     * them (if the unique key matches). Computes the differences in linear space, if the lists are too large for the
+     * cell budget.
+     *
+     * @param <SourceValue> the type of the values in the source list
+     * @param <TargetValue> the type of the values in the target list
+     * @param sourceList the source list, may be null
+     * @param targetList the target list, may not be null
+     * @param matchFunction the function to compare the source and the target object
+     * @param mapFunction the function to map the source to a target object (the source and the target object may be
+     *            null)
+     * @param keepMissing true to keep missing items
+     * @param linearSpace true to compute the differences in linear space, even if the lists would fit into the
+     *            {@link #ORDERED_CELL_BUDGET cell budget}
+     * @param filter optional filter for excluding results
+     * @param afterMapConsumer optional consumer, executed after a successful mapping
+     * @return the target list itself
+     */
+    public static <SourceValue, TargetValue> List<TargetValue> mapOrdered(List<? extends SourceValue> sourceList,
+        List<TargetValue> targetList, MatchFunction<SourceValue, TargetValue> matchFunction,
+        BiFunction<SourceValue, TargetValue, TargetValue> mapFunction, boolean keepMissing,
+        boolean linearSpace, Predicate<TargetValue> filter, Consumer<List<TargetValue>> afterMapConsumer)
+    {
+        SourceValue[] sources = OrderedDiff.toArray(sourceList);
+        TargetValue[] targets = OrderedDiff.toArray(targetList);
+        List<TargetValue> resultList = new ArrayList<>(Math.max(sources.length, targets.length));
+        OrderedRescue<SourceValue, TargetValue> rescue = new OrderedRescue<>(targets, matchFunction);
+        OrderedDiff<SourceValue, TargetValue> diff = null;
+        int diffSourceIndex = 0;
+        int diffTargetIndex = 0;
         int sourceIndex = 0;
         int targetIndex = 0;
-        int sourceSize = (sourceList != null) ? sourceList.size() : 0;
-        int writeIndex = 0;
-        Collection<TargetValue> removedTargetValues = new ArrayList<>();
+        int readIndex = 0;
 
-        while (sourceIndex < sourceSize && writeIndex < targetList.size())
+        while (sourceIndex < sources.length && readIndex < targets.length)
         {
-            @SuppressWarnings("null")
-            SourceValue sourceValue = sourceList.get(sourceIndex);
-            TargetValue targetValue = targetList.get(writeIndex);
+            SourceValue sourceValue = sources[sourceIndex];
+            TargetValue targetValue = targets[readIndex];
 
             if (matchFunction.matches(sourceValue, targetValue))
             {
@@ -564,55 +1112,48 @@ public final class MapperUtils
 
                 if (filter != null && !filter.test(mappedTargetValue))
                 {
-                    removedTargetValues.add(mappedTargetValue);
-
-                    targetList.remove(writeIndex);
-                    sourceIndex++;
-                    targetIndex++;
-
-                    continue;
+                    rescue.addRemoved(mappedTargetValue);
+                }
+                else
+                {
+                    resultList.add(mappedTargetValue);
                 }
-
-                targetList.set(writeIndex, mappedTargetValue);
 
                 sourceIndex++;
                 targetIndex++;
-                writeIndex++;
+                readIndex = rescue.next(readIndex);
 
                 continue;
             }
 
-            if (table[sourceIndex + 1][targetIndex] >= table[sourceIndex][targetIndex + 1])
+            if (diff == null)
+            {
+                // the matching values at the start are done, compute the differences of the remaining values
+                diff = OrderedDiff
+                    .create(sources, targets, matchFunction, sourceIndex, readIndex, linearSpace, ORDERED_CELL_BUDGET);
+                diffSourceIndex = sourceIndex;
+                diffTargetIndex = targetIndex;
+            }
+
+            if (diff.isInsertPreferred(sourceIndex - diffSourceIndex, targetIndex - diffTargetIndex))
             {
                 // added
-                TargetValue rescuedTargetValue = rescueTargetValue(sourceValue, removedTargetValues, matchFunction);
+                TargetValue rescuedTargetValue = rescue.rescueRemoved(sourceValue);
 
                 if (rescuedTargetValue == null)
                 {
                     // rescue a value that will be removed
-                    for (int i = writeIndex + 1; i < targetList.size(); i++)
-                    {
-                        if (matchFunction.matches(sourceValue, targetList.get(i)))
-                        {
-                            rescuedTargetValue = targetList.remove(i);
-                            break;
-                        }
-                    }
+                    rescuedTargetValue = rescue.rescueAhead(sourceValue, readIndex);
                 }
 
                 TargetValue mappedTargetValue = mapFunction.apply(sourceValue, rescuedTargetValue);
 
-                if (filter != null && !filter.test(mappedTargetValue))
+                if (filter == null || filter.test(mappedTargetValue))
                 {
-                    sourceIndex++;
-
-                    continue;
+                    resultList.add(mappedTargetValue);
                 }
 
-                targetList.add(writeIndex, mappedTargetValue);
-
                 sourceIndex++;
-                writeIndex++;
 
                 continue;
             }
@@ -620,63 +1161,51 @@ public final class MapperUtils
             // removed
             TargetValue mappedTargetValue = keepMissing ? targetValue : mapFunction.apply(null, targetValue);
 
-            removedTargetValues.add(mappedTargetValue);
-            targetList.remove(writeIndex);
+            rescue.addRemoved(mappedTargetValue);
             targetIndex++;
+            readIndex = rescue.next(readIndex);
         }
 
         // remove remaining
-        while (writeIndex < targetList.size())
+        while (readIndex < targets.length)
         {
-            TargetValue targetValue = targetList.remove(writeIndex);
+            TargetValue targetValue = targets[readIndex];
             TargetValue mappedTargetValue = keepMissing ? targetValue : mapFunction.apply(null, targetValue);
 
-            removedTargetValues.add(mappedTargetValue);
+            rescue.addRemoved(mappedTargetValue);
+            readIndex = rescue.next(readIndex);
         }
 
         // add remaining
-        while (sourceIndex < sourceSize)
+        while (sourceIndex < sources.length)
         {
-            @SuppressWarnings("null")
-            SourceValue sourceValue = sourceList.get(sourceIndex);
-            TargetValue rescuedTargetValue = rescueTargetValue(sourceValue, removedTargetValues, matchFunction);
+            SourceValue sourceValue = sources[sourceIndex];
+            TargetValue rescuedTargetValue = rescue.rescueRemoved(sourceValue);
             TargetValue mappedTargetValue = mapFunction.apply(sourceValue, rescuedTargetValue);
 
-            if (filter != null && !filter.test(mappedTargetValue))
+            if (filter == null || filter.test(mappedTargetValue))
             {
-                sourceIndex++;
-
-                continue;
+                resultList.add(mappedTargetValue);
             }
 
-            targetList.add(mappedTargetValue);
-
             sourceIndex++;
         }
 
         if (filter != null)
         {
-            Iterator<TargetValue> iterator = targetList.iterator();
-
-            while (iterator.hasNext())
-            {
-                TargetValue next = iterator.next();
-
-                if (!filter.test(next))
-                {
-                    iterator.remove();
-                }
-            }
+            resultList.removeIf(value -> !filter.test(value));
         }
 
-        for (TargetValue targetValue : removedTargetValues)
+        for (TargetValue targetValue : rescue.getRemovedTargetValues())
         {
             if (filter == null || filter.test(targetValue))
             {
-                targetList.add(targetValue);
+                resultList.add(targetValue);
             }
         }
 
+        replaceAll(targetList, resultList);
+
         if (afterMapConsumer != null)
         {
             afterMapConsumer.accept(targetList);
@@ -685,59 +1214,70 @@ public final class MapperUtils
         return targetList;
     }
 
-    private static <TargetValue, SourceValue> TargetValue rescueTargetValue(SourceValue sourceValue,
-        Collection<TargetValue> removedTargetValues, MatchFunction<SourceValue, TargetValue> matchFunction)
+    /**
+     * Returns true, if the collection is a {@link SortedSet} or the {@link CopyOnWriteTarget} view of one. The values
+     * of such a collection must be added again after a merge, because the merge may have changed their sort keys.
+     *
+     * @param collection the collection
+     * @return true if sorted
+     */
+    static boolean isSorted(Collection<?> collection)
     {
-        TargetValue rescuedTargetValue = null;
-        Iterator<TargetValue> iterator = removedTargetValues.iterator();
+        return collection instanceof SortedSet<?> || collection instanceof CopyOnWriteTarget.SortedView;
+    }
 
-        while (iterator.hasNext())
+    /**
+     * Returns true, if the collection contains the same values as the list, in the same order. Compares the values by
+     * identity.
+     *
+     * @param values the values
+     * @param collection the collection
+     * @return true if the same
+     */
+    static boolean isSame(List<?> values, Collection<?> collection)
+    {
+        if (values.size() != collection.size())
         {
-            TargetValue currentTargetValue = iterator.next();
+            return false;
+        }
+
+        Iterator<?> iterator = collection.iterator();
 
-            if (sourceValue == currentTargetValue
-                || (sourceValue != null
-                    && currentTargetValue != null
-                    && matchFunction.matches(sourceValue, currentTargetValue)))
+        for (Object value : values)
+        {
+            if (iterator.next() != value)
             {
-                rescuedTargetValue = currentTargetValue;
-                iterator.remove();
-                break;
+                return false;
             }
         }
 
-        return rescuedTargetValue;
+        return true;
     }
 
-    @SuppressWarnings("null")
-    private static <SourceValue, TargetValue> int[][] buildLCSTable(List<? extends SourceValue> sourceList,
-        List<TargetValue> targetList, MatchFunction<SourceValue, TargetValue> matchFunction)
+    /**
+     * Replaces the contents of the target list with the values of the result list. Writes the values with a list
+     * iterator, if the sizes are the same, which works with fixed-size lists, too. Otherwise, clears the list and adds
+     * all values at once.
+     */
+    private static <TargetValue> void replaceAll(List<TargetValue> targetList, List<TargetValue> resultList)
     {
-        int sourceSize = (sourceList != null) ? sourceList.size() : 0;
-        int targetSize = targetList.size();
-        int[][] table = new int[sourceSize + 1][targetSize + 1];
+        if (targetList.size() != resultList.size())
+        {
+            targetList.clear();
+            targetList.addAll(resultList);
+
+            return;
+        }
 
-        for (int sourceIndex = sourceSize; sourceIndex >= 0; sourceIndex--)
+        ListIterator<TargetValue> iterator = targetList.listIterator();
+
+        for (TargetValue value : resultList)
         {
-            for (int targetIndex = targetSize - 1; targetIndex >= 0; targetIndex--)
+            if (iterator.next() != value)
             {
-                if (sourceIndex >= sourceSize)
-                {
-                    table[sourceIndex][targetIndex] = 0;
-                }
-                else if (matchFunction.matches(sourceList.get(sourceIndex), targetList.get(targetIndex)))
-                {
-                    table[sourceIndex][targetIndex] = table[sourceIndex + 1][targetIndex + 1] + 1;
-                }
-                else
-                {
-                    table[sourceIndex][targetIndex] =
-                        Math.max(table[sourceIndex + 1][targetIndex], table[sourceIndex][targetIndex + 1]);
-                }
+                iterator.set(value);
             }
         }
-
-        return table;
     }
 
     /**
@@ -1193,6 +1733,17 @@ public final class MapperUtils
         return s.substring(0, s.length() - 3) + "...";
     }
 
+    /**
+     * Returns the initial capacity of a hash map or set, that holds the specified number of entries without rehashing.
+     *
+     * @param expectedSize the expected number of entries
+     * @return the capacity
+     */
+    static int hashCapacity(int expectedSize)
+    {
+        return expectedSize < (1 << 29) ? (int) (expectedSize / 0.75f) + 1 : Integer.MAX_VALUE;
+    }
+
     public static <Any> Stream<Any> streamOrNull(Iterable<Any> iterable)
     {
         return iterable != null ? StreamSupport.stream(iterable.spliterator(), false) : null;
@@ -0,0 +1,592 @@
+package at.porscheinformatik.antimapper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * An immutable edit script of a merge, created by {@link StreamMerger#planMixedCollection(Collection, Supplier)} or
+ * {@link StreamMerger#planOrderedCollection(Collection, Supplier)} without touching the entities. It lists the entities
+ * that will be updated, created, deleted or moved, and can be inspected, e.g. for previews, audits or authorization
+ * checks, before it is executed by {@link StreamMerger#apply(MergePlan)}.
+ * <p>
+ * The plan matches the DTOs and the entities like the merge does, assuming that the merger returns the passed entity
+ * for matching DTOs. If the merger decides otherwise when the plan is applied, the returned entities take the place of
+ * the planned ones. Deleted entities, that do not merge to null, are added at the end.
+ *
+ * @author ham
+ * @param <Entity> the type of the entities
+ * @param <EntityCollection> the type of the collection
+ */
+public final class MergePlan<Entity, EntityCollection extends Collection<Entity>>
+{
+
+    /**
+     * The type of an {@link Operation}.
+     */
+    public enum OperationType
+    {
+        /**
+         * The entity will be merged with the DTO and keeps its position.
+         */
+        UPDATE,
+
+        /**
+         * The entity changes its position in an ordered collection. It will be merged with the DTO, if there is one.
+         */
+        MOVE,
+
+        /**
+         * A new entity will be created for the DTO.
+         */
+        CREATE,
+
+        /**
+         * The entity will be merged with null, because there is no DTO for it, and removed from the collection.
+         */
+        DELETE
+    }
+
+    /**
+     * A single operation of a {@link MergePlan}.
+     *
+     * @param <Entity> the type of the entities
+     */
+    public static final class Operation<Entity>
+    {
+
+        private final OperationType type;
+        private final int dtoIndex;
+        private final Entity entity;
+        private final int entityIndex;
+        private final int targetIndex;
+
+        Operation(OperationType type, int dtoIndex, Entity entity, int entityIndex, int targetIndex)
+        {
+            super();
+
+            this.type = type;
+            this.dtoIndex = dtoIndex;
+            this.entity = entity;
+            this.entityIndex = entityIndex;
+            this.targetIndex = targetIndex;
+        }
+
+        /**
+         * Returns the type of the operation.
+         *
+         * @return the type
+         */
+        public OperationType getType()
+        {
+            return type;
+        }
+
+        /**
+         * Returns the index of the DTO in the merged DTOs.
+         *
+         * @return the index, -1 for deleted entities and for entities that move without DTO (
+         *         {@link Hint#KEEP_MISSING})
+         */
+        public int getDTOIndex()
+        {
+            return dtoIndex;
+        }
+
+        /**
+         * Returns the existing entity.
+         *
+         * @return the entity, null for created entities
+         */
+        public Entity getEntity()
+        {
+            return entity;
+        }
+
+        /**
+         * Returns the position of the entity in the collection before the merge.
+         *
+         * @return the position, -1 for created entities
+         */
+        public int getEntityIndex()
+        {
+            return entityIndex;
+        }
+
+        /**
+         * Returns the position of the entity in the collection after the merge. The positions of mixed collections
+         * follow the iteration order, created entities are added at the end.
+         *
+         * @return the position, -1 for deleted entities
+         */
+        public int getTargetIndex()
+        {
+            return targetIndex;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s(dto=%d, entity=%d, target=%d)", type, dtoIndex, entityIndex, targetIndex);
+        }
+
+    }
+
+    private final StreamMerger<?, Entity> merger;
+    private final EntityCollection entities;
+    private final Supplier<EntityCollection> entityCollectionFactory;
+    private final Object[] dtoContainers;
+    private final Object[] snapshot;
+    private final List<Operation<Entity>> operations;
+
+    /**
+     * The operations in the order of the collection after the merge. Entities, that are kept at their position
+     * without DTO, are contained as operations without type.
+     */
+    private final List<Operation<Entity>> arrangement;
+
+    private final List<Operation<Entity>> deletions;
+    private final boolean structural;
+
+    MergePlan(StreamMerger<?, Entity> merger, EntityCollection entities,
+        Supplier<EntityCollection> entityCollectionFactory, Object[] dtoContainers, Object[] snapshot,
+        List<Operation<Entity>> arrangement, List<Operation<Entity>> deletions)
+    {
+        super();
+
+        this.merger = merger;
+        this.entities = entities;
+        this.entityCollectionFactory = entityCollectionFactory;
+        this.dtoContainers = dtoContainers;
+        this.snapshot = snapshot;
+        this.arrangement = arrangement;
+        this.deletions = deletions;
+
+        List<Operation<Entity>> operations = new ArrayList<>(arrangement.size() + deletions.size());
+        boolean structural = !deletions.isEmpty();
+
+        for (Operation<Entity> operation : arrangement)
+        {
+            if (operation.type != null)
+            {
+                operations.add(operation);
+                structural |= operation.type != OperationType.UPDATE;
+            }
+        }
+
+        operations.addAll(deletions);
+
+        this.operations = Collections.unmodifiableList(operations);
+        this.structural = structural;
+    }
+
+    /**
+     * Returns the operations, first the ones of the entities in the collection after the merge in their order, then
+     * the deleted entities.
+     *
+     * @return the operations, unmodifiable
+     */
+    public List<Operation<Entity>> getOperations()
+    {
+        return operations;
+    }
+
+    /**
+     * Returns true if there is nothing to merge. Applying an empty plan does not touch the collection at all.
+     *
+     * @return true if empty
+     */
+    public boolean isEmpty()
+    {
+        return operations.isEmpty();
+    }
+
+    /**
+     * Returns true if the plan creates, deletes or moves entities. Applying a plan with updates only merges the
+     * entities in place, without matching and without rebuilding the collection.
+     *
+     * @return true if the structure of the collection changes
+     */
+    public boolean isStructural()
+    {
+        return structural;
+    }
+
+    /**
+     * Returns true if the merge results in null, because there are no DTOs and no entities.
+     *
+     * @return true if null
+     */
+    boolean isNullResult()
+    {
+        return dtoContainers == null;
+    }
+
+    StreamMerger<?, Entity> getMerger()
+    {
+        return merger;
+    }
+
+    EntityCollection getEntities()
+    {
+        return entities;
+    }
+
+    Supplier<EntityCollection> getEntityCollectionFactory()
+    {
+        return entityCollectionFactory;
+    }
+
+    List<Operation<Entity>> getArrangement()
+    {
+        return arrangement;
+    }
+
+    List<Operation<Entity>> getDeletions()
+    {
+        return deletions;
+    }
+
+    /**
+     * Returns the DTO container of the operation.
+     *
+     * @param operation the operation
+     * @return the container, null if the operation has no DTO
+     */
+    Object dtoContainerOf(Operation<Entity> operation)
+    {
+        return operation.dtoIndex >= 0 ? dtoContainers[operation.dtoIndex] : null;
+    }
+
+    /**
+     * Returns true if the entities still contain the same instances in the same order as at the time of planning.
+     *
+     * @return true if up to date
+     */
+    boolean isUpToDate()
+    {
+        if (entities == null)
+        {
+            return true;
+        }
+
+        if (snapshot.length != entities.size())
+        {
+            return false;
+        }
+
+        int index = 0;
+
+        for (Entity entity : entities)
+        {
+            if (snapshot[index++] != entity)
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "MergePlan" + operations;
+    }
+
+    /**
+     * A DTO container with its index, passed to the merge algorithms while planning.
+     *
+     * @param <DTOContainer> the type of the container
+     */
+    static final class Source<DTOContainer>
+    {
+
+        final int index;
+        final DTOContainer dtoContainer;
+
+        Source(int index, DTOContainer dtoContainer)
+        {
+            super();
+
+            this.index = index;
+            this.dtoContainer = dtoContainer;
+        }
+
+    }
+
+    /**
+     * Stands for the entity, that will be created for the DTO with the index.
+     */
+    private static final class Created
+    {
+
+        final int dtoIndex;
+
+        Created(int dtoIndex)
+        {
+            super();
+
+            this.dtoIndex = dtoIndex;
+        }
+
+    }
+
+    /**
+     * Records the decisions of the merge algorithms, that run on a copy of the entities, and creates the plan.
+     *
+     * @param <DTOContainer> the type of the DTO containers
+     * @param <Entity> the type of the entities
+     */
+    static final class Recorder<DTOContainer, Entity>
+    {
+
+        private final Object[] dtoContainers;
+        private final Object[] snapshot;
+        private final Map<Object, Integer> positions;
+        private final Map<Object, Integer> updates;
+        private final List<Object> deleted = new ArrayList<>();
+
+        Recorder(Object[] dtoContainers, Collection<Entity> entities)
+        {
+            super();
+
+            this.dtoContainers = dtoContainers;
+
+            snapshot = MergeResult.snapshotOf(entities);
+            positions = new IdentityHashMap<>(MapperUtils.hashCapacity(snapshot.length));
+            updates = new IdentityHashMap<>(MapperUtils.hashCapacity(Math.min(snapshot.length, dtoContainers.length)));
+
+            for (int i = 0; i < snapshot.length; i++)
+            {
+                positions.putIfAbsent(snapshot[i], i);
+            }
+        }
+
+        /**
+         * Returns the DTO containers with their indices.
+         *
+         * @return the sources
+         */
+        @SuppressWarnings("unchecked")
+        List<Source<DTOContainer>> sources()
+        {
+            List<Source<DTOContainer>> sources = new ArrayList<>(dtoContainers.length);
+
+            for (int i = 0; i < dtoContainers.length; i++)
+            {
+                sources.add(new Source<>(i, (DTOContainer) dtoContainers[i]));
+            }
+
+            return sources;
+        }
+
+        /**
+         * Returns a copy of the entities, the merge algorithms can work on.
+         *
+         * @return the copy
+         */
+        List<Object> values()
+        {
+            return new ArrayList<>(Arrays.asList(snapshot));
+        }
+
+        /**
+         * Adapts the match function to the sources. Keeps the {@link KeyedMatchFunction}, thus the plan uses the hash
+         * indices like the merge.
+         *
+         * @param matchFunction the match function of the merger
+         * @return the match function for the sources
+         */
+        @SuppressWarnings("unchecked")
+        MatchFunction<Source<DTOContainer>, Object> matchFunction(MatchFunction<DTOContainer, Entity> matchFunction)
+        {
+            if (matchFunction instanceof KeyedMatchFunction<?, ?>)
+            {
+                KeyedMatchFunction<DTOContainer, Entity> keyedMatchFunction =
+                    (KeyedMatchFunction<DTOContainer, Entity>) matchFunction;
+
+                return new KeyedMatchFunction<Source<DTOContainer>, Object>()
+                {
+                    @Override
+                    public boolean matches(Source<DTOContainer> source, Object entity)
+                    {
+                        return keyedMatchFunction.matches(source.dtoContainer, (Entity) entity);
+                    }
+
+                    @Override
+                    public Object leftKeyOf(Source<DTOContainer> source)
+                    {
+                        return source.dtoContainer != null
+                            ? keyedMatchFunction.leftKeyOf(source.dtoContainer)
+                            : KeyIndex.keyOfNull();
+                    }
+
+                    @Override
+                    public Object rightKeyOf(Object entity)
+                    {
+                        return keyedMatchFunction.rightKeyOf((Entity) entity);
+                    }
+                };
+            }
+
+            return (source, entity) -> matchFunction.matches(source.dtoContainer, (Entity) entity);
+        }
+
+        /**
+         * Returns the map function, that records the decisions instead of merging. Missing entities are returned as
+         * they are, thus ordered merges can still rescue them for a DTO further down. The ones, that have not been
+         * rescued, are deleted.
+         *
+         * @return the map function
+         */
+        BiFunction<Source<DTOContainer>, Object, Object> mapFunction()
+        {
+            return (source, entity) -> {
+                if (source == null)
+                {
+                    deleted.add(entity);
+
+                    return entity;
+                }
+
+                if (entity == null)
+                {
+                    return new Created(source.index);
+                }
+
+                updates.put(entity, source.index);
+
+                return entity;
+            };
+        }
+
+        /**
+         * Creates the plan from the values, as left by the merge algorithms.
+         *
+         * @param <EntityCollection> the type of the collection
+         * @param merger the merger
+         * @param entities the entities
+         * @param entityCollectionFactory the factory for the collection
+         * @param values the values after the merge
+         * @param ordered true to detect moved entities
+         * @return the plan
+         */
+        @SuppressWarnings("unchecked")
+        <EntityCollection extends Collection<Entity>> MergePlan<Entity, EntityCollection> toPlan(
+            StreamMerger<?, Entity> merger, EntityCollection entities,
+            Supplier<EntityCollection> entityCollectionFactory, List<Object> values, boolean ordered)
+        {
+            Map<Object, Void> deletedEntities = new IdentityHashMap<>();
+
+            deleted.removeIf(updates::containsKey);
+            deleted.forEach(entity -> deletedEntities.put(entity, null));
+            values.removeIf(deletedEntities::containsKey);
+
+            int[] entityIndices = new int[values.size()];
+
+            for (int i = 0; i < entityIndices.length; i++)
+            {
+                Object value = values.get(i);
+
+                entityIndices[i] = value instanceof Created ? -1 : positions.get(value);
+            }
+
+            boolean[] moved = ordered ? movedOf(entityIndices) : new boolean[entityIndices.length];
+            List<Operation<Entity>> arrangement = new ArrayList<>(entityIndices.length);
+
+            for (int i = 0; i < entityIndices.length; i++)
+            {
+                Object value = values.get(i);
+
+                if (value instanceof Created)
+                {
+                    arrangement.add(new Operation<>(OperationType.CREATE, ((Created) value).dtoIndex, null, -1, i));
+
+                    continue;
+                }
+
+                Integer dtoIndex = updates.get(value);
+                OperationType type = moved[i] ? OperationType.MOVE : dtoIndex != null ? OperationType.UPDATE : null;
+
+                arrangement
+                    .add(new Operation<>(type, dtoIndex != null ? dtoIndex : -1, (Entity) value, entityIndices[i], i));
+            }
+
+            List<Operation<Entity>> deletions = new ArrayList<>(deleted.size());
+
+            for (Object entity : deleted)
+            {
+                deletions.add(new Operation<>(OperationType.DELETE, -1, (Entity) entity, positions.get(entity), -1));
+            }
+
+            return new MergePlan<>(merger, entities, entityCollectionFactory, dtoContainers, snapshot, arrangement,
+                deletions);
+        }
+
+        /**
+         * Marks the entities, that are not part of the longest increasing subsequence of their original positions.
+         * These are the entities, that have to move, all others keep their relative order.
+         *
+         * @param entityIndices the original positions, -1 for created entities
+         * @return the moved entities
+         */
+        private static boolean[] movedOf(int[] entityIndices)
+        {
+            int[] tails = new int[entityIndices.length];
+            int[] predecessors = new int[entityIndices.length];
+            int length = 0;
+
+            for (int i = 0; i < entityIndices.length; i++)
+            {
+                if (entityIndices[i] < 0)
+                {
+                    continue;
+                }
+
+                int low = 0;
+                int high = length;
+
+                while (low < high)
+                {
+                    int middle = (low + high) >>> 1;
+
+                    if (entityIndices[tails[middle]] < entityIndices[i])
+                    {
+                        low = middle + 1;
+                    }
+                    else
+                    {
+                        high = middle;
+                    }
+                }
+
+                predecessors[i] = low > 0 ? tails[low - 1] : -1;
+                tails[low] = i;
+                length = Math.max(length, low + 1);
+            }
+
+            boolean[] moved = new boolean[entityIndices.length];
+
+            for (int i = 0; i < entityIndices.length; i++)
+            {
+                moved[i] = entityIndices[i] >= 0;
+            }
+
+            for (int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = predecessors[i])
+            {
+                moved[i] = false;
+            }
+
+            return moved;
+        }
+
+    }
+
+}
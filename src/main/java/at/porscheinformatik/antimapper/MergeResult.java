@@ -0,0 +1,222 @@
+package at.porscheinformatik.antimapper;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Objects;
+
+/**
+ * Collects the changes of merge operations. Pass a new instance as hint to the merge, and check
+ * {@link #isChanged()} afterwards, e.g. to skip flushing the entities or invalidating caches, if nothing has changed.
+ * <p>
+ * The {@link AbstractMerger}s count the created entities and the entities merged with null. The stream and group
+ * mergers count the collections, that differ from the original ones after the merge (added, removed, replaced or
+ * moved entities). Changes of the entities themselves are unknown to the library, the mergers report them by calling
+ * {@link #modified(Object...)} or {@link #changed(Object[], Object, Object)} with their hints. Mergers opt in to this
+ * by returning true from {@link AbstractMerger#isReportingModifications()}. Otherwise, each merge of an existing
+ * entity counts as change, because the library cannot tell, whether the merger modified it.
+ * <p>
+ * The result is not thread-safe.
+ *
+ * @author ham
+ */
+public final class MergeResult
+{
+
+    private int createdEntities;
+    private int deletedEntities;
+    private int modifications;
+    private int unreportedMerges;
+    private int changedCollections;
+
+    public MergeResult()
+    {
+        super();
+    }
+
+    /**
+     * Reports a modification of an entity to the {@link MergeResult} in the hints, if there is one.
+     *
+     * @param hints the hints of the merge
+     */
+    public static void modified(Object... hints)
+    {
+        MergeResult result = Hints.hintOrNull(hints, MergeResult.class);
+
+        if (result != null)
+        {
+            result.modifications++;
+        }
+    }
+
+    /**
+     * Compares the current value of an entity with the new one and reports a modification to the {@link MergeResult}
+     * in the hints, if they are not equal. Use it for setting only changed values:
+     *
+     * <pre>
+     * if (MergeResult.changed(hints, entity.getName(), dto.getName()))
+     * {
+     *     entity.setName(dto.getName());
+     * }
+     * </pre>
+     *
+     * @param <Value> the type of the value
+     * @param hints the hints of the merge
+     * @param currentValue the current value of the entity
+     * @param newValue the new value
+     * @return true if the values are not equal
+     */
+    public static <Value> boolean changed(Object[] hints, Value currentValue, Value newValue)
+    {
+        if (Objects.equals(currentValue, newValue))
+        {
+            return false;
+        }
+
+        modified(hints);
+
+        return true;
+    }
+
+    /**
+     * Returns true if any entity or collection has changed, or if an existing entity has been merged by a merger, that
+     * does not report its modifications.
+     *
+     * @return true if changed
+     */
+    public boolean isChanged()
+    {
+        return createdEntities > 0 || deletedEntities > 0 || modifications > 0 || unreportedMerges > 0
+            || changedCollections > 0;
+    }
+
+    /**
+     * Returns the number of entities created for DTOs.
+     *
+     * @return the number of entities
+     */
+    public int getCreatedEntities()
+    {
+        return createdEntities;
+    }
+
+    /**
+     * Returns the number of entities merged with null DTOs, e.g. removed from a collection.
+     *
+     * @return the number of entities
+     */
+    public int getDeletedEntities()
+    {
+        return deletedEntities;
+    }
+
+    /**
+     * Returns the number of modifications reported by the mergers.
+     *
+     * @return the number of modifications
+     */
+    public int getModifications()
+    {
+        return modifications;
+    }
+
+    /**
+     * Returns the number of existing entities merged by mergers, that do not report their modifications. Each of them
+     * counts as change.
+     *
+     * @return the number of entities
+     */
+    public int getUnreportedMerges()
+    {
+        return unreportedMerges;
+    }
+
+    /**
+     * Returns the number of collections, that differ from the original ones after the merge.
+     *
+     * @return the number of collections
+     */
+    public int getChangedCollections()
+    {
+        return changedCollections;
+    }
+
+    void created()
+    {
+        createdEntities++;
+    }
+
+    void deleted()
+    {
+        deletedEntities++;
+    }
+
+    void mergedUnreported()
+    {
+        unreportedMerges++;
+    }
+
+    void collectionChanged()
+    {
+        changedCollections++;
+    }
+
+    /**
+     * Compares the collection with the snapshot, taken before the merge, and counts it, if the entities or their order
+     * differ.
+     *
+     * @param snapshot the snapshot
+     * @param collection the collection after the merge
+     */
+    void merged(Object[] snapshot, Collection<?> collection)
+    {
+        if (!isSame(snapshot, collection))
+        {
+            changedCollections++;
+        }
+    }
+
+    /**
+     * Returns a snapshot of the collection.
+     *
+     * @param collection the collection, may be null
+     * @return the snapshot
+     */
+    static Object[] snapshotOf(Collection<?> collection)
+    {
+        return collection != null ? collection.toArray() : new Object[0];
+    }
+
+    private static boolean isSame(Object[] snapshot, Collection<?> collection)
+    {
+        if (collection == null)
+        {
+            return snapshot.length == 0;
+        }
+
+        if (snapshot.length != collection.size())
+        {
+            return false;
+        }
+
+        Iterator<?> iterator = collection.iterator();
+
+        for (Object value : snapshot)
+        {
+            if (!iterator.hasNext() || iterator.next() != value)
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String
+            .format("MergeResult[created=%d, deleted=%d, modifications=%d, unreportedMerges=%d, changedCollections=%d]",
+                createdEntities, deletedEntities, modifications, unreportedMerges, changedCollections);
+    }
+
+}
@@ -62,8 +62,9 @@ public interface Merger<DTO, Entity> extends HintsProvider
     /**
      * Creates a {@link StreamMerger} for merging multiple DTOs into multiple Entities. Ignores DTOs that merge to null,
      * unless the {@link Hint#KEEP_NULL} hint is set. Returns an unmodifiable instance if the {@link Hint#UNMODIFIABLE}
-     * is set (always creates a new result object in this case, merging the entities). Never returns null if the
-     * {@link Hint#OR_EMPTY} is set.
+     * is set (creates a new result object in this case, that shares the entities until the merge modifies them, see
+     * {@link StreamMerger#intoMixedCollection(Collection, Supplier)}). Never returns null if the {@link Hint#OR_EMPTY}
+     * is set.
      *
      * @param dtos the DTOs, may be null
      * @param hints optional hints
@@ -77,8 +78,9 @@ public interface Merger<DTO, Entity> extends HintsProvider
     /**
      * Creates a {@link StreamMerger} for merging multiple DTOs into multiple Entities. Ignores DTOs that merge to null,
      * unless the {@link Hint#KEEP_NULL} hint is set. Returns an unmodifiable instance if the {@link Hint#UNMODIFIABLE}
-     * is set (always creates a new result object in this case, merging the entities). Never returns null if the
-     * {@link Hint#OR_EMPTY} is set.
+     * is set (creates a new result object in this case, that shares the entities until the merge modifies them, see
+     * {@link StreamMerger#intoMixedCollection(Collection, Supplier)}). Never returns null if the {@link Hint#OR_EMPTY}
+     * is set.
      *
      * @param dtoStream the DTOs, may be null
      * @param hints optional hints
@@ -92,8 +94,9 @@ public interface Merger<DTO, Entity> extends HintsProvider
     /**
      * Creates a {@link StreamMerger} for merging multiple DTOs into multiple Entities. Ignores DTOs that merge to null,
      * unless the {@link Hint#KEEP_NULL} hint is set. Returns an unmodifiable instance if the {@link Hint#UNMODIFIABLE}
-     * is set (always creates a new result object in this case, merging the entities). Never returns null if the
-     * {@link Hint#OR_EMPTY} is set.
+     * is set (creates a new result object in this case, that shares the entities until the merge modifies them, see
+     * {@link StreamMerger#intoMixedCollection(Collection, Supplier)}). Never returns null if the {@link Hint#OR_EMPTY}
+     * is set.
      *
      * @param dtoStreamSupplier the supplier for the DTO stream
      * @param hints optional hints
@@ -117,6 +120,33 @@ public interface Merger<DTO, Entity> extends HintsProvider
                 return Merger.this.merge(dto, entity, hints);
             }
 
+            @Override
+            protected MatchFunction<DTO, Entity> createMatchFunction(Object[] hints)
+            {
+                if (Merger.this instanceof SortedMerger<?, ?>)
+                {
+                    @SuppressWarnings("unchecked")
+                    SortedMerger<DTO, Entity> merger = (SortedMerger<DTO, Entity>) Merger.this;
+
+                    return SortedMatchFunction
+                        .of(dto -> merger.getDTOUniqueKey(dto, hints),
+                            entity -> merger.getEntityUniqueKey(entity, hints),
+                            (left, right) -> merger.compareUniqueKeys(left, right, hints));
+                }
+
+                if (Merger.this instanceof KeyedMerger<?, ?>)
+                {
+                    @SuppressWarnings("unchecked")
+                    KeyedMerger<DTO, Entity> merger = (KeyedMerger<DTO, Entity>) Merger.this;
+
+                    return KeyedMatchFunction
+                        .of(dto -> merger.getDTOUniqueKey(dto, hints),
+                            entity -> merger.getEntityUniqueKey(entity, hints));
+                }
+
+                return super.createMatchFunction(hints);
+            }
+
             @Override
             protected void afterMergeIntoCollection(Collection<Entity> entities, Object[] hints)
             {
@@ -131,11 +161,63 @@ public interface Merger<DTO, Entity> extends HintsProvider
         };
     }
 
+    /**
+     * Creates a {@link ChangeMerger} for merging a change set into multiple Entities. Only the entities of the changed
+     * DTOs are touched, thus the DTOs of the unchanged entities are not needed. Uses the keys of a
+     * {@link KeyedMerger} for searching the entities.
+     *
+     * @param upserts the created and updated DTOs, may be null
+     * @param deletions the deleted DTOs, may be null
+     * @param hints optional hints
+     * @return a {@link ChangeMerger}
+     */
+    default ChangeMerger<DTO, Entity> mergeChanges(Iterable<? extends DTO> upserts,
+        Iterable<? extends DTO> deletions, Object... hints)
+    {
+        return new AbstractChangeMerger<DTO, Entity>(upserts, deletions, hints)
+        {
+            @Override
+            protected boolean isUniqueKeyMatchingNullable(DTO dto, Entity entity, Object[] hints)
+            {
+                return Merger.this.isUniqueKeyMatchingNullable(dto, entity, hints);
+            }
+
+            @Override
+            protected Entity merge(DTO dto, Entity entity, Object[] hints)
+            {
+                return Merger.this.merge(dto, entity, hints);
+            }
+
+            @Override
+            protected MatchFunction<DTO, Entity> createMatchFunction(Object[] hints)
+            {
+                if (Merger.this instanceof KeyedMerger<?, ?>)
+                {
+                    @SuppressWarnings("unchecked")
+                    KeyedMerger<DTO, Entity> merger = (KeyedMerger<DTO, Entity>) Merger.this;
+
+                    return KeyedMatchFunction
+                        .of(dto -> merger.getDTOUniqueKey(dto, hints),
+                            entity -> merger.getEntityUniqueKey(entity, hints));
+                }
+
+                return super.createMatchFunction(hints);
+            }
+
+            @Override
+            protected Object[] getTransformerHints()
+            {
+                return Merger.this.getDefaultHints();
+            }
+        };
+    }
+
     /**
      * Creates a {@link StreamMerger} for merging multiple DTOs into multiple Entities. Ignores DTOs that merge to null,
      * unless the {@link Hint#KEEP_NULL} hint is set. Returns an unmodifiable instance if the {@link Hint#UNMODIFIABLE}
-     * is set (always creates a new result object in this case, merging the entities). Never returns null if the
-     * {@link Hint#OR_EMPTY} is set.
+     * is set (creates a new result object in this case, that shares the entities until the merge modifies them, see
+     * {@link StreamMerger#intoMixedCollection(Collection, Supplier)}). Never returns null if the {@link Hint#OR_EMPTY}
+     * is set.
      *
      * @param dtos the DTOs, may be null
      * @param hints optional hints
@@ -158,7 +240,7 @@ public interface Merger<DTO, Entity> extends HintsProvider
                 // We add the key as additional hint as this can be important information for implementations
                 return Merger.this
                     .isUniqueKeyMatchingNullable(dtoContainer.getValue(), entity,
-                        Hints.join(hints, dtoContainer.getKey()));
+                        Hints.push(hints, dtoContainer.getKey()));
             }
 
             @Override
@@ -170,7 +252,7 @@ public interface Merger<DTO, Entity> extends HintsProvider
                 }
 
                 // We add the key as additional hint as this can be important information for implementations
-                return Merger.this.merge(dtoContainer.getValue(), entity, Hints.join(hints, dtoContainer.getKey()));
+                return Merger.this.merge(dtoContainer.getValue(), entity, Hints.push(hints, dtoContainer.getKey()));
             }
 
             @Override
@@ -189,8 +271,10 @@ public interface Merger<DTO, Entity> extends HintsProvider
 
     /**
      * Flattens a map and merges each item. Ignores DTOs that merge to null, unless the {@link Hint#KEEP_NULL} hint is
-     * set. Returns an unmodifiable instance if the {@link Hint#UNMODIFIABLE} is set (always creates a new result object
-     * in this case). Never returns null if the {@link Hint#OR_EMPTY} is set.
+     * set. Returns an unmodifiable instance if the {@link Hint#UNMODIFIABLE} is set (creates a new result object in
+     * this case, that shares the entities until the merge modifies them, see
+     * {@link StreamMerger#intoMixedCollection(Collection, Supplier)}). Never returns null if the {@link Hint#OR_EMPTY}
+     * is set.
      *
      * @param <ParentDTO> the type of parent DTO
      * @param dtos an iterable of parent DTOs, may be null
@@ -207,7 +291,9 @@ public interface Merger<DTO, Entity> extends HintsProvider
     /**
      * Flattens an iterable of objects and merges them. Ignores DTOs that merge to null, unless the
      * {@link Hint#KEEP_NULL} hint is set. Returns an unmodifiable instance if the {@link Hint#UNMODIFIABLE} is set
-     * (always creates a new result object in this case). Never returns null if the {@link Hint#OR_EMPTY} is set.
+     * (creates a new result object in this case, that shares the entities until the merge modifies them, see
+     * {@link StreamMerger#intoMixedCollection(Collection, Supplier)}). Never returns null if the {@link Hint#OR_EMPTY}
+     * is set.
      *
      * @param <ParentDTO> the type of parent DTO
      * @param parentDtoIterable an iterable of parent DTOs, may be null
@@ -223,8 +309,10 @@ public interface Merger<DTO, Entity> extends HintsProvider
 
     /**
      * Flattens a stream of objects and merges them. Ignores DTOs that merge to null, unless the {@link Hint#KEEP_NULL}
-     * hint is set. Returns an unmodifiable instance if the {@link Hint#UNMODIFIABLE} is set (always creates a new
-     * result object in this case). Never returns null if the {@link Hint#OR_EMPTY} is set.
+     * hint is set. Returns an unmodifiable instance if the {@link Hint#UNMODIFIABLE} is set (creates a new result
+     * object in this case, that shares the entities until the merge modifies them, see
+     * {@link StreamMerger#intoMixedCollection(Collection, Supplier)}). Never returns null if the {@link Hint#OR_EMPTY}
+     * is set.
      *
      * @param <ParentDTO> the type of parent DTO
      * @param parentDtoStream the stream of parent DTOs, may be null
@@ -240,8 +328,10 @@ public interface Merger<DTO, Entity> extends HintsProvider
 
     /**
      * Flattens a stream of objects and merges them. Ignores DTOs that merge to null, unless the {@link Hint#KEEP_NULL}
-     * hint is set. Returns an unmodifiable instance if the {@link Hint#UNMODIFIABLE} is set (always creates a new
-     * result object in this case). Never returns null if the {@link Hint#OR_EMPTY} is set.
+     * hint is set. Returns an unmodifiable instance if the {@link Hint#UNMODIFIABLE} is set (creates a new result
+     * object in this case, that shares the entities until the merge modifies them, see
+     * {@link StreamMerger#intoMixedCollection(Collection, Supplier)}). Never returns null if the {@link Hint#OR_EMPTY}
+     * is set.
      *
      * @param <ParentDTO> the type of parent DTO
      * @param parentDtoStreamSupplier the suppliert for the parent DTO stream
@@ -254,7 +344,8 @@ public interface Merger<DTO, Entity> extends HintsProvider
         Function<? super ParentDTO, ? extends Iterable<? extends DTO>> mapper, Object... hints)
     {
 
-        Supplier<Stream<? extends Pair<DTO, ParentDTO>>> dtoStreamSupplier = () -> {
+        // the DTOs are paired with the hints of their parent, the parent is pushed once per parent
+        Supplier<Stream<? extends Pair<DTO, Object[]>>> dtoStreamSupplier = () -> {
             Stream<? extends ParentDTO> parentDtoStream = parentDtoStreamSupplier.get();
 
             if (parentDtoStream == null)
@@ -265,26 +356,25 @@ public interface Merger<DTO, Entity> extends HintsProvider
             return parentDtoStream.filter(parentDto -> parentDto != null).flatMap(parentDto -> {
                 Iterable<? extends DTO> iterable = mapper.apply(parentDto);
                 Stream<? extends DTO> stream = MapperUtils.streamOrEmpty(iterable);
+                Object[] parentHints = Hints.push(hints, parentDto);
 
-                return stream.map(dto -> Pair.of(dto, parentDto));
+                return stream.map(dto -> Pair.of(dto, parentHints));
             });
         };
 
-        return new AbstractStreamMerger<DTO, Pair<DTO, ParentDTO>, Entity>(dtoStreamSupplier, hints)
+        return new AbstractStreamMerger<DTO, Pair<DTO, Object[]>, Entity>(dtoStreamSupplier, hints)
         {
             @Override
-            protected boolean isUniqueKeyMatchingNullable(Pair<DTO, ParentDTO> dtoContainer, Entity entity,
+            protected boolean isUniqueKeyMatchingNullable(Pair<DTO, Object[]> dtoContainer, Entity entity,
                 Object[] hints)
             {
-                return Merger.this
-                    .isUniqueKeyMatchingNullable(dtoContainer.getLeft(), entity,
-                        Hints.join(hints, dtoContainer.getRight()));
+                return Merger.this.isUniqueKeyMatchingNullable(dtoContainer.getLeft(), entity, dtoContainer.getRight());
             }
 
             @Override
-            protected Entity merge(Pair<DTO, ParentDTO> dtoContainer, Entity entity, Object[] hints)
+            protected Entity merge(Pair<DTO, Object[]> dtoContainer, Entity entity, Object[] hints)
             {
-                return Merger.this.merge(dtoContainer.getLeft(), entity, Hints.join(hints, dtoContainer.getRight()));
+                return Merger.this.merge(dtoContainer.getLeft(), entity, dtoContainer.getRight());
             }
 
             @Override
@@ -326,6 +416,49 @@ public interface Merger<DTO, Entity> extends HintsProvider
                 return Merger.this.merge(dto, entity, hints);
             }
 
+            @Override
+            protected MatchFunction<Pair<?, ? extends DTO>, Entity> createMatchFunction(Object[] hints)
+            {
+                if (Merger.this instanceof SortedMerger<?, ?>)
+                {
+                    @SuppressWarnings("unchecked")
+                    SortedMerger<DTO, Entity> merger = (SortedMerger<DTO, Entity>) Merger.this;
+
+                    return new SortedMatchFunction<Pair<?, ? extends DTO>, Entity>()
+                    {
+                        @Override
+                        public boolean matches(Pair<?, ? extends DTO> pair, Entity entity)
+                        {
+                            return isUniqueKeyMatchingNullable(pair != null ? pair.getRight() : null, entity,
+                                pair != null ? Hints.push(hints, pair.getLeft()) : hints);
+                        }
+
+                        @Override
+                        public Object leftKeyOf(Pair<?, ? extends DTO> pair)
+                        {
+                            // a null DTO matches null entities only
+                            return pair.getRight() != null
+                                ? merger.getDTOUniqueKey(pair.getRight(), Hints.push(hints, pair.getLeft()))
+                                : KeyIndex.keyOfNull();
+                        }
+
+                        @Override
+                        public Object rightKeyOf(Entity entity)
+                        {
+                            return merger.getEntityUniqueKey(entity, hints);
+                        }
+
+                        @Override
+                        public int compareKeys(Object leftKey, Object rightKey)
+                        {
+                            return merger.compareUniqueKeys(leftKey, rightKey, hints);
+                        }
+                    };
+                }
+
+                return super.createMatchFunction(hints);
+            }
+
             @Override
             protected void afterMergeIntoCollection(Collection<Entity> entities, Object[] hints)
             {
@@ -341,7 +474,9 @@ public interface Merger<DTO, Entity> extends HintsProvider
     }
 
     /**
-     * Called after a collection mapping.
+     * Called after a collection mapping. If the {@link Hint#UNMODIFIABLE} hint is set, it is called with the collection
+     * that will be returned (before making it unmodifiable). This is the entities parameter of the merge itself, if the
+     * merge has not modified it, which must not be modified by this method.
      *
      * @param entities the mapped entities
      * @param hints optional hints
@@ -0,0 +1,111 @@
+package at.porscheinformatik.antimapper;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Keeps track of the mapped target values in mixed mappings. Takes a snapshot of the target collection and marks the
+ * positions of the mapped values in a bit set. Only the values added by the mapping are tracked by identity, because
+ * they have no position in the snapshot.
+ *
+ * @param <TargetValue> the type of the target values
+ * @author ham
+ */
+final class MixedTargets<TargetValue>
+{
+
+    private final TargetValue[] values;
+    private final BitSet mappedPositions;
+
+    /**
+     * The values added by the mapping, created on demand.
+     */
+    private Map<TargetValue, Void> addedValues;
+
+    MixedTargets(Collection<TargetValue> targetCollection)
+    {
+        super();
+
+        values = OrderedDiff.toArray(targetCollection);
+        mappedPositions = new BitSet(values.length);
+    }
+
+    /**
+     * Returns the number of values in the snapshot.
+     *
+     * @return the number of values
+     */
+    int size()
+    {
+        return values.length;
+    }
+
+    /**
+     * Returns the value at the specified position of the snapshot.
+     *
+     * @param position the position
+     * @return the value, may be null
+     */
+    TargetValue get(int position)
+    {
+        return values[position];
+    }
+
+    /**
+     * Returns true if the value at the specified position has been mapped, or if the same instance has been added by
+     * the mapping.
+     *
+     * @param position the position
+     * @return true if mapped
+     */
+    boolean isMapped(int position)
+    {
+        return mappedPositions.get(position) || addedValues != null && addedValues.containsKey(values[position]);
+    }
+
+    /**
+     * Returns the position of the next value in the snapshot, that has not been mapped.
+     *
+     * @param position the position to start from (inclusive)
+     * @return the position, the size if there is none
+     */
+    int nextUnmapped(int position)
+    {
+        position = mappedPositions.nextClearBit(position);
+
+        while (position < values.length && addedValues != null && addedValues.containsKey(values[position]))
+        {
+            position = mappedPositions.nextClearBit(position + 1);
+        }
+
+        return Math.min(position, values.length);
+    }
+
+    /**
+     * Marks the value at the specified position as mapped.
+     *
+     * @param position the position
+     */
+    void mapped(int position)
+    {
+        mappedPositions.set(position);
+    }
+
+    /**
+     * Remembers a value, that has been added by the mapping.
+     *
+     * @param value the value, may be null
+     */
+    void added(TargetValue value)
+    {
+        if (addedValues == null)
+        {
+            addedValues = new IdentityHashMap<>();
+        }
+
+        addedValues.put(value, null);
+    }
+
+}
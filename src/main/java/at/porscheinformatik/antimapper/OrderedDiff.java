@@ -0,0 +1,576 @@
+package at.porscheinformatik.antimapper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Decides whether an ordered mapping should insert a source value or remove a target value, if the current values do
+ * not match. The decision is the same, the walk through the table of the longest common subsequence makes: a source
+ * value gets inserted, if the longest common subsequence of the remaining values does not get shorter.
+ *
+ * @param <SourceValue> the type of the source values
+ * @param <TargetValue> the type of the target values
+ * @author ham
+ */
+abstract class OrderedDiff<SourceValue, TargetValue>
+{
+
+    /**
+     * Creates a diff for the values of the arrays, starting at the offsets. The arrays must not be modified while using
+     * the diff. Uses the {@link Myers} algorithm, if the values are similar. Uses the {@link Table}, if the values are
+     * different, and the {@link LinearSpace} algorithm, if the table would exceed the cell budget. Values, that match
+     * at the end of both arrays, are left out, as long as possible (see {@link Trimmed}). Values, that match at the
+     * start, should be processed before creating the diff.
+     *
+     * @param <SourceValue> the type of the source values
+     * @param <TargetValue> the type of the target values
+     * @param sources the source values
+     * @param targets the target values
+     * @param matchFunction the function to compare the source and the target object
+     * @param sourceOffset the index of the first source value
+     * @param targetOffset the index of the first target value
+     * @param linearSpace true to use the {@link LinearSpace} algorithm in any case
+     * @param cellBudget the maximum number of cells, the algorithms may allocate
+     * @return the diff
+     */
+    static <SourceValue, TargetValue> OrderedDiff<SourceValue, TargetValue> create(SourceValue[] sources,
+        TargetValue[] targets, MatchFunction<SourceValue, TargetValue> matchFunction, int sourceOffset,
+        int targetOffset, boolean linearSpace, long cellBudget)
+    {
+        int sourceSize = sources.length - sourceOffset;
+        int targetSize = targets.length - targetOffset;
+        int suffixSize = 0;
+
+        while (suffixSize < sourceSize
+            && suffixSize < targetSize
+            && matchFunction
+                .matches(sources[sources.length - suffixSize - 1], targets[targets.length - suffixSize - 1]))
+        {
+            suffixSize++;
+        }
+
+        if (suffixSize > 0)
+        {
+            return new Trimmed<>(sources, targets, matchFunction, sourceOffset, targetOffset, sourceSize, targetSize,
+                suffixSize, linearSpace, cellBudget);
+        }
+
+        return create(sources, targets, matchFunction, sourceOffset, targetOffset, sourceSize, targetSize,
+            linearSpace, cellBudget);
+    }
+
+    private static <SourceValue, TargetValue> OrderedDiff<SourceValue, TargetValue> create(SourceValue[] sources,
+        TargetValue[] targets, MatchFunction<SourceValue, TargetValue> matchFunction, int sourceOffset,
+        int targetOffset, int sourceSize, int targetSize, boolean linearSpace, long cellBudget)
+    {
+        if (linearSpace)
+        {
+            return new LinearSpace<>(sources, targets, matchFunction, sourceOffset, targetOffset, sourceSize,
+                targetSize, cellBudget);
+        }
+
+        return new Myers<>(sources, targets, matchFunction, sourceOffset, targetOffset, sourceSize, targetSize,
+            cellBudget);
+    }
+
+    /**
+     * Copies the list to an array.
+     *
+     * @param <Value> the type of the values
+     * @param list the list, may be null
+     * @return the array, empty if the list is null
+     */
+    @SuppressWarnings("unchecked")
+    static <Value> Value[] toArray(Collection<? extends Value> list)
+    {
+        return (Value[]) (list != null ? list.toArray() : new Object[0]);
+    }
+
+    protected final SourceValue[] sources;
+    protected final TargetValue[] targets;
+    protected final MatchFunction<SourceValue, TargetValue> matchFunction;
+    protected final int sourceOffset;
+    protected final int targetOffset;
+    protected final int sourceSize;
+    protected final int targetSize;
+
+    protected OrderedDiff(SourceValue[] sources, TargetValue[] targets,
+        MatchFunction<SourceValue, TargetValue> matchFunction, int sourceOffset, int targetOffset, int sourceSize,
+        int targetSize)
+    {
+        super();
+
+        this.sources = sources;
+        this.targets = targets;
+        this.matchFunction = matchFunction;
+        this.sourceOffset = sourceOffset;
+        this.targetOffset = targetOffset;
+        this.sourceSize = sourceSize;
+        this.targetSize = targetSize;
+    }
+
+    /**
+     * Returns true if the source value at the source index should be inserted, false if the target value at the target
+     * index should be removed. The indices are relative to the offsets of the diff. The indices must never decrease
+     * between two calls.
+     *
+     * @param sourceIndex the index of the source value, less than the size of the source list
+     * @param targetIndex the index of the target value, less than the size of the target list
+     * @return true to insert the source value, false to remove the target value
+     */
+    abstract boolean isInsertPreferred(int sourceIndex, int targetIndex);
+
+    /**
+     * Returns the number of cells of the {@link Table}.
+     *
+     * @param sourceSize the size of the source list
+     * @param targetSize the size of the target list
+     * @return the number of cells
+     */
+    static long tableSize(int sourceSize, int targetSize)
+    {
+        return (long) (sourceSize + 1) * (targetSize + 1);
+    }
+
+    /**
+     * Returns true if the values at the specified indices match.
+     *
+     * @param sourceIndex the source index, relative to the offset
+     * @param targetIndex the target index, relative to the offset
+     * @return true if matching
+     */
+    protected boolean matches(int sourceIndex, int targetIndex)
+    {
+        return matchFunction.matches(sources[sourceOffset + sourceIndex], targets[targetOffset + targetIndex]);
+    }
+
+    /**
+     * Uses the full table of the longest common subsequences of all suffixes. Needs O(N*M) time and space.
+     *
+     * @param <SourceValue> the type of the source values
+     * @param <TargetValue> the type of the target values
+     */
+    static final class Table<SourceValue, TargetValue> extends OrderedDiff<SourceValue, TargetValue>
+    {
+        private final int[][] table;
+
+        Table(SourceValue[] sources, TargetValue[] targets, MatchFunction<SourceValue, TargetValue> matchFunction)
+        {
+            this(sources, targets, matchFunction, 0, 0, sources.length, targets.length);
+        }
+
+        Table(SourceValue[] sources, TargetValue[] targets, MatchFunction<SourceValue, TargetValue> matchFunction,
+            int sourceOffset, int targetOffset, int sourceSize, int targetSize)
+        {
+            super(sources, targets, matchFunction, sourceOffset, targetOffset, sourceSize, targetSize);
+
+            table = new int[sourceSize + 1][targetSize + 1];
+
+            for (int sourceIndex = sourceSize - 1; sourceIndex >= 0; sourceIndex--)
+            {
+                for (int targetIndex = targetSize - 1; targetIndex >= 0; targetIndex--)
+                {
+                    if (matches(sourceIndex, targetIndex))
+                    {
+                        table[sourceIndex][targetIndex] = table[sourceIndex + 1][targetIndex + 1] + 1;
+                    }
+                    else
+                    {
+                        table[sourceIndex][targetIndex] =
+                            Math.max(table[sourceIndex + 1][targetIndex], table[sourceIndex][targetIndex + 1]);
+                    }
+                }
+            }
+        }
+
+        @Override
+        boolean isInsertPreferred(int sourceIndex, int targetIndex)
+        {
+            return table[sourceIndex + 1][targetIndex] >= table[sourceIndex][targetIndex + 1];
+        }
+    }
+
+    /**
+     * Uses the O(ND) algorithm of Eugene W. Myers on the reversed lists. The algorithm computes the edit distances of
+     * the suffixes, the number of inserts and removes. A shorter distance is the same as a longer common subsequence.
+     * Needs O((N+M)*D) time and O(D^2) space, where D is the number of edits. Switches to the {@link Table}, if the
+     * lists are so different that the table would be smaller, or to the {@link LinearSpace} algorithm, if the table
+     * would exceed the cell budget.
+     *
+     * @param <SourceValue> the type of the source values
+     * @param <TargetValue> the type of the target values
+     */
+    static final class Myers<SourceValue, TargetValue> extends OrderedDiff<SourceValue, TargetValue>
+    {
+        private final long cellLimit;
+        private final long cellBudget;
+
+        /**
+         * The furthest reaching x on diagonal k with at most d edits, stored at levels[d][(k + d) / 2]. The x counts
+         * the values from the end of the source list, y the values from the end of the target list, and k is x - y.
+         */
+        private final List<int[]> levels = new ArrayList<>();
+
+        private long cellCount = 0;
+        private OrderedDiff<SourceValue, TargetValue> fallback;
+
+        Myers(SourceValue[] sources, TargetValue[] targets, MatchFunction<SourceValue, TargetValue> matchFunction,
+            long cellBudget)
+        {
+            this(sources, targets, matchFunction, 0, 0, sources.length, targets.length, cellBudget);
+        }
+
+        Myers(SourceValue[] sources, TargetValue[] targets, MatchFunction<SourceValue, TargetValue> matchFunction,
+            int sourceOffset, int targetOffset, int sourceSize, int targetSize, long cellBudget)
+        {
+            super(sources, targets, matchFunction, sourceOffset, targetOffset, sourceSize, targetSize);
+
+            this.cellBudget = cellBudget;
+
+            cellLimit = Math.min(tableSize(sourceSize, targetSize), cellBudget);
+
+            nextLevel();
+        }
+
+        @Override
+        boolean isInsertPreferred(int sourceIndex, int targetIndex)
+        {
+            if (fallback == null)
+            {
+                int insertDistance = distance(sourceSize - sourceIndex - 1, targetSize - targetIndex);
+                int removeDistance = distance(sourceSize - sourceIndex, targetSize - targetIndex - 1);
+
+                if (fallback == null)
+                {
+                    return insertDistance <= removeDistance;
+                }
+            }
+
+            return fallback.isInsertPreferred(sourceIndex, targetIndex);
+        }
+
+        /**
+         * Returns the edit distance between the last x source values and the last y target values. Computes further
+         * levels if necessary. Returns -1 and creates the fallback, if the levels get too large.
+         */
+        private int distance(int x, int y)
+        {
+            int k = x - y;
+            int minD = Math.abs(k);
+
+            while (true)
+            {
+                int maxD = levels.size() - 1;
+
+                if (maxD >= minD)
+                {
+                    maxD -= (maxD - minD) & 1;
+
+                    if (furthest(maxD, k) >= x)
+                    {
+                        // binary search over the levels with the same parity
+                        int low = 0;
+                        int high = (maxD - minD) / 2;
+
+                        while (low < high)
+                        {
+                            int mid = (low + high) >>> 1;
+
+                            if (furthest(minD + mid * 2, k) >= x)
+                            {
+                                high = mid;
+                            }
+                            else
+                            {
+                                low = mid + 1;
+                            }
+                        }
+
+                        return minD + low * 2;
+                    }
+                }
+
+                if (!nextLevel())
+                {
+                    return -1;
+                }
+            }
+        }
+
+        private int furthest(int d, int k)
+        {
+            return levels.get(d)[(k + d) / 2];
+        }
+
+        private boolean nextLevel()
+        {
+            if (fallback != null)
+            {
+                return false;
+            }
+
+            int d = levels.size();
+
+            cellCount += d + 1;
+
+            if (cellCount > cellLimit)
+            {
+                levels.clear();
+
+                if (tableSize(sourceSize, targetSize) <= cellBudget)
+                {
+                    fallback = new Table<>(sources, targets, matchFunction, sourceOffset, targetOffset, sourceSize,
+                        targetSize);
+                }
+                else
+                {
+                    fallback = new LinearSpace<>(sources, targets, matchFunction, sourceOffset, targetOffset,
+                        sourceSize, targetSize, cellBudget);
+                }
+
+                return false;
+            }
+
+            int[] level = new int[d + 1];
+            int[] previous = d > 0 ? levels.get(d - 1) : null;
+            int[] beforePrevious = d > 1 ? levels.get(d - 2) : null;
+
+            for (int k = -d; k <= d; k += 2)
+            {
+                int index = (k + d) / 2;
+
+                if (k < -targetSize || k > sourceSize)
+                {
+                    level[index] = -1;
+                    continue;
+                }
+
+                int minX = Math.max(0, k);
+                int maxX = Math.min(sourceSize, targetSize + k);
+                int x = minX;
+
+                if (beforePrevious != null && k > -d && k < d)
+                {
+                    // d - 2 edits reach at least as far
+                    x = Math.max(x, beforePrevious[index - 1]);
+                }
+
+                if (previous != null && k > -d && k - 1 >= -targetSize && previous[index - 1] >= 0)
+                {
+                    // step right (or up, at the end of the source)
+                    x = Math.max(x, Math.min(previous[index - 1] + 1, maxX));
+                }
+
+                if (previous != null && k < d && k + 1 <= sourceSize && previous[index] >= 0)
+                {
+                    // step down (or left, at the end of the target)
+                    x = Math.max(x, Math.min(previous[index], maxX));
+                }
+
+                int y = x - k;
+
+                while (x < sourceSize
+                    && y < targetSize
+                    && matches(sourceSize - x - 1, targetSize - y - 1))
+                {
+                    x++;
+                    y++;
+                }
+
+                level[index] = x;
+            }
+
+            levels.add(level);
+
+            return true;
+        }
+    }
+
+    /**
+     * Uses the table of the longest common subsequences, but keeps only some rows of it. The rows are computed from
+     * the end of the source list. The algorithm keeps the row in the middle of the remaining rows and divides the
+     * remaining rows again (like the algorithm of Daniel S. Hirschberg), until the rows fit into the cell budget. Since
+     * the source index never decreases, rows that have been passed are dropped. Needs O(N*M*log(N)) time and
+     * O(M*log(N)) space in addition to the cell budget.
+     *
+     * @param <SourceValue> the type of the source values
+     * @param <TargetValue> the type of the target values
+     */
+    static final class LinearSpace<SourceValue, TargetValue> extends OrderedDiff<SourceValue, TargetValue>
+    {
+        private final int maxBlockSize;
+
+        /**
+         * The kept rows, the row with the lowest source index is the last one.
+         */
+        private final List<int[]> rows = new ArrayList<>();
+        private final List<Integer> rowIndices = new ArrayList<>();
+
+        private final int[] firstBuffer;
+        private final int[] secondBuffer;
+
+        private int[][] block = new int[0][];
+        private int blockIndex = 0;
+
+        LinearSpace(SourceValue[] sources, TargetValue[] targets,
+            MatchFunction<SourceValue, TargetValue> matchFunction, long cellBudget)
+        {
+            this(sources, targets, matchFunction, 0, 0, sources.length, targets.length, cellBudget);
+        }
+
+        LinearSpace(SourceValue[] sources, TargetValue[] targets,
+            MatchFunction<SourceValue, TargetValue> matchFunction, int sourceOffset, int targetOffset, int sourceSize,
+            int targetSize, long cellBudget)
+        {
+            super(sources, targets, matchFunction, sourceOffset, targetOffset, sourceSize, targetSize);
+
+            maxBlockSize = (int) Math.max(2, Math.min(sourceSize + 1, cellBudget / (targetSize + 1)));
+
+            firstBuffer = new int[targetSize + 1];
+            secondBuffer = new int[targetSize + 1];
+
+            rows.add(new int[targetSize + 1]);
+            rowIndices.add(sourceSize);
+        }
+
+        @Override
+        boolean isInsertPreferred(int sourceIndex, int targetIndex)
+        {
+            if (sourceIndex < blockIndex || sourceIndex + 1 >= blockIndex + block.length)
+            {
+                computeBlock(sourceIndex);
+            }
+
+            return block[sourceIndex + 1 - blockIndex][targetIndex] >= block[sourceIndex - blockIndex][targetIndex
+                + 1];
+        }
+
+        private void computeBlock(int sourceIndex)
+        {
+            // drop the rows, that have been passed
+            while (rowIndices.get(rowIndices.size() - 1) <= sourceIndex)
+            {
+                rows.remove(rows.size() - 1);
+                rowIndices.remove(rowIndices.size() - 1);
+            }
+
+            int[] row = rows.get(rows.size() - 1);
+            int rowIndex = rowIndices.get(rowIndices.size() - 1);
+
+            // divide until the remaining rows fit into the block
+            while (rowIndex - sourceIndex + 1 > maxBlockSize)
+            {
+                int middleIndex = sourceIndex + (rowIndex - sourceIndex) / 2;
+
+                for (int i = rowIndex - 1; i >= middleIndex; i--)
+                {
+                    if (i == middleIndex)
+                    {
+                        row = computeRow(i, row, new int[targetSize + 1]);
+                    }
+                    else
+                    {
+                        row = computeRow(i, row, row == firstBuffer ? secondBuffer : firstBuffer);
+                    }
+                }
+
+                rowIndex = middleIndex;
+
+                rows.add(row);
+                rowIndices.add(rowIndex);
+            }
+
+            block = new int[rowIndex - sourceIndex + 1][];
+            blockIndex = sourceIndex;
+            block[block.length - 1] = row;
+
+            for (int i = block.length - 2; i >= 0; i--)
+            {
+                block[i] = computeRow(blockIndex + i, block[i + 1], new int[targetSize + 1]);
+            }
+        }
+
+        private int[] computeRow(int sourceIndex, int[] nextRow, int[] row)
+        {
+            for (int targetIndex = targetSize - 1; targetIndex >= 0; targetIndex--)
+            {
+                if (matches(sourceIndex, targetIndex))
+                {
+                    row[targetIndex] = nextRow[targetIndex + 1] + 1;
+                }
+                else
+                {
+                    row[targetIndex] = Math.max(nextRow[targetIndex], row[targetIndex + 1]);
+                }
+            }
+
+            return row;
+        }
+    }
+
+    /**
+     * Leaves out the values, that match at the end of both lists. If the last values match, the longest common
+     * subsequence contains them, so all decisions, that do not touch these values, are the same without them. If
+     * the walk reaches these values, the decisions are made by a new diff for the remaining values.
+     *
+     * @param <SourceValue> the type of the source values
+     * @param <TargetValue> the type of the target values
+     */
+    static final class Trimmed<SourceValue, TargetValue> extends OrderedDiff<SourceValue, TargetValue>
+    {
+        private final int suffixSize;
+        private final boolean linearSpace;
+        private final long cellBudget;
+
+        private OrderedDiff<SourceValue, TargetValue> diff;
+        private int diffSourceIndex = 0;
+        private int diffTargetIndex = 0;
+        private boolean trimmed = true;
+
+        Trimmed(SourceValue[] sources, TargetValue[] targets, MatchFunction<SourceValue, TargetValue> matchFunction,
+            int sourceOffset, int targetOffset, int sourceSize, int targetSize, int suffixSize, boolean linearSpace,
+            long cellBudget)
+        {
+            super(sources, targets, matchFunction, sourceOffset, targetOffset, sourceSize, targetSize);
+
+            this.suffixSize = suffixSize;
+            this.linearSpace = linearSpace;
+            this.cellBudget = cellBudget;
+        }
+
+        @Override
+        boolean isInsertPreferred(int sourceIndex, int targetIndex)
+        {
+            if (trimmed && (sourceIndex >= sourceSize - suffixSize || targetIndex >= targetSize - suffixSize))
+            {
+                // the walk has reached the trimmed values, use the remaining values
+                trimmed = false;
+                diff = null;
+            }
+
+            if (diff == null)
+            {
+                diffSourceIndex = sourceIndex;
+                diffTargetIndex = targetIndex;
+
+                if (trimmed)
+                {
+                    diff = OrderedDiff
+                        .create(sources, targets, matchFunction, sourceOffset + sourceIndex, targetOffset + targetIndex,
+                            sourceSize - suffixSize - sourceIndex, targetSize - suffixSize - targetIndex, linearSpace,
+                            cellBudget);
+                }
+                else
+                {
+                    diff = OrderedDiff
+                        .create(sources, targets, matchFunction, sourceOffset + sourceIndex, targetOffset + targetIndex,
+                            sourceSize - sourceIndex, targetSize - targetIndex, linearSpace, cellBudget);
+                }
+            }
+
+            return diff.isInsertPreferred(sourceIndex - diffSourceIndex, targetIndex - diffTargetIndex);
+        }
+    }
+
+}
@@ -0,0 +1,215 @@
+package at.porscheinformatik.antimapper;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Rescues target values in ordered mappings. Keeps the removed target values and searches the target values after the
+ * current one. If the match function is a {@link KeyedMatchFunction}, both searches use a hash index of the keys.
+ * Otherwise the values are compared one by one.
+ *
+ * @param <SourceValue> the type of the source values
+ * @param <TargetValue> the type of the target values
+ * @author ham
+ */
+final class OrderedRescue<SourceValue, TargetValue>
+{
+
+    private final TargetValue[] targets;
+    private final MatchFunction<SourceValue, TargetValue> matchFunction;
+    private final KeyedMatchFunction<SourceValue, TargetValue> keyedMatchFunction;
+
+    private final List<TargetValue> removedTargetValues = new ArrayList<>();
+    private final BitSet rescuedTargetValues = new BitSet();
+    private final KeyIndex<TargetValue> removedIndex;
+
+    /**
+     * The index of the target values ahead, created on demand.
+     */
+    private KeyIndex<TargetValue> aheadIndex;
+    private boolean[] stolen;
+
+    @SuppressWarnings("unchecked")
+    OrderedRescue(TargetValue[] targets, MatchFunction<SourceValue, TargetValue> matchFunction)
+    {
+        super();
+
+        this.targets = targets;
+        this.matchFunction = matchFunction;
+
+        if (matchFunction instanceof KeyedMatchFunction<?, ?>)
+        {
+            keyedMatchFunction = (KeyedMatchFunction<SourceValue, TargetValue>) matchFunction;
+            removedIndex = new KeyIndex<>(keyedMatchFunction::rightKeyOf, 16);
+        }
+        else
+        {
+            keyedMatchFunction = null;
+            removedIndex = null;
+        }
+    }
+
+    /**
+     * Remembers a target value, that has been removed.
+     *
+     * @param targetValue the target value, may be null
+     */
+    void addRemoved(TargetValue targetValue)
+    {
+        if (removedIndex != null)
+        {
+            removedIndex.add(removedTargetValues.size(), targetValue);
+        }
+
+        removedTargetValues.add(targetValue);
+    }
+
+    /**
+     * Searches the first removed target value, that matches the source value, and forgets it.
+     *
+     * @param sourceValue the source value, may be null
+     * @return the target value, null if there is none
+     */
+    TargetValue rescueRemoved(SourceValue sourceValue)
+    {
+        if (removedIndex != null)
+        {
+            KeyIndex.Entry<TargetValue> entry = removedIndex.poll(keyOf(sourceValue), null);
+
+            if (entry == null)
+            {
+                return null;
+            }
+
+            rescuedTargetValues.set(entry.position);
+
+            return entry.value;
+        }
+
+        for (int i = rescuedTargetValues.nextClearBit(0); i < removedTargetValues.size(); i =
+            rescuedTargetValues.nextClearBit(i + 1))
+        {
+            TargetValue currentTargetValue = removedTargetValues.get(i);
+
+            if (sourceValue == currentTargetValue
+                || (sourceValue != null
+                    && currentTargetValue != null
+                    && matchFunction.matches(sourceValue, currentTargetValue)))
+            {
+                rescuedTargetValues.set(i);
+
+                return currentTargetValue;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the removed target values, that have not been rescued, in the order of their removal.
+     *
+     * @return the target values
+     */
+    List<TargetValue> getRemovedTargetValues()
+    {
+        if (rescuedTargetValues.isEmpty())
+        {
+            return removedTargetValues;
+        }
+
+        List<TargetValue> result = new ArrayList<>(removedTargetValues.size() - rescuedTargetValues.cardinality());
+
+        for (int i = rescuedTargetValues.nextClearBit(0); i < removedTargetValues.size(); i =
+            rescuedTargetValues.nextClearBit(i + 1))
+        {
+            result.add(removedTargetValues.get(i));
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the index of the next target value, that has not been rescued ahead.
+     *
+     * @param readIndex the index of the current target value
+     * @return the index of the next target value, the number of target values if there is none
+     */
+    int next(int readIndex)
+    {
+        readIndex++;
+
+        while (readIndex < targets.length && stolen != null && stolen[readIndex])
+        {
+            readIndex++;
+        }
+
+        return readIndex;
+    }
+
+    /**
+     * Searches the first target value after the current one, that matches the source value, and marks it as rescued.
+     * The read index must never decrease between two calls.
+     *
+     * @param sourceValue the source value, may be null
+     * @param readIndex the index of the current target value
+     * @return the target value, null if there is none
+     */
+    TargetValue rescueAhead(SourceValue sourceValue, int readIndex)
+    {
+        int index = -1;
+
+        if (keyedMatchFunction == null)
+        {
+            for (int i = next(readIndex); i < targets.length; i = next(i))
+            {
+                if (matchFunction.matches(sourceValue, targets[i]))
+                {
+                    index = i;
+                    break;
+                }
+            }
+        }
+        else
+        {
+            if (aheadIndex == null)
+            {
+                aheadIndex = new KeyIndex<>(keyedMatchFunction::rightKeyOf, targets.length);
+
+                for (int i = readIndex + 1; i < targets.length; i++)
+                {
+                    aheadIndex.add(i, targets[i]);
+                }
+            }
+
+            // rescued values have been removed from the index already
+            KeyIndex.Entry<TargetValue> match =
+                aheadIndex.poll(keyOf(sourceValue), entry -> entry.position <= readIndex);
+
+            if (match != null)
+            {
+                index = match.position;
+            }
+        }
+
+        if (index < 0)
+        {
+            return null;
+        }
+
+        if (stolen == null)
+        {
+            stolen = new boolean[targets.length];
+        }
+
+        stolen[index] = true;
+
+        return targets[index];
+    }
+
+    private Object keyOf(SourceValue sourceValue)
+    {
+        return sourceValue != null ? keyedMatchFunction.leftKeyOf(sourceValue) : KeyIndex.keyOfNull();
+    }
+
+}
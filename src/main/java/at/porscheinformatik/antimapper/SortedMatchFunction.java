@@ -0,0 +1,72 @@
+package at.porscheinformatik.antimapper;
+
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * A {@link KeyedMatchFunction} that can order the keys. If the target collection is a {@link java.util.SortedSet} and
+ * the order of the keys is consistent with the comparator of the set, the mapping utilities sort the objects once and
+ * walk both sequences in lockstep, instead of using a hash index. If the keys turn out not to be consistent with the
+ * set, or if there are null objects or null keys, the hash index is used as usual.
+ *
+ * @param <DTO> the type of the left object
+ * @param <Entity> the type of the right object
+ * @author ham
+ */
+public interface SortedMatchFunction<DTO, Entity> extends KeyedMatchFunction<DTO, Entity>
+{
+
+    /**
+     * Creates a {@link SortedMatchFunction} using the specified key functions and the comparator of the keys.
+     *
+     * @param <DTO> the type of the left object
+     * @param <Entity> the type of the right object
+     * @param <Key> the type of the keys
+     * @param leftKeyFunction the function extracting the key of the left object, never called with null
+     * @param rightKeyFunction the function extracting the key of the right object, never called with null
+     * @param keyComparator the comparator for the keys, never called with null
+     * @return the match function
+     */
+    static <DTO, Entity, Key> SortedMatchFunction<DTO, Entity> of(Function<? super DTO, ? extends Key> leftKeyFunction,
+        Function<? super Entity, ? extends Key> rightKeyFunction, Comparator<? super Key> keyComparator)
+    {
+        Objects.requireNonNull(leftKeyFunction);
+        Objects.requireNonNull(rightKeyFunction);
+        Objects.requireNonNull(keyComparator);
+
+        return new SortedMatchFunction<DTO, Entity>()
+        {
+            @Override
+            public Object leftKeyOf(DTO left)
+            {
+                return leftKeyFunction.apply(left);
+            }
+
+            @Override
+            public Object rightKeyOf(Entity right)
+            {
+                return rightKeyFunction.apply(right);
+            }
+
+            @SuppressWarnings("unchecked")
+            @Override
+            public int compareKeys(Object leftKey, Object rightKey)
+            {
+                return keyComparator.compare((Key) leftKey, (Key) rightKey);
+            }
+        };
+    }
+
+    /**
+     * Compares two keys. The keys may be keys of left or of right objects. The order must be consistent with
+     * {@link Object#equals(Object)} of the keys.
+     *
+     * @param leftKey the first key, never null
+     * @param rightKey the second key, never null
+     * @return a negative integer, zero, or a positive integer as the first key is less than, equal to, or greater than
+     *         the second key
+     */
+    int compareKeys(Object leftKey, Object rightKey);
+
+}
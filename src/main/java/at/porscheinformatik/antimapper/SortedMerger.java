@@ -0,0 +1,32 @@
+package at.porscheinformatik.antimapper;
+
+/**
+ * A {@link KeyedMerger} with ordered keys. Merges into {@link java.util.SortedSet}s sort the DTOs by their keys and
+ * walk the DTOs and the entities in lockstep, if the entities are sorted by their keys, too. Otherwise they fall back
+ * to the hash index of the {@link KeyedMerger}.
+ *
+ * @author ham
+ * @param <DTO> the dto type
+ * @param <Entity> the entity type
+ */
+public interface SortedMerger<DTO, Entity> extends KeyedMerger<DTO, Entity>
+{
+
+    /**
+     * Compares two unique keys, as returned by {@link #getDTOUniqueKey(Object, Object...)} and
+     * {@link #getEntityUniqueKey(Object, Object...)}. The default implementation uses the natural order of the keys.
+     * The order should be consistent with the comparator of the sorted sets, the entities are merged into.
+     *
+     * @param leftKey the first key, never null
+     * @param rightKey the second key, never null
+     * @param hints optional hints
+     * @return a negative integer, zero, or a positive integer as the first key is less than, equal to, or greater than
+     *         the second key
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    default int compareUniqueKeys(Object leftKey, Object rightKey, Object... hints)
+    {
+        return ((Comparable) leftKey).compareTo(rightKey);
+    }
+
+}
@@ -13,6 +13,10 @@ import java.util.function.Supplier;
 
 /**
  * A merger working on the items of a stream
+ * <p>
+ * Pass a {@link MergeResult} as hint to find out, whether the merge has changed anything. The mergers must report the
+ * modifications of existing entities themselves, see {@link AbstractMerger#isReportingModifications()}. If they do not,
+ * each merge of an existing entity counts as change, and {@link MergeResult#isChanged()} is true.
  *
  * @author HAM
  *
@@ -25,8 +29,14 @@ public interface StreamMerger<DTO, Entity>
     /**
      * Maps a collection to a collection. Ignores the order. If the entities parameter is null, it creates a
      * {@link Collection} if necessary. Ignores DTOs that merge to null, unless the {@link Hint#KEEP_NULL} hint is set.
-     * Returns an unmodifiable instance if the {@link Hint#UNMODIFIABLE} is set (always creates a new result object in
-     * this case, merging the entities). Never returns null if the {@link Hint#OR_EMPTY} is set.
+     * Returns an unmodifiable instance if the {@link Hint#UNMODIFIABLE} is set (creates a new result object in this
+     * case, that shares the entities until the merge modifies them). Never returns null if the {@link Hint#OR_EMPTY}
+     * is set.
+     * <p>
+     * With the {@link Hint#UNMODIFIABLE} hint, the entities are copied into a collection of the factory only if the
+     * merge modifies them. If it does not, the factory is not called and the result is an unmodifiable view of the
+     * entities parameter itself: its type and comparator are kept, and later modifications of the entities parameter
+     * are visible in the result.
      *
      * @param <EntityCollection> the type of the collection
      * @param entities the entities, may be null
@@ -39,8 +49,15 @@ public interface StreamMerger<DTO, Entity>
     /**
      * Maps a collection to a collection. Keeps the order. If the entities parameter is null, it creates a
      * {@link Collection} if necessary. Ignores DTOs that merge to null, unless the {@link Hint#KEEP_NULL} hint is set.
-     * Returns an unmodifiable instance if the {@link Hint#UNMODIFIABLE} is set (always creates a new result object in
-     * this case). Never returns null if the {@link Hint#OR_EMPTY} is set.
+     * Returns an unmodifiable instance if the {@link Hint#UNMODIFIABLE} is set (creates a new result object in this
+     * case, that shares the entities until the merge modifies them). Never returns null if the {@link Hint#OR_EMPTY}
+     * is set.
+     * <p>
+     * With the {@link Hint#UNMODIFIABLE} hint, the entities are copied into a collection of the factory only if the
+     * merge modifies them. If it does not, the factory is not called and the result is an unmodifiable view of the
+     * entities parameter itself: its type and comparator are kept, and later modifications of the entities parameter
+     * are visible in the result. A {@link SortedSet} is always copied, because the merge may have changed the sort
+     * keys.
      *
      * @param <EntityCollection> the type of the collection
      * @param entities the entities, may be null
@@ -50,11 +67,51 @@ public interface StreamMerger<DTO, Entity>
     <EntityCollection extends Collection<Entity>> EntityCollection intoOrderedCollection(EntityCollection entities,
         Supplier<EntityCollection> entityCollectionFactory);
 
+    /**
+     * Plans the merge of {@link #intoMixedCollection(Collection, Supplier)} without touching the entities. The plan
+     * lists the updated, created and deleted entities. Execute it with {@link #apply(MergePlan)}, as long as the
+     * entities have not been modified.
+     *
+     * @param <EntityCollection> the type of the collection
+     * @param entities the entities, may be null
+     * @param entityCollectionFactory a factory for the needed collection
+     * @return the plan
+     */
+    <EntityCollection extends Collection<Entity>> MergePlan<Entity, EntityCollection> planMixedCollection(
+        EntityCollection entities, Supplier<EntityCollection> entityCollectionFactory);
+
+    /**
+     * Plans the merge of {@link #intoOrderedCollection(Collection, Supplier)} without touching the entities. The plan
+     * lists the updated, created, deleted and moved entities. Execute it with {@link #apply(MergePlan)}, as long as
+     * the entities have not been modified.
+     *
+     * @param <EntityCollection> the type of the collection
+     * @param entities the entities, may be null
+     * @param entityCollectionFactory a factory for the needed collection
+     * @return the plan
+     */
+    <EntityCollection extends Collection<Entity>> MergePlan<Entity, EntityCollection> planOrderedCollection(
+        EntityCollection entities, Supplier<EntityCollection> entityCollectionFactory);
+
+    /**
+     * Executes a plan, created by this merger. Merges the entities of the plan, without matching them again, and
+     * rebuilds the collection, if the plan is structural. The hints are handled like by the merge, the plan has been
+     * created for. An empty plan does not touch the collection at all.
+     *
+     * @param <EntityCollection> the type of the collection
+     * @param plan the plan
+     * @return the collection
+     * @throws IllegalArgumentException if the plan has been created by another merger
+     * @throws MapperException if the entities have been modified after planning, or if the merge fails
+     */
+    <EntityCollection extends Collection<Entity>> EntityCollection apply(MergePlan<Entity, EntityCollection> plan);
+
     /**
      * Maps a collection to a collection. If the entities parameter is null, it creates a {@link HashSet} if necessary.
      * Ignores DTOs that merge to null, unless the {@link Hint#KEEP_NULL} hint is set. Returns an unmodifiable instance
-     * if the {@link Hint#UNMODIFIABLE} is set (always creates a new result object in this case). Never returns null if
-     * the {@link Hint#OR_EMPTY} is set.
+     * if the {@link Hint#UNMODIFIABLE} is set (creates a new result object in this case, that shares the entities until
+     * the merge modifies them, see {@link #intoMixedCollection(Collection, Supplier)}). Never returns null if the
+     * {@link Hint#OR_EMPTY} is set.
      *
      * @param entities the entities, may be null
      * @return a collection
@@ -67,8 +124,9 @@ public interface StreamMerger<DTO, Entity>
     /**
      * Maps a collection to a collection. If the entities parameter is null, it creates a {@link LinkedHashSet} if
      * necessary. Ignores DTOs that merge to null, unless the {@link Hint#KEEP_NULL} hint is set. Returns an
-     * unmodifiable instance if the {@link Hint#UNMODIFIABLE} is set (always creates a new result object in this case).
-     * Never returns null if the {@link Hint#OR_EMPTY} is set.
+     * unmodifiable instance if the {@link Hint#UNMODIFIABLE} is set (creates a new result object in this case, that
+     * shares the entities until the merge modifies them, see {@link #intoMixedCollection(Collection, Supplier)}). Never
+     * returns null if the {@link Hint#OR_EMPTY} is set.
      *
      * @param entities the entities, may be null
      * @return a collection
@@ -81,8 +139,9 @@ public interface StreamMerger<DTO, Entity>
     /**
      * Maps a collection to a collection. If the entities parameter is null, it creates a {@link TreeSet} if necessary.
      * Ignores DTOs that merge to null, unless the {@link Hint#KEEP_NULL} hint is set. Returns an unmodifiable instance
-     * if the {@link Hint#UNMODIFIABLE} is set (always creates a new result object in this case). Never returns null if
-     * the {@link Hint#OR_EMPTY} is set.
+     * if the {@link Hint#UNMODIFIABLE} is set (creates a new result object in this case, that shares the entities until
+     * the merge modifies them, see {@link #intoMixedCollection(Collection, Supplier)}). Never returns null if the
+     * {@link Hint#OR_EMPTY} is set.
      *
      * @param entities the entities, may be null
      * @return a collection
@@ -96,8 +155,9 @@ public interface StreamMerger<DTO, Entity>
     /**
      * Maps a collection to a collection. If the entities parameter is null, it creates a {@link TreeSet} if necessary.
      * Ignores DTOs that merge to null, unless the {@link Hint#KEEP_NULL} hint is set. Returns an unmodifiable instance
-     * if the {@link Hint#UNMODIFIABLE} is set (always creates a new result object in this case). Never returns null if
-     * the {@link Hint#OR_EMPTY} is set.
+     * if the {@link Hint#UNMODIFIABLE} is set (creates a new result object in this case, that shares the entities until
+     * the merge modifies them, see {@link #intoMixedCollection(Collection, Supplier)}). Never returns null if the
+     * {@link Hint#OR_EMPTY} is set.
      *
      * @param entities the entities, may be null
      * @param comparator the comparator for the tree set, will only be used for the create method
@@ -111,8 +171,9 @@ public interface StreamMerger<DTO, Entity>
     /**
      * Maps a collection to a list. If the entities parameter is null, it creates an {@link ArrayList} if necessary.
      * Ignores DTOs that merge to null, unless the {@link Hint#KEEP_NULL} hint is set. Returns an unmodifiable instance
-     * if the {@link Hint#UNMODIFIABLE} is set (always creates a new result object in this case). Never returns null if
-     * the {@link Hint#OR_EMPTY} is set.
+     * if the {@link Hint#UNMODIFIABLE} is set (creates a new result object in this case, that shares the entities until
+     * the merge modifies them, see {@link #intoOrderedCollection(Collection, Supplier)}). Never returns null if the
+     * {@link Hint#OR_EMPTY} is set.
      *
      * @param entities the entities, may be null
      * @return a collection
@@ -108,6 +108,16 @@ public interface StreamTransformer<DTO, Entity>
         return toCollection(ArrayList::new);
     }
 
+    /**
+     * Returns an unmodifiable list view of the DTOs, that transforms each entity on first access and caches the DTO.
+     * Entities that are never accessed are never transformed. The list contains null for entities that transform to
+     * null, as if the {@link Hint#KEEP_NULL} was set. The view is backed by the source, if it is a {@link List} with
+     * random access, the source must not be modified then. Never returns null if the {@link Hint#OR_EMPTY} is set.
+     *
+     * @return a list view
+     */
+    List<DTO> toLazyList();
+
     /**
      * Transforms the stream to a {@link Map} of DTOs. Ignores entities that transform to null, unless the
      * {@link Hint#KEEP_NULL} hint is set. This method does not group results. DTOs with the same key will overwrite
@@ -137,6 +147,19 @@ public interface StreamTransformer<DTO, Entity>
         return toMap(HashMap<Key, DTO>::new, keyFunction);
     }
 
+    /**
+     * Returns an unmodifiable map view of the DTOs, that transforms each entity on first access of its value and caches
+     * the DTO. The keys are extracted from all entities at once, thus the size and the keys are known without
+     * transforming the entities. DTOs with the same key will overwrite each other. The map contains null for entities
+     * that transform to null, as if the {@link Hint#KEEP_NULL} was set. Never returns null if the {@link Hint#OR_EMPTY}
+     * is set.
+     *
+     * @param <Key> the type of the key
+     * @param keyFunction the function to extract the key from one entity
+     * @return a map view
+     */
+    <Key> Map<Key, DTO> toLazyMap(Function<Entity, Key> keyFunction);
+
     /**
      * Transforms the stream to a grouped {@link Map} of DTOs. Ignores entities that transform to null, unless the
      * {@link Hint#KEEP_NULL} hint is set. Returns an unmodifiable instance if the {@link Hint#UNMODIFIABLE} is set.
@@ -0,0 +1,143 @@
+package at.porscheinformatik.antimapper;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the DTOs created by the transformers. Pass a new scope as hint to a top-level transformation, and the
+ * {@link AbstractTransformer}s and {@link AbstractMapper}s return the DTO they already created for the same entity
+ * instance, instead of creating a new one. Shared entities, e.g. a product referenced by multiple order lines, are
+ * transformed only once.
+ * <p>
+ * A cyclic reference to an entity, whose DTO is still being created, fails with a {@link MapperException}, because
+ * the reference could not be resolved. Call {@link #put(Object, Object, Object)} in the transformer as soon as the DTO
+ * exists, to resolve the cycle.
+ * <p>
+ * A scope is thread-safe, but it is meant for one transformation. Do not reuse it, it holds references to all DTOs.
+ *
+ * @author ham
+ */
+public final class TransformScope
+{
+
+    private static final Object NULL = new Object();
+
+    /**
+     * Marks an entity, that is being transformed by the thread.
+     */
+    private static final class InProgress
+    {
+        private final Thread thread = Thread.currentThread();
+    }
+
+    private final Map<Object, Map<Object, Object>> dtosByTransformer = new IdentityHashMap<>();
+
+    public TransformScope()
+    {
+        super();
+    }
+
+    /**
+     * Remembers the DTO of the entity. Call it in the transformer, as soon as the DTO exists, if the entity may be
+     * referenced by its own children.
+     *
+     * @param transformer the transformer
+     * @param entity the entity, never null
+     * @param dto the DTO
+     */
+    public synchronized void put(Object transformer, Object entity, Object dto)
+    {
+        dtosOf(transformer).put(entity, dto != null ? dto : NULL);
+    }
+
+    /**
+     * Returns the DTO of the entity, if already known. Executes the transformation otherwise and remembers the result.
+     *
+     * @param <DTO> the type of the DTO
+     * @param transformer the transformer
+     * @param entity the entity, never null
+     * @param transformation the transformation
+     * @return the DTO
+     * @throws MapperException on a cyclic reference, if the DTO of the entity has not been registered with
+     *             {@link #put(Object, Object, Object)}
+     */
+    @SuppressWarnings("unchecked")
+    <DTO> DTO transform(Object transformer, Object entity, Supplier<DTO> transformation)
+    {
+        InProgress inProgress = null;
+
+        synchronized (this)
+        {
+            Map<Object, Object> dtos = dtosOf(transformer);
+            Object dto = dtos.get(entity);
+
+            if (dto == null)
+            {
+                inProgress = new InProgress();
+
+                dtos.put(entity, inProgress);
+            }
+            else if (!(dto instanceof InProgress))
+            {
+                return dto != NULL ? (DTO) dto : null;
+            }
+            else if (((InProgress) dto).thread == Thread.currentThread())
+            {
+                throw new MapperException(
+                    "Cyclic reference to %s, that is still being transformed. Call TransformScope.put(..) in the "
+                        + "transformer, as soon as the DTO exists.",
+                    MapperUtils.abbreviate(String.valueOf(entity), 256));
+            }
+        }
+
+        if (inProgress == null)
+        {
+            // another thread is transforming the same entity, just transform it once more
+            return transformation.get();
+        }
+
+        DTO dto;
+
+        try
+        {
+            dto = transformation.get();
+        }
+        catch (RuntimeException | Error e)
+        {
+            synchronized (this)
+            {
+                dtosOf(transformer).remove(entity, inProgress);
+            }
+
+            throw e;
+        }
+
+        synchronized (this)
+        {
+            Map<Object, Object> dtos = dtosOf(transformer);
+            Object existingDto = dtos.get(entity);
+
+            if (existingDto != inProgress)
+            {
+                // the transformer has registered the DTO already
+                return (DTO) unwrap(existingDto);
+            }
+
+            dtos.put(entity, dto != null ? dto : NULL);
+        }
+
+        return dto;
+    }
+
+    private Map<Object, Object> dtosOf(Object transformer)
+    {
+        return dtosByTransformer.computeIfAbsent(transformer, key -> new IdentityHashMap<>());
+    }
+
+    private static Object unwrap(Object dto)
+    {
+        return dto != NULL ? dto : null;
+    }
+
+}
@@ -4,6 +4,7 @@ import java.util.Collection;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
@@ -51,7 +52,44 @@ public interface Transformer<DTO, Entity> extends HintsProvider
      */
     default StreamTransformer<DTO, Entity> transformAll(Iterable<? extends Entity> entities, Object... hints)
     {
-        return transformAll(() -> MapperUtils.streamOrNull(entities), hints);
+        return new AbstractStreamTransformer<DTO, Entity, Entity>(() -> MapperUtils.streamOrNull(entities), hints)
+        {
+            @Override
+            protected DTO transform(Entity container, Object[] hints)
+            {
+                return Transformer.this.transform(container, hints);
+            }
+
+            @Override
+            protected <Key> Key toKey(Function<Entity, Key> keyFunction, Entity container)
+            {
+                return keyFunction.apply(container);
+            }
+
+            @Override
+            protected Entity toEntity(Entity container)
+            {
+                return container;
+            }
+
+            @Override
+            protected Object[] getTransformerHints()
+            {
+                return getDefaultHints();
+            }
+
+            @Override
+            protected Collection<? extends Entity> getSourceCollection()
+            {
+                return entities instanceof Collection ? (Collection<? extends Entity>) entities : null;
+            }
+
+            @Override
+            protected BatchTransformer<DTO, Entity> getBatchTransformer()
+            {
+                return batchTransformerOf(Transformer.this);
+            }
+        };
     }
 
     /**
@@ -96,11 +134,23 @@ public interface Transformer<DTO, Entity> extends HintsProvider
                 return keyFunction.apply(container);
             }
 
+            @Override
+            protected Entity toEntity(Entity container)
+            {
+                return container;
+            }
+
             @Override
             protected Object[] getTransformerHints()
             {
                 return getDefaultHints();
             }
+
+            @Override
+            protected BatchTransformer<DTO, Entity> getBatchTransformer()
+            {
+                return batchTransformerOf(Transformer.this);
+            }
         };
     }
 
@@ -121,7 +171,7 @@ public interface Transformer<DTO, Entity> extends HintsProvider
             @Override
             protected DTO transform(Entry<?, ? extends Entity> container, Object[] hints)
             {
-                return Transformer.this.transform(container.getValue(), Hints.join(hints, container.getKey()));
+                return Transformer.this.transform(container.getValue(), Hints.push(hints, container.getKey()));
             }
 
             @Override
@@ -130,11 +180,29 @@ public interface Transformer<DTO, Entity> extends HintsProvider
                 return keyFunction.apply(container.getValue());
             }
 
+            @Override
+            protected Entity toEntity(Entry<?, ? extends Entity> container)
+            {
+                return container.getValue();
+            }
+
             @Override
             protected Object[] getTransformerHints()
             {
                 return getDefaultHints();
             }
+
+            @Override
+            protected Collection<? extends Entry<?, ? extends Entity>> getSourceCollection()
+            {
+                return entities != null ? entities.entrySet() : null;
+            }
+
+            @Override
+            protected BatchTransformer<DTO, Entity> getBatchTransformer()
+            {
+                return batchTransformerOf(Transformer.this);
+            }
         };
     }
 
@@ -159,7 +227,7 @@ public interface Transformer<DTO, Entity> extends HintsProvider
             @Override
             protected DTO transform(Pair<? extends GroupKey, ? extends Entity> container, Object[] hints)
             {
-                return Transformer.this.transform(Pair.rightOf(container), Hints.join(hints, Pair.leftOf(container)));
+                return Transformer.this.transform(Pair.rightOf(container), Hints.push(hints, Pair.leftOf(container)));
             }
 
             @Override
@@ -169,11 +237,23 @@ public interface Transformer<DTO, Entity> extends HintsProvider
                 return keyFunction.apply(Pair.rightOf(container));
             }
 
+            @Override
+            protected Entity toEntity(Pair<? extends GroupKey, ? extends Entity> container)
+            {
+                return Pair.rightOf(container);
+            }
+
             @Override
             protected Object[] getTransformerHints()
             {
                 throw new UnsupportedOperationException("Method \"getTransformerHints(..)\" not implemented");
             }
+
+            @Override
+            protected BatchTransformer<DTO, Entity> getBatchTransformer()
+            {
+                return batchTransformerOf(Transformer.this);
+            }
         };
     }
 
@@ -273,7 +353,7 @@ public interface Transformer<DTO, Entity> extends HintsProvider
             @Override
             protected DTO transform(Pair<ParentEntity, Entity> container, Object[] hints)
             {
-                return Transformer.this.transform(Pair.rightOf(container), Hints.join(hints, Pair.leftOf(container)));
+                return Transformer.this.transform(Pair.rightOf(container), Hints.push(hints, Pair.leftOf(container)));
             }
 
             @Override
@@ -282,11 +362,61 @@ public interface Transformer<DTO, Entity> extends HintsProvider
                 return keyFunction.apply(Pair.rightOf(container));
             }
 
+            @Override
+            protected Entity toEntity(Pair<ParentEntity, Entity> container)
+            {
+                return Pair.rightOf(container);
+            }
+
+            @Override
+            protected boolean isTransformableDirectly()
+            {
+                return true;
+            }
+
+            @Override
+            protected boolean forEachTransformedDirectly(BiConsumer<? super Entity, ? super DTO> consumer)
+            {
+                Stream<? extends ParentEntity> parentStream = parentsStreamSupplier.get();
+
+                if (parentStream == null)
+                {
+                    return false;
+                }
+
+                // pushes the parent once per parent, instead of creating a pair for each entity
+                parentStream.forEach(parentEntity -> {
+                    if (parentEntity == null)
+                    {
+                        return;
+                    }
+
+                    Stream<? extends Entity> stream = mapper.apply(parentEntity);
+
+                    if (stream == null)
+                    {
+                        return;
+                    }
+
+                    Object[] parentHints = Hints.push(hints, parentEntity);
+
+                    stream.forEach(entity -> consumer.accept(entity, Transformer.this.transform(entity, parentHints)));
+                });
+
+                return true;
+            }
+
             @Override
             protected Object[] getTransformerHints()
             {
                 return getDefaultHints();
             }
+
+            @Override
+            protected BatchTransformer<DTO, Entity> getBatchTransformer()
+            {
+                return batchTransformerOf(Transformer.this);
+            }
         };
     }
 
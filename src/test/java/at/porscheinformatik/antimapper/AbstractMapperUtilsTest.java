@@ -18,6 +18,9 @@ import org.junit.Assert;
 public abstract class AbstractMapperUtilsTest
 {
 
+    protected static final KeyedMatchFunction<SourceItem, TargetItem> KEYED_MATCH_FUNCTION =
+        KeyedMatchFunction.of(SourceItem::getKey, TargetItem::getKey);
+
     protected enum Change
     {
         SAME,
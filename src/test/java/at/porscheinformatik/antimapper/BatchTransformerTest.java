@@ -0,0 +1,139 @@
+package at.porscheinformatik.antimapper;
+
+import static at.porscheinformatik.antimapper.TestUtils.*;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.junit.Test;
+
+public class BatchTransformerTest implements BatchTransformer<String, String>
+{
+
+    private final List<List<String>> batches = new ArrayList<>();
+    private final Set<String> prepared = new HashSet<>();
+
+    @Override
+    public int getBatchSize(Object... hints)
+    {
+        return 2;
+    }
+
+    @Override
+    public void transformBatch(List<? extends String> entities, Object... hints)
+    {
+        batches.add(new ArrayList<>(entities));
+        prepared.addAll(entities);
+    }
+
+    @Override
+    public String transform(String entity, Object... hints)
+    {
+        assertThat("Entity was not prepared: " + entity, prepared.contains(entity), is(true));
+
+        return entity != null ? entity.toUpperCase() : null;
+    }
+
+    @Test
+    public void testToArrayList()
+    {
+        List<String> dtos = transformAll(toList("a", "b", "c", null, "e")).toArrayList();
+
+        assertThat(dtos, is(toList("A", "B", "C", "E")));
+        assertThat(batches, is(toList(toList("a", "b"), toList("c", null), toList("e"))));
+    }
+
+    @Test
+    public void testToHashMap()
+    {
+        Map<String, String> dtos = transformAll(toList("a", "b", "c")).toHashMap(entity -> entity);
+
+        assertThat(dtos, is(toMap("a", "A", "b", "B", "c", "C")));
+        assertThat(batches, is(toList(toList("a", "b"), toList("c"))));
+    }
+
+    @Test
+    public void testToGroupedArrayLists()
+    {
+        Map<Integer, List<String>> dtos =
+            transformAll(toList("a", "bb", "c", "dd", "e")).toGroupedArrayLists(String::length);
+
+        assertThat(dtos, is(toMap(1, toList("A", "C", "E"), 2, toList("BB", "DD"))));
+        assertThat(batches, is(toList(toList("a", "bb"), toList("c", "dd"), toList("e"))));
+    }
+
+    @Test
+    public void testParallel()
+    {
+        List<String> entities = new ArrayList<>();
+
+        for (int i = 0; i < 100; i++)
+        {
+            entities.add("e" + i);
+        }
+
+        List<String> dtos = transformAll(entities, Hint.PARALLEL).toArrayList();
+
+        assertThat(dtos.size(), is(100));
+        assertThat(dtos.get(99), is("E99"));
+        assertThat(batches.size(), is(50));
+    }
+
+    @Test
+    public void testEmpty()
+    {
+        List<String> dtos = transformAll(new ArrayList<String>()).toArrayList();
+
+        assertThat(dtos, is(toList()));
+        assertThat(batches, is(toList()));
+    }
+
+    @Test
+    public void testToEntity()
+    {
+        List<String[]> containers = toList(new String[]{"1", "a"}, new String[]{"2", "b"}, new String[]{"3", "c"});
+        StreamTransformer<String, String> transformer =
+            new AbstractStreamTransformer<String, String, String[]>(containers::stream)
+            {
+                @Override
+                protected String transform(String[] container, Object[] hints)
+                {
+                    return BatchTransformerTest.this.transform(container[1], hints);
+                }
+
+                @Override
+                protected <Key> Key toKey(Function<String, Key> keyFunction, String[] container)
+                {
+                    throw new UnsupportedOperationException("Keys are not supported");
+                }
+
+                @Override
+                protected String toEntity(String[] container)
+                {
+                    return container[1];
+                }
+
+                @Override
+                protected Object[] getTransformerHints()
+                {
+                    return new Object[0];
+                }
+
+                @Override
+                protected BatchTransformer<String, String> getBatchTransformer()
+                {
+                    return BatchTransformerTest.this;
+                }
+            };
+
+        assertThat(transformer.toArrayList(), is(toList("A", "B", "C")));
+        assertThat(batches, is(toList(toList("a", "b"), toList("c"))));
+    }
+
+}
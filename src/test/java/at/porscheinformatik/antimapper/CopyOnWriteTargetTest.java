@@ -0,0 +1,148 @@
+package at.porscheinformatik.antimapper;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+public class CopyOnWriteTargetTest
+{
+
+    @Test
+    public void testUnchangedList()
+    {
+        List<String> original = new ArrayList<>(Arrays.asList("A", "B", "C"));
+        CopyOnWriteTarget<String, List<String>> target = new CopyOnWriteTarget<>(original, ArrayList::new);
+        List<String> view = (List<String>) target.view();
+
+        assertThat(view instanceof RandomAccess, is(true));
+
+        view.set(1, original.get(1));
+        view.removeIf(value -> value.equals("X"));
+        view.addAll(new ArrayList<>());
+        view.subList(3, 3).clear();
+
+        assertThat(view, is(Arrays.asList("A", "B", "C")));
+        assertThat(target.isCopied(), is(false));
+        assertThat(target.get(), sameInstance(original));
+    }
+
+    @Test
+    public void testChangedList()
+    {
+        List<String> original = new ArrayList<>(Arrays.asList("A", "B", "C", "D"));
+        CopyOnWriteTarget<String, List<String>> target = new CopyOnWriteTarget<>(original, ArrayList::new);
+        List<String> view = (List<String>) target.view();
+
+        view.set(0, "X");
+        view.subList(2, 4).clear();
+        view.add("Y");
+
+        assertThat(target.isCopied(), is(true));
+        assertThat(target.get(), is(Arrays.asList("X", "B", "Y")));
+        assertThat(view, is(Arrays.asList("X", "B", "Y")));
+        assertThat(original, is(Arrays.asList("A", "B", "C", "D")));
+    }
+
+    @Test
+    public void testChangedLinkedList()
+    {
+        List<String> original = new LinkedList<>(Arrays.asList("A", "B", "C"));
+        CopyOnWriteTarget<String, List<String>> target = new CopyOnWriteTarget<>(original, LinkedList::new);
+        List<String> view = (List<String>) target.view();
+
+        assertThat(view instanceof RandomAccess, is(false));
+
+        Iterator<String> iterator = view.iterator();
+
+        iterator.next();
+        iterator.next();
+        iterator.remove();
+
+        assertThat(target.get(), is(Arrays.asList("A", "C")));
+        assertThat(original, is(Arrays.asList("A", "B", "C")));
+    }
+
+    @Test
+    public void testSet()
+    {
+        Set<String> original = new LinkedHashSet<>(Arrays.asList("A", "B", "C"));
+        CopyOnWriteTarget<String, Set<String>> target = new CopyOnWriteTarget<>(original, LinkedHashSet::new);
+        Collection<String> view = target.view();
+
+        view.remove("X");
+        view.removeIf(value -> value.equals("X"));
+
+        assertThat(target.isCopied(), is(false));
+
+        view.removeIf(value -> value.equals("B"));
+        view.add("D");
+
+        assertThat(target.get(), is(new LinkedHashSet<>(Arrays.asList("A", "C", "D"))));
+        assertThat(original, is(new LinkedHashSet<>(Arrays.asList("A", "B", "C"))));
+    }
+
+    @Test
+    public void testSortedSet()
+    {
+        Set<String> original = new TreeSet<>(Arrays.asList("A", "B", "C"));
+        CopyOnWriteTarget<String, Set<String>> target = new CopyOnWriteTarget<>(original, TreeSet::new);
+
+        assertThat(MapperUtils.isSorted(target.view()), is(true));
+        assertThat(MapperUtils.isSorted(new CopyOnWriteTarget<>(new LinkedHashSet<>(original), LinkedHashSet::new)
+            .view()), is(false));
+    }
+
+    @Test
+    public void testSetIterator()
+    {
+        Set<String> original = new LinkedHashSet<>(Arrays.asList("A", "B", "C"));
+        CopyOnWriteTarget<String, Set<String>> target = new CopyOnWriteTarget<>(original, LinkedHashSet::new);
+        Iterator<String> iterator = target.view().iterator();
+
+        while (iterator.hasNext())
+        {
+            if (!iterator.next().equals("B"))
+            {
+                iterator.remove();
+            }
+        }
+
+        assertThat(target.get(), is(new LinkedHashSet<>(Arrays.asList("B"))));
+        assertThat(original, is(new LinkedHashSet<>(Arrays.asList("A", "B", "C"))));
+    }
+
+    @Test
+    public void testCollectionIterator()
+    {
+        Collection<String> original = new ArrayDeque<>(Arrays.asList("A", "B", "C", "D"));
+        CopyOnWriteTarget<String, Collection<String>> target = new CopyOnWriteTarget<>(original, ArrayDeque::new);
+        Iterator<String> iterator = target.view().iterator();
+
+        while (iterator.hasNext())
+        {
+            String value = iterator.next();
+
+            if (value.equals("B") || value.equals("D"))
+            {
+                iterator.remove();
+            }
+        }
+
+        assertThat(new ArrayList<>(target.get()), is(Arrays.asList("A", "C")));
+        assertThat(new ArrayList<>(original), is(Arrays.asList("A", "B", "C", "D")));
+    }
+
+}
@@ -0,0 +1,63 @@
+package at.porscheinformatik.antimapper;
+
+import java.time.ZoneId;
+import java.util.Locale;
+
+/**
+ * Measures the time for looking up hints in plain arrays and in cached {@link HintContext}s, as the number of hints
+ * grows. The hints are pushed one frame per level, like with nested mappers. Run it with the main method, it's not part
+ * of the tests.
+ */
+public class HintsBenchmark
+{
+
+    private static final int LOOKUPS = 1_000_000;
+
+    private static volatile Object sink;
+
+    public static void main(String[] args)
+    {
+        System.out.println(String.format("%8s %16s %16s", "hints", "array [ns]", "context [ns]"));
+
+        for (int round = 0; round < 2; round++)
+        {
+            // the first round warms up
+            for (int count = 1; count <= 256; count *= 2)
+            {
+                Object[] joined = {ZoneId.of("UTC"), Locale.ENGLISH};
+                Object[] pushed = Hints.cached(joined);
+
+                for (int i = 0; i < count; i++)
+                {
+                    joined = Hints.join(joined, Integer.valueOf(i));
+                    pushed = Hints.push(pushed, Integer.valueOf(i));
+                }
+
+                long arrayTime = measure(joined);
+                long contextTime = measure(pushed);
+
+                if (round > 0)
+                {
+                    System.out.println(String
+                        .format("%8d %16.1f %16.1f", count, (double) arrayTime / LOOKUPS,
+                            (double) contextTime / LOOKUPS));
+                }
+            }
+        }
+    }
+
+    private static long measure(Object[] hints)
+    {
+        long time = System.nanoTime();
+
+        for (int i = 0; i < LOOKUPS; i++)
+        {
+            // the hints are at the start, each lookup has to pass all the later ones
+            sink = Hints.hintOrNull(hints, ZoneId.class);
+            sink = Hints.hintOrNull(hints, Locale.class);
+        }
+
+        return (System.nanoTime() - time) / 2;
+    }
+
+}
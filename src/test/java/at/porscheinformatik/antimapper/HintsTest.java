@@ -1,5 +1,8 @@
 package at.porscheinformatik.antimapper;
 
+import java.util.EnumSet;
+import java.util.Random;
+
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -22,4 +25,102 @@ public class HintsTest
         Assert.assertFalse(Hints.containsHint(hints, Flag.B));
         Assert.assertTrue(Hints.containsHint(hints, Flag.C));
     }
+
+    @Test
+    public void flagsOfTest()
+    {
+        Object[] hints = Hints.push(new Object[]{Hint.KEEP_NULL, "a"}, Hint.OR_EMPTY);
+
+        Assert.assertEquals(EnumSet.of(Hint.KEEP_NULL, Hint.OR_EMPTY, Hint.UNMODIFIABLE),
+            Hints.flagsOf(hints, null, new Object[]{Hint.UNMODIFIABLE}));
+        Assert.assertEquals(EnumSet.noneOf(Hint.class), Hints.flagsOf(new Object[]{"a"}));
+    }
+
+    @Test
+    public void pushPlainTest()
+    {
+        Object[] hints = Hints.push(new Object[]{Flag.A, "left"}, "right", 1);
+
+        // no context, the arrays are joined
+        Assert.assertArrayEquals(new Object[]{Flag.A, "left", "right", 1}, hints);
+    }
+
+    @Test
+    public void pushTest()
+    {
+        Object[] hints = Hints.push(Hints.cached(Flag.A, "left"), "right", 1);
+
+        Assert.assertEquals(1, hints.length);
+        Assert.assertTrue(hints[0] instanceof HintContext);
+        Assert.assertTrue(Hints.containsHint(hints, Flag.A));
+        Assert.assertFalse(Hints.containsHint(hints, Flag.B));
+        Assert.assertTrue(Hints.containsHint(hints, Integer.class));
+        Assert.assertEquals("right", Hints.hintOrNull(hints, String.class));
+        Assert.assertArrayEquals(new Object[]{Flag.A, "left", "right", 1}, Hints.flatten(hints));
+    }
+
+    @Test
+    public void cachedTest()
+    {
+        Object[] hints = Hints.cached(1, "a", 2L, "b");
+
+        for (int i = 0; i < 2; i++)
+        {
+            Assert.assertEquals(2L, Hints.hintOrNull(hints, Number.class));
+            Assert.assertEquals(Integer.valueOf(1), Hints.hintOrNull(hints, Integer.class));
+            Assert.assertEquals("b", Hints.hintOrNull(hints, String.class));
+            Assert.assertNull(Hints.hintOrNull(hints, Double.class));
+            Assert.assertTrue(Hints.containsHint(hints, Number.class));
+            Assert.assertFalse(Hints.containsHint(hints, Flag.class));
+        }
+
+        Object[] pushed = Hints.push(hints, 3L);
+
+        Assert.assertEquals(3L, Hints.hintOrNull(pushed, Number.class));
+        Assert.assertEquals(Integer.valueOf(1), Hints.hintOrNull(pushed, Integer.class));
+        Assert.assertEquals(2L, Hints.hintOrNull(hints, Number.class));
+    }
+
+    @Test
+    public void pushEqualsJoinTest()
+    {
+        Random rnd = new Random(0);
+
+        for (int sample = 0; sample < 1024; sample++)
+        {
+            Object[] joined = new Object[]{Flag.A};
+            Object[] pushed = rnd.nextBoolean() ? Hints.cached(Flag.A) : new Object[]{Flag.A};
+
+            for (int depth = rnd.nextInt(8); depth >= 0; depth--)
+            {
+                Object[] hints = new Object[rnd.nextInt(3)];
+
+                for (int i = 0; i < hints.length; i++)
+                {
+                    hints[i] = rnd.nextBoolean() ? (Object) rnd.nextInt(4) : Flag.values()[rnd.nextInt(3)];
+                }
+
+                // nest both ways, like default hints and entities
+                if (rnd.nextBoolean())
+                {
+                    joined = Hints.join(joined, hints);
+                    pushed = Hints.push(pushed, hints);
+                }
+                else
+                {
+                    joined = Hints.join(hints, joined);
+                    pushed = Hints.push(hints, pushed);
+                }
+            }
+
+            Assert.assertArrayEquals(joined, Hints.flatten(pushed));
+            Assert.assertEquals(Hints.hintOrNull(joined, Integer.class), Hints.hintOrNull(pushed, Integer.class));
+            Assert.assertEquals(Hints.hintOrNull(joined, Flag.class), Hints.hintOrNull(pushed, Flag.class));
+            Assert.assertEquals(Hints.hintOrNull(joined, Object.class), Hints.hintOrNull(pushed, Object.class));
+            // cached
+            Assert.assertEquals(Hints.hintOrNull(joined, Integer.class), Hints.hintOrNull(pushed, Integer.class));
+            Assert.assertEquals(Hints.containsHint(joined, Flag.B), Hints.containsHint(pushed, Flag.B));
+            Assert.assertEquals(Hints.toClassString(joined), Hints.toClassString(pushed));
+        }
+    }
 }
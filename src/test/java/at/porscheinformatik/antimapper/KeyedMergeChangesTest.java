@@ -0,0 +1,65 @@
+package at.porscheinformatik.antimapper;
+
+import static at.porscheinformatik.antimapper.TestUtils.*;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Runs the tests of the {@link MergeChangesTest} with a {@link KeyedMerger}, which uses a hash index for searching the
+ * entities.
+ */
+public class KeyedMergeChangesTest extends MergeChangesTest implements KeyedMerger<String, char[]>
+{
+
+    private final AtomicInteger entityKeyCount = new AtomicInteger();
+
+    @Override
+    public Object getDTOUniqueKey(String dto, Object... hints)
+    {
+        Assert.assertNotNull(dto);
+        Assert.assertEquals("Hints were not passed correctly", BOARDING_PASS, Hints.hintOrNull(hints, UUID.class));
+
+        return dto.toLowerCase();
+    }
+
+    @Override
+    public Object getEntityUniqueKey(char[] entity, Object... hints)
+    {
+        Assert.assertNotNull(entity);
+        Assert.assertEquals("Hints were not passed correctly", BOARDING_PASS, Hints.hintOrNull(hints, UUID.class));
+
+        entityKeyCount.incrementAndGet();
+
+        String entityString = String.valueOf(entity);
+
+        if (entityString.startsWith("!"))
+        {
+            entityString = entityString.substring(1);
+        }
+
+        return entityString.toLowerCase();
+    }
+
+    @Override
+    @Test
+    public void testTouchesChangedEntitiesOnly()
+    {
+        List<char[]> entities = createEntities("a", "b", "c", "d", "e", "f");
+
+        entityKeyCount.set(0);
+
+        List<char[]> result = mergeChanges(toList("E", "B"), null, BOARDING_PASS).intoArrayList(entities);
+
+        assertThat(describeResult(result), is("The result of the mapping is: a,B,c,d,E,f"));
+        // the search stops at the last matching entity
+        assertThat(entityKeyCount.get(), is(5));
+    }
+
+}
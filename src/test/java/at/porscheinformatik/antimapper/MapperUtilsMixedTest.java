@@ -5,9 +5,13 @@ import static org.hamcrest.MatcherAssert.*;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
 import java.util.stream.IntStream;
 
 import org.junit.Test;
@@ -15,6 +19,9 @@ import org.junit.Test;
 public class MapperUtilsMixedTest extends AbstractMapperUtilsTest
 {
 
+    private static final SortedMatchFunction<SourceItem, TargetItem> SORTED_MATCH_FUNCTION =
+        SortedMatchFunction.of(SourceItem::getKey, TargetItem::getKey, Comparator.<String> naturalOrder());
+
     @Test
     public void testSingleSame()
     {
@@ -86,15 +93,412 @@ public class MapperUtilsMixedTest extends AbstractMapperUtilsTest
         assertAny(targetList, Change.SAME, "C");
     }
 
+    @Test
+    public void testKeyedSingleSameAndKeepMissing()
+    {
+        Collection<SourceItem> sourceList = createSourceList("A", "C");
+        Collection<TargetItem> targetList = createTargetList("A", "B", "C");
+
+        MapperUtils
+            .mapMixed(sourceList, targetList, KEYED_MATCH_FUNCTION, MapperUtilsMixedTest::map, true,
+                MapperUtilsMixedTest::nullFilter, null);
+
+        assertThat(targetList, notNullValue());
+        assertThat(targetList.size(), equalTo(3));
+
+        assertAny(targetList, Change.SAME, "A");
+        assertAny(targetList, Change.SAME, "B");
+        assertAny(targetList, Change.SAME, "C");
+    }
+
+    @Test
+    public void testKeyedDuplicatesIntoList()
+    {
+        Collection<SourceItem> sourceList = createSourceList("A1", "B", "A2", "A3");
+        List<TargetItem> targetList = new ArrayList<>(createTargetList("A", "C", "A"));
+
+        MapperUtils
+            .mapMixed(sourceList, targetList, KEYED_MATCH_FUNCTION, MapperUtilsMixedTest::map, false,
+                MapperUtilsMixedTest::nullFilter, null);
+
+        Iterator<TargetItem> iterator = targetList.iterator();
+
+        assertNext(iterator, "A1", Change.UPDATED);
+        assertNext(iterator, "A2", Change.UPDATED);
+        assertNext(iterator, "B", Change.ADDED);
+        assertNext(iterator, "A3", Change.ADDED);
+        assertNoNext(iterator);
+    }
+
+    @Test
+    public void testKeyedFilteredKeepsTarget()
+    {
+        Collection<SourceItem> sourceList = createSourceList("A!", "A2");
+        List<TargetItem> targetList = new ArrayList<>(createTargetList("A"));
+        TargetItem targetItem = targetList.get(0);
+
+        MapperUtils
+            .mapMixed(sourceList, targetList, KEYED_MATCH_FUNCTION, MapperUtilsMixedTest::mapOrReject, false,
+                MapperUtilsMixedTest::nullFilter, null);
+
+        // the rejected result does not use up the target item
+        assertThat(targetList.size(), is(1));
+        assertThat(targetList.get(0), sameInstance(targetItem));
+        assertThat(targetList.get(0).getText(), is("A2"));
+    }
+
+    @Test
+    public void testKeyedFilteredEqualsLinear()
+    {
+        IntStream.range(0, 4096).parallel().forEach(sample -> testFilteredSample(sample, KEYED_MATCH_FUNCTION, false));
+    }
+
+    @Test
+    public void testParallelFilteredEqualsLinear()
+    {
+        IntStream.range(0, 4096).forEach(sample -> {
+            testFilteredSample(sample, MapperUtilsMixedTest::matches, true);
+            testFilteredSample(sample, KEYED_MATCH_FUNCTION, true);
+        });
+    }
+
     @Test
     public void testRandom()
     {
         System.out.println("Performing random mixed test ...");
 
-        IntStream.range(0, 65536).parallel().forEach(i -> testSample(i));
+        IntStream.range(0, 65536).parallel().forEach(i -> testSample(i, MapperUtilsMixedTest::matches, false));
+    }
+
+    @Test
+    public void testRandomIntoLinkedList()
+    {
+        System.out.println("Performing random mixed test into linked lists ...");
+
+        IntStream.range(0, 65536).parallel().forEach(i -> testSample(i, MapperUtilsMixedTest::matches, true));
+    }
+
+    @Test
+    public void testShrinkLargeList()
+    {
+        List<TargetItem> targetList = new ArrayList<>();
+
+        for (int i = 0; i < 50000; i++)
+        {
+            targetList.add(new TargetItem("A" + i));
+        }
+
+        List<SourceItem> sourceList = new ArrayList<>();
+
+        for (int i = 0; i < 100; i++)
+        {
+            sourceList.add(new SourceItem("A" + i));
+        }
+
+        MapperUtils
+            .mapMixed(sourceList, targetList, MapperUtilsMixedTest::matches, MapperUtilsMixedTest::map,
+                MapperUtilsMixedTest::nullFilter, null);
+
+        assertThat(targetList.size(), equalTo(100));
+
+        Iterator<TargetItem> iterator = targetList.iterator();
+
+        for (int i = 0; i < 100; i++)
+        {
+            assertNext(iterator, "A" + i, Change.SAME);
+        }
+    }
+
+    @Test
+    public void testReplaceMissingInList()
+    {
+        Collection<SourceItem> sourceList = createSourceList("B");
+        List<TargetItem> targetList = new ArrayList<>(createTargetList("A", "B", "C", "D"));
+
+        MapperUtils.mapMixed(sourceList, targetList, MapperUtilsMixedTest::matches, (sourceItem, targetItem) -> {
+            if (sourceItem == null)
+            {
+                // replace missing items, but remove the C
+                return "C".equals(targetItem.getKey()) ? null : new TargetItem(Change.UPDATED, targetItem.getText());
+            }
+
+            return map(sourceItem, targetItem);
+        }, MapperUtilsMixedTest::nullFilter, null);
+
+        Iterator<TargetItem> iterator = targetList.iterator();
+
+        assertNext(iterator, "B", Change.SAME);
+        assertNext(iterator, "A", Change.UPDATED);
+        assertNext(iterator, "D", Change.UPDATED);
+        assertNoNext(iterator);
+    }
+
+    @Test
+    public void testReplaceMissingInSet()
+    {
+        Collection<SourceItem> sourceList = createSourceList("B", "E");
+        Collection<TargetItem> targetList = createTargetList("A", "B", "C", "D");
+
+        MapperUtils.mapMixed(sourceList, targetList, MapperUtilsMixedTest::matches, (sourceItem, targetItem) -> {
+            if (sourceItem == null)
+            {
+                // replace missing items, but remove the C
+                return "C".equals(targetItem.getKey()) ? null : new TargetItem(Change.UPDATED, targetItem.getText());
+            }
+
+            return map(sourceItem, targetItem);
+        }, MapperUtilsMixedTest::nullFilter, null);
+
+        Iterator<TargetItem> iterator = targetList.iterator();
+
+        assertNext(iterator, "B", Change.SAME);
+        assertNext(iterator, "E", Change.ADDED);
+        assertNext(iterator, "A", Change.UPDATED);
+        assertNext(iterator, "D", Change.UPDATED);
+        assertNoNext(iterator);
+    }
+
+    @Test
+    public void testKeyedRandom()
+    {
+        System.out.println("Performing random keyed mixed test ...");
+
+        IntStream.range(0, 65536).parallel().forEach(i -> testSample(i, KEYED_MATCH_FUNCTION, false));
+    }
+
+    @Test
+    public void testSortedIntoTreeSet()
+    {
+        Collection<SourceItem> sourceList = createSourceList("D1", "B2", "!", "A1");
+        SortedSet<TargetItem> targetSet = new TreeSet<>(Comparator.comparing(TargetItem::getKey));
+
+        targetSet.addAll(createTargetList("C1", "B1", "A1"));
+
+        MapperUtils
+            .mapMixed(sourceList, targetSet, SORTED_MATCH_FUNCTION, MapperUtilsMixedTest::map, false,
+                MapperUtilsMixedTest::nullFilter, null);
+
+        Iterator<TargetItem> iterator = targetSet.iterator();
+
+        assertNext(iterator, "A1", Change.SAME);
+        assertNext(iterator, "B2", Change.UPDATED);
+        assertNext(iterator, "D1", Change.ADDED);
+        assertNoNext(iterator);
+    }
+
+    @Test
+    public void testSortedIntoReversedTreeSet()
+    {
+        Collection<SourceItem> sourceList = createSourceList("D1", "B2", "!", "A1");
+        SortedSet<TargetItem> targetSet = new TreeSet<>(Comparator.comparing(TargetItem::getKey).reversed());
+
+        targetSet.addAll(createTargetList("C1", "B1", "A1"));
+
+        // the keys are not consistent with the set, uses the hash index
+        MapperUtils
+            .mapMixed(sourceList, targetSet, SORTED_MATCH_FUNCTION, MapperUtilsMixedTest::map, false,
+                MapperUtilsMixedTest::nullFilter, null);
+
+        Iterator<TargetItem> iterator = targetSet.iterator();
+
+        assertNext(iterator, "D1", Change.ADDED);
+        assertNext(iterator, "B2", Change.UPDATED);
+        assertNext(iterator, "A1", Change.SAME);
+        assertNoNext(iterator);
+    }
+
+    @Test
+    public void testSortedEqualsKeyed()
+    {
+        IntStream.range(0, 4096).parallel().forEach(this::testSortedSample);
+    }
+
+    @Test
+    public void testSortedFilteredEqualsLinear()
+    {
+        IntStream.range(0, 4096).parallel().forEach(this::testSortedFilteredSample);
+    }
+
+    @Test
+    public void testParallelEqualsSequential()
+    {
+        IntStream.range(0, 4096).forEach(sample -> {
+            testParallelSample(sample, MapperUtilsMixedTest::matches);
+            testParallelSample(sample, KEYED_MATCH_FUNCTION);
+        });
+    }
+
+    /**
+     * Same as {@link #map(SourceItem, TargetItem)}, but results in null for source items ending with an exclamation
+     * mark, which will be rejected by the filter.
+     */
+    private static TargetItem mapOrReject(SourceItem sourceItem, TargetItem targetItem)
+    {
+        if (sourceItem != null && sourceItem.getText().endsWith("!"))
+        {
+            return null;
+        }
+
+        return map(sourceItem, targetItem);
+    }
+
+    /**
+     * Compares the result of the match function with the result of the linear search, using source items, that are
+     * rejected by the filter.
+     */
+    private void testFilteredSample(int sample, MatchFunction<SourceItem, TargetItem> matchFunction, boolean parallel)
+    {
+        try
+        {
+            Random rnd = new Random(sample);
+            List<String> sourceItems = new ArrayList<>();
+            List<String> targetItems = new ArrayList<>();
+
+            for (int i = rnd.nextInt(32); i > 0; i--)
+            {
+                // few keys, some of the source items are rejected
+                sourceItems.add((char) ('A' + rnd.nextInt(4)) + (rnd.nextInt(4) == 0 ? "!" : "1"));
+                targetItems.add((char) ('A' + rnd.nextInt(4)) + String.valueOf(rnd.nextInt(2)));
+            }
+
+            boolean keepMissing = rnd.nextBoolean();
+            String[] sources = sourceItems.toArray(new String[sourceItems.size()]);
+            String[] targets = targetItems.toArray(new String[targetItems.size()]);
+            List<TargetItem> linearList = new ArrayList<>(createTargetList(targets));
+            List<TargetItem> list = new ArrayList<>(createTargetList(targets));
+
+            MapperUtils
+                .mapMixed(createSourceList(sources).stream(), linearList, MapperUtilsMixedTest::matches,
+                    MapperUtilsMixedTest::mapOrReject, keepMissing, false, MapperUtilsMixedTest::nullFilter, null);
+            MapperUtils
+                .mapMixed(createSourceList(sources).stream(), list, matchFunction, MapperUtilsMixedTest::mapOrReject,
+                    keepMissing, parallel, MapperUtilsMixedTest::nullFilter, null);
+
+            assertThat(String.valueOf(list), is(String.valueOf(linearList)));
+        }
+        catch (AssertionError e)
+        {
+            throw new AssertionError("Sample #" + sample + " has failed", e);
+        }
     }
 
-    private void testSample(int sample)
+    private void testParallelSample(int sample, MatchFunction<SourceItem, TargetItem> matchFunction)
+    {
+        try
+        {
+            Random rnd = new Random(sample);
+            List<String> sourceItems = new ArrayList<>();
+            List<String> targetItems = new ArrayList<>();
+
+            for (int i = rnd.nextInt(64); i > 0; i--)
+            {
+                // few keys, thus many duplicates compete for the same target items
+                sourceItems.add(rnd.nextInt(8) == 0 ? "!" : (char) ('A' + rnd.nextInt(8)) + "1");
+                targetItems.add((char) ('A' + rnd.nextInt(8)) + String.valueOf(rnd.nextInt(2)));
+            }
+
+            boolean keepMissing = rnd.nextBoolean();
+            String[] sources = sourceItems.toArray(new String[sourceItems.size()]);
+            String[] targets = targetItems.toArray(new String[targetItems.size()]);
+            List<TargetItem> sequentialList = new ArrayList<>(createTargetList(targets));
+            List<TargetItem> parallelList = new ArrayList<>(createTargetList(targets));
+
+            MapperUtils
+                .mapMixed(createSourceList(sources).stream(), sequentialList, matchFunction,
+                    MapperUtilsMixedTest::map, keepMissing, false, MapperUtilsMixedTest::nullFilter, null);
+            MapperUtils
+                .mapMixed(createSourceList(sources).stream(), parallelList, matchFunction, MapperUtilsMixedTest::map,
+                    keepMissing, true, MapperUtilsMixedTest::nullFilter, null);
+
+            assertThat(String.valueOf(parallelList), is(String.valueOf(sequentialList)));
+        }
+        catch (AssertionError e)
+        {
+            throw new AssertionError("Sample #" + sample + " has failed", e);
+        }
+    }
+
+    /**
+     * Compares the lockstep search in a sorted set with the linear search, using source items, that are rejected by the
+     * filter.
+     */
+    private void testSortedFilteredSample(int sample)
+    {
+        try
+        {
+            Random rnd = new Random(sample);
+            List<String> sourceItems = new ArrayList<>();
+            List<String> targetItems = new ArrayList<>();
+
+            for (int i = rnd.nextInt(16); i > 0; i--)
+            {
+                sourceItems.add((char) ('A' + rnd.nextInt(8)) + (rnd.nextInt(4) == 0 ? "!" : "1"));
+                targetItems.add((char) ('A' + rnd.nextInt(8)) + String.valueOf(rnd.nextInt(2)));
+            }
+
+            boolean keepMissing = rnd.nextBoolean();
+            String[] sources = sourceItems.toArray(new String[sourceItems.size()]);
+            String[] targets = targetItems.toArray(new String[targetItems.size()]);
+            SortedSet<TargetItem> sortedSet = new TreeSet<>(Comparator.comparing(TargetItem::getKey));
+            SortedSet<TargetItem> linearSet = new TreeSet<>(Comparator.comparing(TargetItem::getKey));
+
+            sortedSet.addAll(createTargetList(targets));
+            linearSet.addAll(createTargetList(targets));
+
+            MapperUtils
+                .mapMixed(createSourceList(sources), sortedSet, SORTED_MATCH_FUNCTION,
+                    MapperUtilsMixedTest::mapOrReject, keepMissing, MapperUtilsMixedTest::nullFilter, null);
+            MapperUtils
+                .mapMixed(createSourceList(sources), linearSet, MapperUtilsMixedTest::matches,
+                    MapperUtilsMixedTest::mapOrReject, keepMissing, MapperUtilsMixedTest::nullFilter, null);
+
+            assertThat(String.valueOf(sortedSet), is(String.valueOf(linearSet)));
+        }
+        catch (AssertionError e)
+        {
+            throw new AssertionError("Sample #" + sample + " has failed", e);
+        }
+    }
+
+    private void testSortedSample(int sample)
+    {
+        try
+        {
+            Random rnd = new Random(sample);
+            List<String> sourceItems = new ArrayList<>();
+            List<String> targetItems = new ArrayList<>();
+
+            for (int i = rnd.nextInt(16); i > 0; i--)
+            {
+                sourceItems.add(rnd.nextInt(8) == 0 ? "!" : (char) ('A' + rnd.nextInt(16)) + "1");
+                targetItems.add((char) ('A' + rnd.nextInt(16)) + String.valueOf(rnd.nextInt(2)));
+            }
+
+            boolean keepMissing = rnd.nextBoolean();
+            String[] sources = sourceItems.toArray(new String[sourceItems.size()]);
+            String[] targets = targetItems.toArray(new String[targetItems.size()]);
+            SortedSet<TargetItem> sortedSet = new TreeSet<>(Comparator.comparing(TargetItem::getKey));
+            SortedSet<TargetItem> keyedSet = new TreeSet<>(Comparator.comparing(TargetItem::getKey));
+
+            sortedSet.addAll(createTargetList(targets));
+            keyedSet.addAll(createTargetList(targets));
+
+            MapperUtils
+                .mapMixed(createSourceList(sources), sortedSet, SORTED_MATCH_FUNCTION, MapperUtilsMixedTest::map,
+                    keepMissing, MapperUtilsMixedTest::nullFilter, null);
+            MapperUtils
+                .mapMixed(createSourceList(sources), keyedSet, KEYED_MATCH_FUNCTION, MapperUtilsMixedTest::map,
+                    keepMissing, MapperUtilsMixedTest::nullFilter, null);
+
+            assertThat(String.valueOf(sortedSet), is(String.valueOf(keyedSet)));
+        }
+        catch (AssertionError e)
+        {
+            throw new AssertionError("Sample #" + sample + " has failed", e);
+        }
+    }
+
+    private void testSample(int sample, MatchFunction<SourceItem, TargetItem> matchFunction, boolean linkedList)
     {
         try
         {
@@ -110,8 +514,13 @@ public class MapperUtilsMixedTest extends AbstractMapperUtilsTest
             Collection<SourceItem> sourceList = createSourceList(sourceItems.toArray(new String[sourceItems.size()]));
             Collection<TargetItem> targetList = createTargetList(targetItems.toArray(new String[targetItems.size()]));
 
+            if (linkedList)
+            {
+                targetList = new LinkedList<>(targetList);
+            }
+
             MapperUtils
-                .mapMixed(sourceList, targetList, MapperUtilsMixedTest::matches, MapperUtilsMixedTest::map, false,
+                .mapMixed(sourceList, targetList, matchFunction, MapperUtilsMixedTest::map, false,
                     MapperUtilsMixedTest::nullFilter, null);
 
             assertThat(targetList.size(), equalTo(countNotNull(sourceItems)));
@@ -4,10 +4,14 @@ import static org.hamcrest.CoreMatchers.*;
 import static org.hamcrest.MatcherAssert.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
 import java.util.stream.IntStream;
 
 import org.junit.Test;
@@ -752,10 +756,117 @@ public class MapperUtilsOrderedTest extends AbstractMapperUtilsTest
     {
         System.out.println("Performing random ordered test ...");
 
-        IntStream.range(0, 65536).parallel().forEach(i -> testSample(i));
+        IntStream.range(0, 65536).parallel().forEach(i -> testSample(i, MapperUtilsOrderedTest::matches));
     }
 
-    private void testSample(int sample)
+    @Test
+    public void testUpdateFixedSizeList()
+    {
+        Collection<SourceItem> sourceList = createSourceList("A1", "B1", "C1");
+        List<TargetItem> targetList = Arrays.asList(new TargetItem("A"), new TargetItem("B"), new TargetItem("C"));
+        List<List<TargetItem>> consumed = new ArrayList<>();
+
+        MapperUtils
+            .mapOrdered(sourceList, targetList, MapperUtilsOrderedTest::matches, MapperUtilsOrderedTest::map, false,
+                MapperUtilsOrderedTest::nullFilter, consumed::add);
+
+        Iterator<TargetItem> iterator = targetList.iterator();
+
+        assertNext(iterator, "A1", Change.UPDATED);
+        assertNext(iterator, "B1", Change.UPDATED);
+        assertNext(iterator, "C1", Change.UPDATED);
+        assertNoNext(iterator);
+
+        assertThat(consumed.size(), is(1));
+        assertThat(consumed.get(0) == targetList, is(true));
+    }
+
+    @Test
+    public void testUpdateSortedSet()
+    {
+        Collection<SourceItem> sourceList = createSourceList("A3", "B2");
+        SortedSet<TargetItem> targetSet = new TreeSet<>(Comparator.comparing(item -> item.getText().substring(1)));
+
+        targetSet.add(new TargetItem("A1"));
+        targetSet.add(new TargetItem("B2"));
+
+        MapperUtils
+            .mapOrdered(sourceList, targetSet, MapperUtilsOrderedTest::matches, MapperUtilsOrderedTest::map, false,
+                MapperUtilsOrderedTest::nullFilter, null);
+
+        // the update changed the sort key of the first item, the order of the items in the set did not change
+        Iterator<TargetItem> iterator = targetSet.iterator();
+
+        assertNext(iterator, "B2", Change.SAME);
+        assertNext(iterator, "A3", Change.UPDATED);
+        assertNoNext(iterator);
+
+        assertThat(targetSet.first().getText(), is("B2"));
+        assertThat(targetSet.headSet(new TargetItem("X4")).size(), is(2));
+    }
+
+    @Test
+    public void testKeyedReorder()
+    {
+        Collection<SourceItem> sourceList = createSourceList("E", "D", "C", "B", "A");
+        Collection<TargetItem> targetList = createTargetList("A", "B", "C", "D", "E");
+        List<TargetItem> originalTargetList = new ArrayList<>(targetList);
+
+        MapperUtils
+            .mapOrdered(sourceList, targetList, KEYED_MATCH_FUNCTION, MapperUtilsOrderedTest::map, false,
+                MapperUtilsOrderedTest::nullFilter, null);
+
+        Iterator<TargetItem> iterator = targetList.iterator();
+
+        assertNext(iterator, "E", Change.SAME);
+        assertNext(iterator, "D", Change.SAME);
+        assertNext(iterator, "C", Change.SAME);
+        assertNext(iterator, "B", Change.SAME);
+        assertNext(iterator, "A", Change.SAME);
+        assertNoNext(iterator);
+
+        for (TargetItem targetItem : originalTargetList)
+        {
+            assertThat(targetList.stream().anyMatch(item -> item == targetItem), is(true));
+        }
+    }
+
+    @Test
+    public void testKeyedRandom()
+    {
+        System.out.println("Performing random keyed ordered test ...");
+
+        IntStream.range(0, 65536).parallel().forEach(i -> testSample(i, KEYED_MATCH_FUNCTION));
+    }
+
+    @Test
+    public void testKeyedEqualsUnkeyed()
+    {
+        IntStream.range(0, 16384).parallel().forEach(sample -> {
+            Random rnd = new Random(sample);
+            List<String> sourceLines = new ArrayList<>();
+            List<String> targetLines = new ArrayList<>();
+
+            createRandomItems(rnd, sourceLines, targetLines, rnd.nextInt(16));
+
+            boolean keepMissing = rnd.nextBoolean();
+            String[] sourceItems = sourceLines.toArray(new String[sourceLines.size()]);
+            String[] targetItems = targetLines.toArray(new String[targetLines.size()]);
+            List<TargetItem> targetList = new ArrayList<>(createTargetList(targetItems));
+            List<TargetItem> keyedTargetList = new ArrayList<>(createTargetList(targetItems));
+
+            MapperUtils
+                .mapOrdered(createSourceList(sourceItems), targetList, MapperUtilsOrderedTest::matches,
+                    MapperUtilsOrderedTest::map, keepMissing, MapperUtilsOrderedTest::nullFilter, null);
+            MapperUtils
+                .mapOrdered(createSourceList(sourceItems), keyedTargetList, KEYED_MATCH_FUNCTION,
+                    MapperUtilsOrderedTest::map, keepMissing, MapperUtilsOrderedTest::nullFilter, null);
+
+            assertThat("Sample #" + sample, String.valueOf(keyedTargetList), equalTo(String.valueOf(targetList)));
+        });
+    }
+
+    private void testSample(int sample, MatchFunction<SourceItem, TargetItem> matchFunction)
     {
         try
         {
@@ -772,7 +883,7 @@ public class MapperUtilsOrderedTest extends AbstractMapperUtilsTest
             Collection<TargetItem> targetList = createTargetList(targetLines.toArray(new String[targetLines.size()]));
 
             MapperUtils
-                .mapOrdered(sourceList, targetList, MapperUtilsOrderedTest::matches, MapperUtilsOrderedTest::map, false,
+                .mapOrdered(sourceList, targetList, matchFunction, MapperUtilsOrderedTest::map, false,
                     MapperUtilsOrderedTest::nullFilter, null);
 
             assertThat(targetList.size(), equalTo(countNotNull(sourceLines)));
@@ -0,0 +1,167 @@
+package at.porscheinformatik.antimapper;
+
+import static at.porscheinformatik.antimapper.TestUtils.*;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class MergeChangesTest extends AbstractMapperTest
+{
+
+    protected final AtomicInteger matchCount = new AtomicInteger();
+
+    private boolean deleteMissing;
+
+    protected static List<char[]> createEntities(String... values)
+    {
+        List<char[]> entities = new ArrayList<>();
+
+        for (String value : values)
+        {
+            entities.add(value.toCharArray());
+        }
+
+        return entities;
+    }
+
+    @Override
+    public boolean isUniqueKeyMatching(String dto, char[] entity, Object... hints)
+    {
+        matchCount.incrementAndGet();
+
+        return super.isUniqueKeyMatching(dto, entity, hints);
+    }
+
+    @Override
+    protected char[] mergeNull(char[] entity, Object[] hints)
+    {
+        return deleteMissing ? null : super.mergeNull(entity, hints);
+    }
+
+    @Test
+    public void testNull()
+    {
+        List<String> dtos = null;
+
+        assertThat(mergeChanges(dtos, dtos, BOARDING_PASS).intoArrayList(null), nullValue());
+        assertThat(mergeChanges(dtos, dtos, BOARDING_PASS, Hint.OR_EMPTY).intoArrayList(null),
+            is(Collections.emptyList()));
+        assertThat(describeResult(mergeChanges(toList("A"), dtos, BOARDING_PASS).intoArrayList(null)),
+            is("The result of the mapping is: A"));
+    }
+
+    @Test
+    public void testUpserts()
+    {
+        List<char[]> entities = createEntities("a", "b", "c");
+        char[] b = entities.get(1);
+        List<char[]> result = mergeChanges(toList("B", "D"), null, BOARDING_PASS).intoArrayList(entities);
+
+        assertThat(result, sameInstance(entities));
+        assertThat(describeResult(result), is("The result of the mapping is: a,B,c,D"));
+        assertThat(result.get(1), sameInstance(b));
+    }
+
+    @Test
+    public void testDeletions()
+    {
+        deleteMissing = true;
+
+        List<char[]> entities = createEntities("a", "b", "c", "d");
+        List<char[]> result = mergeChanges(null, toList("B", "D", "X"), BOARDING_PASS).intoArrayList(entities);
+
+        assertThat(describeResult(result), is("The result of the mapping is: a,c"));
+
+        List<char[]> linkedEntities = new LinkedList<>(createEntities("a", "b", "c", "d"));
+
+        result = mergeChanges(toList("E"), toList("A", "C"), BOARDING_PASS).intoArrayList(linkedEntities);
+
+        assertThat(describeResult(result), is("The result of the mapping is: b,d,E"));
+    }
+
+    @Test
+    public void testDeletionsWithFlag()
+    {
+        List<char[]> entities = createEntities("a", "b", "c");
+        List<char[]> result = mergeChanges(null, toList("B"), BOARDING_PASS).intoArrayList(entities);
+
+        assertThat(describeResult(result), is("The result of the mapping is: a,!b,c"));
+    }
+
+    @Test
+    public void testHashSet()
+    {
+        deleteMissing = true;
+
+        Set<char[]> entities = new HashSet<>(createEntities("a", "b", "c"));
+        Set<char[]> result = mergeChanges(toList("A", "D"), toList("C"), BOARDING_PASS).intoHashSet(entities);
+
+        assertThat(result, sameInstance(entities));
+        assertThat(result.size(), is(3));
+        assertThat(describeResult(result), containsString("A"));
+        assertThat(describeResult(result), containsString("b"));
+        assertThat(describeResult(result), containsString("D"));
+    }
+
+    @Test
+    public void testTouchesChangedEntitiesOnly()
+    {
+        List<char[]> entities = createEntities("a", "b", "c", "d", "e", "f");
+
+        matchCount.set(0);
+
+        List<char[]> result = mergeChanges(toList("B"), null, BOARDING_PASS).intoArrayList(entities);
+
+        assertThat(describeResult(result), is("The result of the mapping is: a,B,c,d,e,f"));
+        // the search stops at the matching entity, the merge compares it once more
+        assertThat(matchCount.get(), is(3));
+    }
+
+    @Test
+    public void testUnmodifiable()
+    {
+        List<char[]> entities = createEntities("a", "b");
+        List<char[]> result =
+            mergeChanges(toList("C"), null, BOARDING_PASS, Hint.UNMODIFIABLE).intoArrayList(entities);
+
+        assertThat(describeResult(result), is("The result of the mapping is: a,b,C"));
+        assertThat(describeResult(entities), is("The result of the mapping is: a,b"));
+
+        try
+        {
+            result.add("D".toCharArray());
+
+            throw new AssertionError("Unmodifiable expected");
+        }
+        catch (UnsupportedOperationException e)
+        {
+            // expected
+        }
+    }
+
+    @Test
+    public void testMergeResult()
+    {
+        MergeResult result = new MergeResult();
+
+        mergeChanges(toList("A"), toList("X"), BOARDING_PASS, result).intoArrayList(createEntities("a", "b"));
+
+        assertThat(result.toString(), result.getChangedCollections(), is(0));
+
+        mergeChanges(toList("C"), toList("B"), BOARDING_PASS, result).intoArrayList(createEntities("a", "b"));
+
+        assertThat(result.toString(), result.getCreatedEntities(), is(1));
+        assertThat(result.toString(), result.getDeletedEntities(), is(1));
+        assertThat(result.toString(), result.getChangedCollections(), is(1));
+    }
+
+}
@@ -8,7 +8,10 @@ import static org.junit.Assert.*;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 import org.junit.Test;
 
@@ -188,4 +191,57 @@ public class MergeIntoArrayListTest extends AbstractMapperTest
         }
     }
 
+    @Test
+    public void testIntoArrayListUnmodifiableSharesUnchangedEntities()
+    {
+        List<char[]> entities = Collections.unmodifiableList(toList("A".toCharArray(), "B".toCharArray()));
+        List<char[]> original = new ArrayList<>(entities);
+        AtomicInteger factoryCount = new AtomicInteger();
+        Supplier<List<char[]>> factory = () -> {
+            factoryCount.incrementAndGet();
+
+            return new ArrayList<>();
+        };
+
+        List<char[]> result =
+            mergeAll(toList("A", "B"), Hint.UNMODIFIABLE, BOARDING_PASS).intoOrderedCollection(entities, factory);
+
+        assertThat(describeResult(result), is("The result of the mapping is: A,B"));
+        assertThat(factoryCount.get(), is(0));
+
+        result = mergeAll(toList("B", "A"), Hint.UNMODIFIABLE, BOARDING_PASS).intoMixedCollection(entities, factory);
+
+        assertThat(describeResult(result), is("The result of the mapping is: A,B"));
+        assertThat(factoryCount.get(), is(0));
+
+        result = mergeAll(toList("B", "C"), Hint.UNMODIFIABLE, BOARDING_PASS).intoOrderedCollection(entities, factory);
+
+        assertThat(describeResult(result), is("The result of the mapping is: B,C,!A"));
+        assertThat(factoryCount.get(), is(1));
+        assertThat(entities, is(original));
+        assertThat(describeResult(entities), is("The result of the mapping is: A,B"));
+    }
+
+    @Test
+    public void testIntoLinkedListUnmodifiableCopiesOnWrite()
+    {
+        List<char[]> entities = new LinkedList<>(toList("A".toCharArray(), "B".toCharArray(), "C".toCharArray()));
+        List<char[]> original = new ArrayList<>(entities);
+        List<char[]> result = mergeAll(toList("A", "C"), Hint.UNMODIFIABLE, BOARDING_PASS)
+            .intoMixedCollection(entities, LinkedList::new);
+
+        assertThat(describeResult(result), is("The result of the mapping is: A,C,!B"));
+        assertThat(entities, is(original));
+
+        try
+        {
+            result.add("Z".toCharArray());
+            fail();
+        }
+        catch (UnsupportedOperationException e)
+        {
+            // expected
+        }
+    }
+
 }
@@ -9,6 +9,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 
@@ -192,4 +193,28 @@ public class MergeIntoHashSetTest extends AbstractMapperTest
         }
     }
 
+    @Test
+    public void testIntoHashSetUnmodifiableSharesUnchangedEntities()
+    {
+        Set<char[]> entities = Collections.unmodifiableSet(toSet("A".toCharArray(), "B".toCharArray()));
+        Set<char[]> original = new HashSet<>(entities);
+        AtomicInteger factoryCount = new AtomicInteger();
+        Set<char[]> result = mergeAll(toList("B", "A"), Hint.UNMODIFIABLE, BOARDING_PASS)
+            .intoMixedCollection(entities, () -> {
+                factoryCount.incrementAndGet();
+
+                return new HashSet<>();
+            });
+
+        assertThat(describeResult(result), result,
+            matchesCollection(toList(is("A".toCharArray()), is("B".toCharArray()))));
+        assertThat(factoryCount.get(), is(0));
+
+        result = mergeAll(toList("B", "C"), Hint.UNMODIFIABLE, BOARDING_PASS).intoHashSet(entities);
+
+        assertThat(describeResult(result), result,
+            matchesCollection(toList(is("!A".toCharArray()), is("B".toCharArray()), is("C".toCharArray()))));
+        assertThat(entities, is(original));
+    }
+
 }
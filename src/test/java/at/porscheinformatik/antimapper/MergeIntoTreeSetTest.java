@@ -15,6 +15,14 @@ import org.junit.Test;
 public class MergeIntoTreeSetTest extends AbstractMapperTest
 {
 
+    private Collection<char[]> mergedEntities;
+
+    @Override
+    public void afterMergeIntoCollection(Collection<char[]> entities, Object... hints)
+    {
+        mergedEntities = entities;
+    }
+
     @Test
     public void testNullIntoNullTreeSet()
     {
@@ -204,4 +212,23 @@ public class MergeIntoTreeSetTest extends AbstractMapperTest
         }
     }
 
+    @Test
+    public void testIntoTreeSetUnmodifiableCallsHookWithCollection()
+    {
+        SortedSet<char[]> entities = Collections
+            .unmodifiableSortedSet(toSortedSet(CHAR_ARRAY_COMPARATOR, "A".toCharArray(), "B".toCharArray()));
+
+        this.mergeAll(toList("A", "B"), Hint.UNMODIFIABLE, BOARDING_PASS).intoTreeSet(entities);
+
+        // not modified, the entities are passed themselves
+        assertThat(mergedEntities, sameInstance(entities));
+
+        SortedSet<char[]> result =
+            this.mergeAll(toList("A", "C"), Hint.UNMODIFIABLE, BOARDING_PASS).intoTreeSet(entities);
+
+        assertThat(mergedEntities, instanceOf(TreeSet.class));
+        assertThat(((SortedSet<char[]>) mergedEntities).comparator(), is(CHAR_ARRAY_COMPARATOR));
+        assertThat(describeResult(mergedEntities), is(describeResult(result)));
+    }
+
 }
@@ -0,0 +1,200 @@
+package at.porscheinformatik.antimapper;
+
+import static at.porscheinformatik.antimapper.TestUtils.*;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import at.porscheinformatik.antimapper.MergePlan.Operation;
+import at.porscheinformatik.antimapper.MergePlan.OperationType;
+
+public class MergePlanTest extends AbstractMapperTest
+{
+
+    private static List<char[]> createEntities(String... values)
+    {
+        List<char[]> entities = new ArrayList<>();
+
+        for (String value : values)
+        {
+            entities.add(value.toCharArray());
+        }
+
+        return entities;
+    }
+
+    private static String describePlan(MergePlan<?, ?> plan)
+    {
+        return plan
+            .getOperations()
+            .stream()
+            .map(operation -> operation.getType() + ":" + operation.getDTOIndex())
+            .collect(Collectors.joining(","));
+    }
+
+    @Test
+    public void testPlanOrdered()
+    {
+        List<char[]> entities = createEntities("A", "B", "C");
+        List<char[]> original = new ArrayList<>(entities);
+        StreamMerger<String, char[]> merger = mergeAll(toList("A", "C", "D"), BOARDING_PASS);
+        MergePlan<char[], List<char[]>> plan = merger.planOrderedCollection(entities, ArrayList::new);
+
+        assertThat(plan.toString(), describePlan(plan), is("UPDATE:0,UPDATE:1,CREATE:2,DELETE:-1"));
+        assertThat(plan.isStructural(), is(true));
+        assertThat(plan.getOperations().get(3).getEntity(), sameInstance(original.get(1)));
+        assertThat(plan.getOperations().get(3).getEntityIndex(), is(1));
+        assertThat(plan.getOperations().get(1).getTargetIndex(), is(1));
+
+        // planning does not touch the entities
+        assertThat(entities, is(original));
+        assertThat(describeResult(entities), is("The result of the mapping is: A,B,C"));
+
+        List<char[]> result = merger.apply(plan);
+
+        assertThat(result, sameInstance(entities));
+        assertThat(describeResult(result), is("The result of the mapping is: A,C,D,!B"));
+        assertThat(result.get(0), sameInstance(original.get(0)));
+        assertThat(result.get(1), sameInstance(original.get(2)));
+    }
+
+    @Test
+    public void testPlanMoved()
+    {
+        List<char[]> entities = createEntities("A", "B", "C");
+        StreamMerger<String, char[]> merger = mergeAll(toList("B", "C", "A"), BOARDING_PASS);
+        MergePlan<char[], List<char[]>> plan = merger.planOrderedCollection(entities, ArrayList::new);
+
+        assertThat(plan.toString(), describePlan(plan), is("UPDATE:0,UPDATE:1,MOVE:2"));
+
+        List<char[]> result = merger.apply(plan);
+
+        assertThat(describeResult(result), is("The result of the mapping is: B,C,A"));
+    }
+
+    @Test
+    public void testPlanMixed()
+    {
+        Set<char[]> entities = new LinkedHashSet<>(createEntities("A", "B"));
+        StreamMerger<String, char[]> merger = mergeAll(toList("C", "B"), BOARDING_PASS);
+        MergePlan<char[], Set<char[]>> plan = merger.planMixedCollection(entities, LinkedHashSet::new);
+
+        assertThat(plan.toString(), describePlan(plan), is("UPDATE:1,CREATE:0,DELETE:-1"));
+
+        Set<char[]> result = merger.apply(plan);
+
+        assertThat(result, sameInstance(entities));
+        assertThat(describeResult(result), is("The result of the mapping is: B,C,!A"));
+    }
+
+    @Test
+    public void testPlanSameAsMerge()
+    {
+        String[][] cases = {{"A", "B", "C"}, {"C", "B", "A"}, {"B", "D", "A", "E"}, {}, {"E", "A", "C", "B", "D"}};
+
+        for (String[] entityValues : cases)
+        {
+            for (String[] dtoValues : cases)
+            {
+                List<String> dtos = toList(dtoValues);
+                StreamMerger<String, char[]> merger = mergeAll(dtos, BOARDING_PASS);
+                List<char[]> entities = createEntities(entityValues);
+                List<char[]> expected = mergeAll(dtos, BOARDING_PASS).intoArrayList(createEntities(entityValues));
+                List<char[]> result = merger.apply(merger.planOrderedCollection(entities, ArrayList::new));
+
+                assertThat(dtos.toString(), describeResult(result), is(describeResult(expected)));
+
+                Set<char[]> mixedEntities = new LinkedHashSet<>(createEntities(entityValues));
+                Set<char[]> mixedExpected =
+                    mergeAll(dtos, BOARDING_PASS).intoLinkedHashSet(new LinkedHashSet<>(createEntities(entityValues)));
+                Set<char[]> mixedResult = merger.apply(merger.planMixedCollection(mixedEntities, LinkedHashSet::new));
+
+                assertThat(dtos.toString(), describeResult(mixedResult), is(describeResult(mixedExpected)));
+            }
+        }
+    }
+
+    @Test
+    public void testUpdatesOnly()
+    {
+        List<char[]> entities = createEntities("A", "B");
+        List<char[]> original = new ArrayList<>(entities);
+        MergeResult mergeResult = new MergeResult();
+        StreamMerger<String, char[]> merger = mergeAll(toList("A", "B"), BOARDING_PASS, mergeResult);
+        MergePlan<char[], List<char[]>> plan = merger.planOrderedCollection(entities, ArrayList::new);
+
+        assertThat(plan.toString(), describePlan(plan), is("UPDATE:0,UPDATE:1"));
+        assertThat(plan.isStructural(), is(false));
+
+        List<char[]> result = merger.apply(plan);
+
+        assertThat(result, is(original));
+        assertThat(mergeResult.toString(), mergeResult.getChangedCollections(), is(0));
+        // the mapper does not report modifications, the updates count as change
+        assertThat(mergeResult.toString(), mergeResult.getUnreportedMerges(), is(2));
+    }
+
+    @Test
+    public void testEmpty()
+    {
+        List<char[]> entities = new ArrayList<>();
+        StreamMerger<String, char[]> merger = mergeAll(Collections.<String> emptyList(), BOARDING_PASS);
+        MergePlan<char[], List<char[]>> plan = merger.planOrderedCollection(entities, ArrayList::new);
+
+        assertThat(plan.isEmpty(), is(true));
+        assertThat(merger.apply(plan), sameInstance(entities));
+
+        List<String> dtos = null;
+        StreamMerger<String, char[]> nullMerger = mergeAll(dtos, BOARDING_PASS);
+
+        assertThat(nullMerger.apply(nullMerger.planOrderedCollection(null, ArrayList::new)), nullValue());
+    }
+
+    @Test
+    public void testKeepMissing()
+    {
+        List<char[]> entities = createEntities("A", "B");
+        StreamMerger<String, char[]> merger = mergeAll(toList("B"), BOARDING_PASS, Hint.KEEP_MISSING);
+        MergePlan<char[], List<char[]>> plan = merger.planMixedCollection(entities, ArrayList::new);
+
+        assertThat(plan.toString(), describePlan(plan), is("UPDATE:0"));
+
+        for (Operation<char[]> operation : plan.getOperations())
+        {
+            assertThat(operation.getType(), not(is(OperationType.DELETE)));
+        }
+
+        assertThat(describeResult(merger.apply(plan)), is("The result of the mapping is: A,B"));
+    }
+
+    @Test(expected = MapperException.class)
+    public void testModifiedAfterPlanning()
+    {
+        List<char[]> entities = createEntities("A", "B");
+        StreamMerger<String, char[]> merger = mergeAll(toList("A"), BOARDING_PASS);
+        MergePlan<char[], List<char[]>> plan = merger.planOrderedCollection(entities, ArrayList::new);
+
+        entities.add("C".toCharArray());
+
+        merger.apply(plan);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOtherMerger()
+    {
+        List<char[]> entities = createEntities("A", "B");
+        MergePlan<char[], List<char[]>> plan =
+            mergeAll(toList("A"), BOARDING_PASS).planOrderedCollection(entities, ArrayList::new);
+
+        mergeAll(toList("A"), BOARDING_PASS).apply(plan);
+    }
+
+}
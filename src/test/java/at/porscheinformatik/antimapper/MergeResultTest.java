@@ -0,0 +1,121 @@
+package at.porscheinformatik.antimapper;
+
+import static at.porscheinformatik.antimapper.TestUtils.*;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class MergeResultTest extends AbstractMapperTest
+{
+
+    @Override
+    protected boolean isReportingModifications()
+    {
+        return true;
+    }
+
+    private static List<char[]> createEntities(String... values)
+    {
+        List<char[]> entities = new ArrayList<>();
+
+        for (String value : values)
+        {
+            entities.add(value.toCharArray());
+        }
+
+        return entities;
+    }
+
+    @Test
+    public void testUnchanged()
+    {
+        MergeResult result = new MergeResult();
+        List<char[]> entities = createEntities("A", "B");
+
+        mergeAll(toList("A", "B"), BOARDING_PASS, result).intoArrayList(entities);
+
+        assertThat(result.toString(), result.isChanged(), is(false));
+
+        Set<char[]> set = new HashSet<>(createEntities("A", "B"));
+
+        mergeAll(toList("B", "A"), BOARDING_PASS, result).intoHashSet(set);
+
+        assertThat(result.toString(), result.isChanged(), is(false));
+    }
+
+    @Test
+    public void testUnreported()
+    {
+        MergeResult result = new MergeResult();
+        AbstractMapperTest mapper = new AbstractMapperTest()
+        {
+            // does not report modifications
+        };
+
+        mapper.mergeAll(toList("A", "B"), BOARDING_PASS, result).intoArrayList(createEntities("A", "B"));
+
+        assertThat(result.toString(), result.isChanged(), is(true));
+        assertThat(result.getUnreportedMerges(), is(2));
+        assertThat(result.getChangedCollections(), is(0));
+    }
+
+    @Test
+    public void testCreated()
+    {
+        MergeResult result = new MergeResult();
+
+        mergeAll(toList("A", "B", "C"), BOARDING_PASS, result).intoArrayList(createEntities("A", "B"));
+
+        assertThat(result.toString(), result.isChanged(), is(true));
+        assertThat(result.getCreatedEntities(), is(1));
+        assertThat(result.getChangedCollections(), is(1));
+    }
+
+    @Test
+    public void testMoved()
+    {
+        MergeResult result = new MergeResult();
+
+        mergeAll(toList("B", "A"), BOARDING_PASS, result).intoArrayList(createEntities("A", "B"));
+
+        assertThat(result.toString(), result.isChanged(), is(true));
+        assertThat(result.getCreatedEntities(), is(0));
+        assertThat(result.getChangedCollections(), is(1));
+    }
+
+    @Test
+    public void testDeleted()
+    {
+        MergeResult result = new MergeResult();
+
+        mergeAll(toList("A"), BOARDING_PASS, result).intoArrayList(createEntities("A", "B"));
+
+        assertThat(result.toString(), result.isChanged(), is(true));
+        assertThat(result.getDeletedEntities(), is(1));
+        assertThat(result.getChangedCollections(), is(1));
+    }
+
+    @Test
+    public void testModified()
+    {
+        MergeResult result = new MergeResult();
+        Object[] hints = {BOARDING_PASS, result};
+
+        assertThat(MergeResult.changed(hints, "A", "A"), is(false));
+        assertThat(result.isChanged(), is(false));
+
+        assertThat(MergeResult.changed(hints, "A", "B"), is(true));
+        assertThat(result.getModifications(), is(1));
+        assertThat(result.isChanged(), is(true));
+
+        // no result in the hints
+        assertThat(MergeResult.changed(new Object[]{BOARDING_PASS}, "A", "B"), is(true));
+    }
+
+}
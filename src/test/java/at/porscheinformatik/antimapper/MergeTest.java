@@ -1,8 +1,21 @@
 package at.porscheinformatik.antimapper;
 
+import static at.porscheinformatik.antimapper.TestUtils.*;
 import static org.hamcrest.CoreMatchers.*;
 import static org.hamcrest.MatcherAssert.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
 import org.junit.Test;
 
 public class MergeTest extends AbstractMapperTest
@@ -36,4 +49,122 @@ public class MergeTest extends AbstractMapperTest
         assertThat(result, not(sameInstance(entity)));
     }
 
+    @Test
+    public void testPlainHintsByDefault()
+    {
+        List<Object[]> mergeHints = new ArrayList<>();
+        AbstractMapperTest mapper = new AbstractMapperTest()
+        {
+            @Override
+            protected char[] mergeNonNull(String dto, char[] entity, Object[] hints)
+            {
+                mergeHints.add(hints);
+
+                return super.mergeNonNull(dto, entity, hints);
+            }
+        };
+
+        mapper.mergeAll(toList("A"), BOARDING_PASS).intoArrayList(new ArrayList<>(toList("a".toCharArray())));
+
+        // the hints can be read without the methods of Hints
+        assertThat(Arrays.asList(mergeHints.get(0)), hasItem(BOARDING_PASS));
+
+        mapper
+            .mergeAll(toList("A"), Hints.cached(BOARDING_PASS))
+            .intoArrayList(new ArrayList<>(toList("a".toCharArray())));
+
+        // opted in, the hints are passed as context
+        assertThat(mergeHints.get(1)[0], instanceOf(HintContext.class));
+        assertThat(Hints.hintOrNull(mergeHints.get(1), UUID.class), is(BOARDING_PASS));
+    }
+
+    @Test
+    public void testFlatMapPushesParentOnce()
+    {
+        Set<Object[]> pushedHints = Collections.newSetFromMap(new IdentityHashMap<>());
+        AbstractMapperTest mapper = new AbstractMapperTest()
+        {
+            @Override
+            public boolean isUniqueKeyMatching(String dto, char[] entity, Object... hints)
+            {
+                pushedHints.add(hints);
+
+                return super.isUniqueKeyMatching(dto, entity, hints);
+            }
+        };
+
+        Map<Character, List<String>> dtos = toMap('A', toList("A1", "A2"), 'B', toList("B1"));
+        List<char[]> entities = new ArrayList<>(toList("a2".toCharArray(), "b1".toCharArray(), "a1".toCharArray()));
+
+        List<char[]> result = mapper
+            .flatMapAndMergeAll(dtos.entrySet(), Map.Entry::getValue, BOARDING_PASS)
+            .intoArrayList(entities);
+
+        assertThat(mapper.describeResult(result), is("The result of the mapping is: A1,A2,B1"));
+        assertThat(pushedHints.size(), is(2));
+    }
+
+    @Test
+    public void testParallelMixedMerge()
+    {
+        List<String> mergedDTOs = Collections.synchronizedList(new ArrayList<>());
+        Set<Thread> mergingThreads = Collections.synchronizedSet(new HashSet<>());
+        Set<ForkJoinPool> matchingPools = Collections.synchronizedSet(new HashSet<>());
+        AbstractMapperTest mapper = new AbstractMapperTest()
+        {
+            @Override
+            protected char[] mergeNonNull(String dto, char[] entity, Object[] hints)
+            {
+                mergedDTOs.add(dto);
+                mergingThreads.add(Thread.currentThread());
+
+                return super.mergeNonNull(dto, entity, hints);
+            }
+
+            @Override
+            public boolean isUniqueKeyMatching(String dto, char[] entity, Object... hints)
+            {
+                matchingPools.add(ForkJoinTask.getPool());
+
+                return super.isUniqueKeyMatching(dto, entity, hints);
+            }
+        };
+
+        List<String> dtos = new ArrayList<>();
+        List<char[]> entities = new ArrayList<>();
+
+        for (int i = 0; i < 1000; i++)
+        {
+            dtos.add("A" + (i * 7 % 1000));
+            entities.add(("a" + (i * 3 % 1100)).toCharArray());
+        }
+
+        List<char[]> expected =
+            mapper.mergeAll(dtos, BOARDING_PASS).intoMixedCollection(new ArrayList<>(entities), ArrayList::new);
+
+        mergedDTOs.clear();
+        mergingThreads.clear();
+        matchingPools.clear();
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        try
+        {
+            List<char[]> result = mapper
+                .mergeAll(dtos, BOARDING_PASS, Hint.PARALLEL, pool)
+                .intoMixedCollection(new ArrayList<>(entities), ArrayList::new);
+
+            assertThat(mapper.describeResult(result), is(mapper.describeResult(expected)));
+            assertThat(mergedDTOs, is(dtos));
+            // only the matching runs in the pool, the entities are merged by the calling thread
+            assertThat(mergingThreads, is(Collections.singleton(Thread.currentThread())));
+            assertThat(matchingPools, hasItem(pool));
+            assertThat(matchingPools, not(hasItem(ForkJoinPool.commonPool())));
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
 }
@@ -0,0 +1,242 @@
+package at.porscheinformatik.antimapper;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+public class OrderedDiffTest extends AbstractMapperUtilsTest
+{
+
+    private static final MatchFunction<String, String> EQUALS = Objects::equals;
+
+    @Test
+    public void testMyersEqualsTable()
+    {
+        IntStream.range(0, 4096).parallel().forEach(i -> testSample(i, false));
+    }
+
+    @Test
+    public void testLinearSpaceEqualsTable()
+    {
+        IntStream.range(0, 4096).parallel().forEach(i -> testSample(i, true));
+    }
+
+    @Test
+    public void testTrimmedEqualsTable()
+    {
+        IntStream.range(0, 4096).parallel().forEach(i -> testTrimmedSample(i));
+    }
+
+    @Test
+    public void testMyersWithoutMatches()
+    {
+        assertSameDecisions(new String[]{"A", "B", "C"}, new String[]{"D", "E", "F", "G"});
+    }
+
+    @Test
+    public void testMyersWithEmptyLists()
+    {
+        assertSameDecisions(new String[0], new String[]{"A", "B"});
+        assertSameDecisions(new String[]{"A", "B"}, new String[0]);
+    }
+
+    @Test
+    public void testMyersWithSmallCellBudget()
+    {
+        String[] sources = {"A", "B", "C", "D", "E", "F"};
+        String[] targets = {"F", "E", "D", "C", "B", "A"};
+        OrderedDiff<String, String> table = new OrderedDiff.Table<>(sources, targets, EQUALS);
+        OrderedDiff<String, String> myers = new OrderedDiff.Myers<>(sources, targets, EQUALS, 10);
+
+        for (int sourceIndex = 0; sourceIndex < sources.length; sourceIndex++)
+        {
+            for (int targetIndex = 0; targetIndex < targets.length; targetIndex++)
+            {
+                assertThat(myers.isInsertPreferred(sourceIndex, targetIndex),
+                    is(table.isInsertPreferred(sourceIndex, targetIndex)));
+            }
+        }
+    }
+
+    @Test
+    public void testLinearSpace()
+    {
+        Collection<SourceItem> sourceList = createSourceList("A", "1", "B", "C", "2");
+        Collection<TargetItem> targetList = createTargetList("A", "B", "3", "C");
+
+        MapperUtils
+            .mapOrdered(sourceList, targetList, OrderedDiffTest::matches, OrderedDiffTest::map, false, true,
+                OrderedDiffTest::nullFilter, null);
+
+        Iterator<TargetItem> iterator = targetList.iterator();
+
+        assertNext(iterator, "A", Change.SAME);
+        assertNext(iterator, "1", Change.ADDED);
+        assertNext(iterator, "B", Change.SAME);
+        assertNext(iterator, "C", Change.SAME);
+        assertNext(iterator, "2", Change.ADDED);
+        assertNoNext(iterator);
+    }
+
+    @Test
+    public void testLargeNearlyIdenticalLists()
+    {
+        String[] items = new String[20000];
+
+        for (int i = 0; i < items.length; i++)
+        {
+            items[i] = "A" + i;
+        }
+
+        Collection<SourceItem> sourceList = createSourceList(items);
+
+        items[10000] = "X";
+
+        Collection<TargetItem> targetList = createTargetList(items);
+
+        MapperUtils
+            .mapOrdered(sourceList, targetList, OrderedDiffTest::matchesText, OrderedDiffTest::map, false,
+                OrderedDiffTest::nullFilter, null);
+
+        Iterator<TargetItem> iterator = targetList.iterator();
+
+        for (int i = 0; i < 10000; i++)
+        {
+            assertNext(iterator, "A" + i, Change.SAME);
+        }
+
+        assertNext(iterator, "A10000", Change.ADDED);
+
+        for (int i = 10001; i < items.length; i++)
+        {
+            assertNext(iterator, "A" + i, Change.SAME);
+        }
+
+        assertNoNext(iterator);
+    }
+
+    private static boolean matchesText(SourceItem sourceItem, TargetItem targetItem)
+    {
+        return Objects.equals(sourceItem.getText(), targetItem.getText());
+    }
+
+    private void testSample(int sample, boolean linearSpace)
+    {
+        try
+        {
+            Random rnd = new Random(sample);
+            String[] sources = createRandomStrings(rnd, rnd.nextInt(24), 1 + rnd.nextInt(6));
+            String[] targets = createRandomStrings(rnd, rnd.nextInt(24), 1 + rnd.nextInt(6));
+
+            if (linearSpace)
+            {
+                assertSameLinearSpaceDecisions(sources, targets, 1 + rnd.nextInt(100));
+            }
+            else
+            {
+                assertSameDecisions(sources, targets);
+            }
+        }
+        catch (AssertionError e)
+        {
+            throw new AssertionError("Sample #" + sample + " has failed", e);
+        }
+    }
+
+    private void testTrimmedSample(int sample)
+    {
+        try
+        {
+            Random rnd = new Random(sample);
+            String[] suffix = createRandomStrings(rnd, rnd.nextInt(8), 6);
+            List<String> sources = toList(createRandomStrings(rnd, rnd.nextInt(16), 1 + rnd.nextInt(6)), suffix);
+            List<String> targets = toList(createRandomStrings(rnd, rnd.nextInt(16), 1 + rnd.nextInt(6)), suffix);
+            String[] sourceArray = sources.toArray(new String[sources.size()]);
+            String[] targetArray = targets.toArray(new String[targets.size()]);
+            OrderedDiff<String, String> table = new OrderedDiff.Table<>(sourceArray, targetArray, EQUALS);
+            OrderedDiff<String, String> trimmed =
+                OrderedDiff.create(sourceArray, targetArray, EQUALS, 0, 0, rnd.nextBoolean(), 1 + rnd.nextInt(100));
+            int sourceIndex = 0;
+            int targetIndex = 0;
+
+            // walk randomly, the indices never decrease
+            while (sourceIndex < sources.size() && targetIndex < targets.size())
+            {
+                assertThat(sourceIndex + "/" + targetIndex, trimmed.isInsertPreferred(sourceIndex, targetIndex),
+                    is(table.isInsertPreferred(sourceIndex, targetIndex)));
+
+                int step = rnd.nextInt(3);
+
+                sourceIndex += step != 1 ? 1 : 0;
+                targetIndex += step != 0 ? 1 : 0;
+            }
+        }
+        catch (AssertionError e)
+        {
+            throw new AssertionError("Sample #" + sample + " has failed", e);
+        }
+    }
+
+    private static List<String> toList(String[] items, String[] suffix)
+    {
+        List<String> list = new ArrayList<>(Arrays.asList(items));
+
+        list.addAll(Arrays.asList(suffix));
+
+        return list;
+    }
+
+    private static String[] createRandomStrings(Random rnd, int count, int range)
+    {
+        List<String> list = new ArrayList<>();
+
+        for (int i = 0; i < count; i++)
+        {
+            list.add(String.valueOf((char) ('A' + rnd.nextInt(range))));
+        }
+
+        return list.toArray(new String[list.size()]);
+    }
+
+    private static void assertSameDecisions(String[] sources, String[] targets)
+    {
+        OrderedDiff<String, String> table = new OrderedDiff.Table<>(sources, targets, EQUALS);
+
+        for (int sourceIndex = 0; sourceIndex < sources.length; sourceIndex++)
+        {
+            OrderedDiff<String, String> myers =
+                new OrderedDiff.Myers<>(sources, targets, EQUALS, MapperUtils.ORDERED_CELL_BUDGET);
+
+            for (int targetIndex = 0; targetIndex < targets.length; targetIndex++)
+            {
+                assertThat(sourceIndex + "/" + targetIndex, myers.isInsertPreferred(sourceIndex, targetIndex),
+                    is(table.isInsertPreferred(sourceIndex, targetIndex)));
+            }
+        }
+    }
+
+    private static void assertSameLinearSpaceDecisions(String[] sources, String[] targets, long cellBudget)
+    {
+        OrderedDiff<String, String> table = new OrderedDiff.Table<>(sources, targets, EQUALS);
+        OrderedDiff<String, String> linearSpace = new OrderedDiff.LinearSpace<>(sources, targets, EQUALS, cellBudget);
+
+        for (int sourceIndex = 0; sourceIndex < sources.length; sourceIndex++)
+        {
+            for (int targetIndex = 0; targetIndex < targets.length; targetIndex++)
+            {
+                assertThat(sourceIndex + "/" + targetIndex, linearSpace.isInsertPreferred(sourceIndex, targetIndex),
+                    is(table.isInsertPreferred(sourceIndex, targetIndex)));
+            }
+        }
+    }
+}
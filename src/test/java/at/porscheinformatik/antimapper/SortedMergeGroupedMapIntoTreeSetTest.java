@@ -0,0 +1,40 @@
+package at.porscheinformatik.antimapper;
+
+import java.util.UUID;
+
+import org.junit.Assert;
+
+/**
+ * Runs the tests of the {@link MergeGroupedMapIntoTreeSetTest} with a {@link SortedMerger}. The entities of the
+ * tests are not sorted by their keys, most of the tests use the hash index of the keys.
+ */
+public class SortedMergeGroupedMapIntoTreeSetTest extends MergeGroupedMapIntoTreeSetTest
+    implements SortedMerger<String, char[]>
+{
+
+    @Override
+    public Object getDTOUniqueKey(String dto, Object... hints)
+    {
+        Assert.assertNotNull(dto);
+        Assert.assertEquals("Hints were not passed correctly", BOARDING_PASS, Hints.hintOrNull(hints, UUID.class));
+
+        return dto.toLowerCase();
+    }
+
+    @Override
+    public Object getEntityUniqueKey(char[] entity, Object... hints)
+    {
+        Assert.assertNotNull(entity);
+        Assert.assertEquals("Hints were not passed correctly", BOARDING_PASS, Hints.hintOrNull(hints, UUID.class));
+
+        String entityString = String.valueOf(entity);
+
+        if (entityString.startsWith("!"))
+        {
+            entityString = entityString.substring(1);
+        }
+
+        return entityString.toLowerCase();
+    }
+
+}
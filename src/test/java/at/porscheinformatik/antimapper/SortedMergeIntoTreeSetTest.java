@@ -0,0 +1,72 @@
+package at.porscheinformatik.antimapper;
+
+import static at.porscheinformatik.antimapper.TestUtils.*;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.SortedSet;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Runs the tests of the {@link MergeIntoTreeSetTest} with a {@link SortedMerger}. The entities of the tests are not
+ * sorted by their keys, most of the tests use the hash index of the keys.
+ */
+public class SortedMergeIntoTreeSetTest extends MergeIntoTreeSetTest
+    implements SortedMerger<String, char[]>
+{
+
+    private final AtomicInteger comparisons = new AtomicInteger();
+
+    @Test
+    public void testIntoSortedTreeSet()
+    {
+        SortedSet<char[]> entities =
+            toSortedSet(CHAR_ARRAY_COMPARATOR, "a".toCharArray(), "b".toCharArray(), "c".toCharArray());
+        SortedSet<char[]> result = this.mergeAll(toList("c", "a", "d"), BOARDING_PASS).intoTreeSet(entities);
+
+        assertThat(describeResult(result), result, matchesCollection(
+            toList(is("!b".toCharArray()), is("a".toCharArray()), is("c".toCharArray()), is("d".toCharArray()))));
+        assertThat(describeResult(result), result, sameInstance(entities));
+        assertThat("Keys have not been compared", comparisons.get(), not(is(0)));
+    }
+
+    @Override
+    public int compareUniqueKeys(Object leftKey, Object rightKey, Object... hints)
+    {
+        Assert.assertEquals("Hints were not passed correctly", BOARDING_PASS, Hints.hintOrNull(hints, UUID.class));
+
+        comparisons.incrementAndGet();
+
+        return SortedMerger.super.compareUniqueKeys(leftKey, rightKey, hints);
+    }
+
+    @Override
+    public Object getDTOUniqueKey(String dto, Object... hints)
+    {
+        Assert.assertNotNull(dto);
+        Assert.assertEquals("Hints were not passed correctly", BOARDING_PASS, Hints.hintOrNull(hints, UUID.class));
+
+        return dto.toLowerCase();
+    }
+
+    @Override
+    public Object getEntityUniqueKey(char[] entity, Object... hints)
+    {
+        Assert.assertNotNull(entity);
+        Assert.assertEquals("Hints were not passed correctly", BOARDING_PASS, Hints.hintOrNull(hints, UUID.class));
+
+        String entityString = String.valueOf(entity);
+
+        if (entityString.startsWith("!"))
+        {
+            entityString = entityString.substring(1);
+        }
+
+        return entityString.toLowerCase();
+    }
+
+}
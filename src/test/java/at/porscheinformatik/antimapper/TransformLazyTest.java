@@ -0,0 +1,92 @@
+package at.porscheinformatik.antimapper;
+
+import static at.porscheinformatik.antimapper.TestUtils.*;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class TransformLazyTest extends AbstractMapperTest
+{
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    private final Transformer<String, char[]> countingTransformer = (entity, hints) -> {
+        count.incrementAndGet();
+
+        return transform(entity, hints);
+    };
+
+    @Test
+    public void testNullToLazyList()
+    {
+        assertThat(transformAll((List<char[]>) null, BOARDING_PASS).toLazyList(), nullValue());
+        assertThat(transformAll((List<char[]>) null, BOARDING_PASS, Hint.OR_EMPTY).toLazyList(),
+            is(Collections.emptyList()));
+    }
+
+    @Test
+    public void testToLazyList()
+    {
+        List<char[]> entities = toList("A".toCharArray(), "!B".toCharArray(), "C1".toCharArray(), null);
+        List<String> dtos = countingTransformer.transformAll(entities, BOARDING_PASS).toLazyList();
+
+        assertThat(dtos.size(), is(4));
+        assertThat(count.get(), is(0));
+
+        assertThat(dtos.get(2), is("C1"));
+        assertThat(dtos.get(2), is("C1"));
+        assertThat(count.get(), is(1));
+
+        assertThat(dtos, is(toList("A", null, "C1", null)));
+        assertThat(count.get(), is(4));
+
+        try
+        {
+            dtos.add("Z");
+            fail();
+        }
+        catch (UnsupportedOperationException e)
+        {
+            // expected
+        }
+    }
+
+    @Test
+    public void testStreamToLazyList()
+    {
+        List<char[]> entities = toList("A".toCharArray(), "B".toCharArray());
+        List<String> dtos = countingTransformer.transformAll(entities.stream(), BOARDING_PASS).toLazyList();
+
+        assertThat(dtos.size(), is(2));
+        assertThat(dtos.get(1), is("B"));
+        assertThat(count.get(), is(1));
+    }
+
+    @Test
+    public void testToLazyMap()
+    {
+        List<char[]> entities = toList("A1".toCharArray(), "A2".toCharArray(), "!B".toCharArray(), "C1".toCharArray(),
+            null);
+        Map<Character, String> dtos = countingTransformer.transformAll(entities, BOARDING_PASS).toLazyMap(GROUPER);
+
+        assertThat(dtos.size(), is(3));
+        assertThat(dtos.containsKey('B'), is(true));
+        assertThat(count.get(), is(0));
+
+        assertThat(dtos.get('A'), is("A2"));
+        assertThat(dtos.get('A'), is("A2"));
+        assertThat(dtos.get('Z'), nullValue());
+        assertThat(count.get(), is(1));
+
+        assertThat(dtos, is(toMap('A', "A2", 'B', null, 'C', "C1")));
+        assertThat(count.get(), is(3));
+    }
+
+}
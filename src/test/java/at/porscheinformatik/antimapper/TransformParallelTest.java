@@ -0,0 +1,118 @@
+package at.porscheinformatik.antimapper;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+public class TransformParallelTest extends AbstractMapperTest
+{
+
+    private static final int COUNT = 10000;
+
+    private static List<char[]> createEntities()
+    {
+        List<char[]> entities = new ArrayList<>(COUNT);
+
+        for (int i = 0; i < COUNT; i++)
+        {
+            entities.add(i % 10 == 9 ? ("!" + i).toCharArray() : String.valueOf(i).toCharArray());
+        }
+
+        return entities;
+    }
+
+    private static List<String> createDTOs()
+    {
+        List<String> dtos = new ArrayList<>(COUNT);
+
+        for (int i = 0; i < COUNT; i++)
+        {
+            if (i % 10 != 9)
+            {
+                dtos.add(String.valueOf(i));
+            }
+        }
+
+        return dtos;
+    }
+
+    @Test
+    public void testToArrayList()
+    {
+        List<String> dtos = transformAll(createEntities(), BOARDING_PASS, Hint.PARALLEL).toArrayList();
+
+        assertThat(dtos, is(createDTOs()));
+    }
+
+    @Test
+    public void testToStream()
+    {
+        List<String> dtos =
+            transformAll(createEntities(), BOARDING_PASS, Hint.PARALLEL).toStream().collect(Collectors.toList());
+
+        assertThat(dtos, is(createDTOs()));
+    }
+
+    @Test
+    public void testToHashMap()
+    {
+        Map<Character, String> dtos = transformAll(createEntities(), BOARDING_PASS, Hint.PARALLEL).toHashMap(GROUPER);
+        Map<Character, String> expectedDtos = transformAll(createEntities(), BOARDING_PASS).toHashMap(GROUPER);
+
+        // the last DTO with the same key wins, like in the sequential transformation
+        assertThat(dtos, is(expectedDtos));
+    }
+
+    @Test
+    public void testToGroupedArrayLists()
+    {
+        Map<Character, List<String>> dtos =
+            transformAll(createEntities(), BOARDING_PASS, Hint.PARALLEL).toGroupedArrayLists(GROUPER);
+        Map<Character, List<String>> expectedDtos =
+            transformAll(createEntities(), BOARDING_PASS).toGroupedArrayLists(GROUPER);
+
+        assertThat(dtos, is(expectedDtos));
+    }
+
+    @Test
+    public void testInPool()
+    {
+        ForkJoinPool pool = new ForkJoinPool(2);
+
+        try
+        {
+            Set<Thread> threads = ConcurrentHashMap.newKeySet();
+            Transformer<String, char[]> transformer = (entity, hints) -> {
+                threads.add(Thread.currentThread());
+
+                return transform(entity, hints);
+            };
+
+            List<String> dtos =
+                transformer.transformAll(createEntities(), BOARDING_PASS, Hint.PARALLEL, pool).toArrayList();
+
+            assertThat(dtos, is(createDTOs()));
+
+            for (Thread thread : threads)
+            {
+                assertThat(thread, instanceOf(ForkJoinWorkerThread.class));
+                assertThat(((ForkJoinWorkerThread) thread).getPool(), sameInstance(pool));
+            }
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,176 @@
+package at.porscheinformatik.antimapper;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TransformScopeTest
+{
+
+    private static class Node
+    {
+        private final String name;
+        private final List<Node> children = new ArrayList<>();
+
+        Node(String name, Node... children)
+        {
+            super();
+
+            this.name = name;
+
+            for (Node child : children)
+            {
+                this.children.add(child);
+            }
+        }
+    }
+
+    private static class NodeDTO
+    {
+        private final String name;
+        private List<NodeDTO> children;
+
+        NodeDTO(String name)
+        {
+            super();
+
+            this.name = name;
+        }
+    }
+
+    private static class NodeTransformer extends AbstractTransformer<NodeDTO, Node>
+    {
+        private final boolean registerEarly;
+
+        private int count = 0;
+
+        NodeTransformer(boolean registerEarly)
+        {
+            super();
+
+            this.registerEarly = registerEarly;
+        }
+
+        @Override
+        protected NodeDTO transformNonNull(Node entity, Object[] hints)
+        {
+            count++;
+
+            NodeDTO dto = new NodeDTO(entity.name);
+
+            if (registerEarly)
+            {
+                Hints.hint(hints, TransformScope.class).put(this, entity, dto);
+            }
+
+            dto.children = transformAll(entity.children, hints).toArrayList();
+
+            return dto;
+        }
+    }
+
+    @Test
+    public void testWithoutScope()
+    {
+        Node shared = new Node("shared");
+        Node root = new Node("root", new Node("a", shared), new Node("b", shared));
+        NodeTransformer transformer = new NodeTransformer(false);
+
+        NodeDTO dto = transformer.transform(root);
+
+        assertThat(transformer.count, is(5));
+        assertThat(dto.children.get(0).children.get(0), not(sameInstance(dto.children.get(1).children.get(0))));
+    }
+
+    @Test
+    public void testSharedEntity()
+    {
+        Node shared = new Node("shared");
+        Node root = new Node("root", new Node("a", shared), new Node("b", shared));
+        NodeTransformer transformer = new NodeTransformer(false);
+
+        NodeDTO dto = transformer.transform(root, new TransformScope());
+
+        assertThat(transformer.count, is(4));
+        assertThat(dto.children.get(0).children.get(0).name, is("shared"));
+        assertThat(dto.children.get(0).children.get(0), sameInstance(dto.children.get(1).children.get(0)));
+    }
+
+    @Test
+    public void testCycle()
+    {
+        Node root = new Node("root");
+        Node child = new Node("child", root);
+
+        root.children.add(child);
+
+        NodeTransformer transformer = new NodeTransformer(false);
+
+        try
+        {
+            transformer.transform(root, new TransformScope());
+            fail();
+        }
+        catch (MapperException e)
+        {
+            // the back reference cannot be resolved
+            assertThat(e.getMessage(), containsString("Cyclic reference"));
+        }
+    }
+
+    @Test
+    public void testCycleRegisteredEarly()
+    {
+        Node root = new Node("root");
+        Node child = new Node("child", root);
+
+        root.children.add(child);
+
+        NodeTransformer transformer = new NodeTransformer(true);
+        NodeDTO dto = transformer.transform(root, new TransformScope());
+
+        assertThat(transformer.count, is(2));
+        assertThat(dto.children.get(0).children.get(0), sameInstance(dto));
+    }
+
+    @Test
+    public void testFailure()
+    {
+        Node node = new Node("node");
+        TransformScope scope = new TransformScope();
+        AbstractTransformer<String, Node> transformer = new AbstractTransformer<String, Node>()
+        {
+            private boolean fail = true;
+
+            @Override
+            protected String transformNonNull(Node entity, Object[] hints)
+            {
+                if (fail)
+                {
+                    fail = false;
+
+                    throw new IllegalStateException();
+                }
+
+                return entity.name;
+            }
+        };
+
+        try
+        {
+            transformer.transform(node, scope);
+        }
+        catch (IllegalStateException e)
+        {
+            // expected
+        }
+
+        assertThat(transformer.transform(node, scope), is("node"));
+    }
+
+}
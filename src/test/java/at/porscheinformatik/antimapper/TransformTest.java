@@ -3,9 +3,18 @@ package at.porscheinformatik.antimapper;
 import static at.porscheinformatik.antimapper.TestUtils.*;
 import static org.hamcrest.CoreMatchers.*;
 import static org.hamcrest.MatcherAssert.*;
+import static org.junit.Assert.fail;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import org.junit.Test;
@@ -45,4 +54,119 @@ public class TransformTest extends AbstractMapperTest
         assertThat(dtos, is(toList("A", "A", "C1", "C2")));
     }
 
+    @Test
+    public void testExpectedSize()
+    {
+        List<char[]> entities = toList("A".toCharArray(), "!B".toCharArray(), "C1".toCharArray(), null);
+        AtomicInteger expectedSize = new AtomicInteger();
+
+        List<String> dtos = ((AbstractStreamTransformer<String, char[], ?>) transformAll(entities, BOARDING_PASS))
+            .toSizedCollection(size -> {
+                expectedSize.set(size);
+
+                return new ArrayList<>();
+            });
+
+        assertThat(dtos, is(toList("A", "C1")));
+        assertThat(expectedSize.get(), is(4));
+
+        ((AbstractStreamTransformer<String, char[], ?>) transformAll(toMap("a", "A".toCharArray()), BOARDING_PASS))
+            .toSizedMap(size -> {
+                expectedSize.set(size);
+
+                return new HashMap<>();
+            }, GROUPER);
+
+        assertThat(expectedSize.get(), is(1));
+
+        ((AbstractStreamTransformer<String, char[], ?>) transformAll(entities.stream().filter(e -> e != null),
+            BOARDING_PASS)).toSizedCollection(size -> {
+                expectedSize.set(size);
+
+                return new ArrayList<>();
+            });
+
+        assertThat(expectedSize.get(), is(-1));
+    }
+
+    @Test
+    public void testCollectionWithoutStream()
+    {
+        List<char[]> entities = new ArrayList<char[]>(toList("A".toCharArray(), "!B".toCharArray(), null))
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public Spliterator<char[]> spliterator()
+            {
+                throw new UnsupportedOperationException("The collection should be iterated directly");
+            }
+        };
+
+        assertThat(transformAll(entities, BOARDING_PASS).toArrayList(), is(toList("A")));
+        assertThat(transformAll(entities, BOARDING_PASS, Hint.KEEP_NULL).toArrayList(), is(toList("A", null, null)));
+    }
+
+    @Test
+    public void testFlatMapPushesParentOnce()
+    {
+        Map<Character, List<char[]>> entities = toMap('A', toList("A1".toCharArray(), "A2".toCharArray()), 'B',
+            toList("B1".toCharArray(), "!B2".toCharArray()));
+        Set<Object[]> pushedHints = Collections.newSetFromMap(new IdentityHashMap<>());
+        Transformer<String, char[]> transformer = (entity, hints) -> {
+            pushedHints.add(hints);
+
+            return transform(entity, hints);
+        };
+
+        assertThat(transformer.flatMapAndTransformAll(entities, BOARDING_PASS).toArrayList(),
+            is(toList("A1", "A2", "B1")));
+        assertThat(pushedHints.size(), is(2));
+
+        pushedHints.clear();
+
+        assertThat(transformer.flatMapAndTransformAll(entities, BOARDING_PASS, Hint.KEEP_NULL).toHashMap(GROUPER),
+            is(toMap('A', "A2", 'B', null)));
+        assertThat(pushedHints.size(), is(2));
+
+        pushedHints.clear();
+
+        assertThat(transformer.flatMapAndTransformAll(entities, BOARDING_PASS).toGroupedArrayLists(GROUPER),
+            is(toMap('A', toList("A1", "A2"), 'B', toList("B1"))));
+        assertThat(pushedHints.size(), is(2));
+    }
+
+    @Test
+    public void testCollectionPropagatesException()
+    {
+        IllegalStateException exception = new IllegalStateException("failed");
+        Transformer<String, char[]> transformer = (entity, hints) -> {
+            if (entity != null && entity[0] == 'X')
+            {
+                throw exception;
+            }
+
+            return transform(entity, hints);
+        };
+        List<char[]> entities = toList("A".toCharArray(), "X".toCharArray());
+
+        assertPropagates(exception, () -> transformer.transformAll(entities, BOARDING_PASS).toArrayList());
+        assertPropagates(exception, () -> transformer.transformAll(entities.stream(), BOARDING_PASS).toHashSet());
+        assertPropagates(exception,
+            () -> transformer.flatMapAndTransformAll(toMap('A', entities), BOARDING_PASS).toArrayList());
+    }
+
+    private static void assertPropagates(RuntimeException expected, Runnable runnable)
+    {
+        try
+        {
+            runnable.run();
+            fail();
+        }
+        catch (RuntimeException e)
+        {
+            assertThat(e, sameInstance(expected));
+        }
+    }
+
 }
@@ -5,6 +5,7 @@ import static org.hamcrest.CoreMatchers.*;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -52,6 +53,24 @@ public class TransformToGroupedArrayLists extends AbstractMapperTest
         assertThat(dtos.get('A'), hasItem(is("Z")));
     }
 
+    @Test
+    public void testToGroupedArrayListsLargeGroup()
+    {
+        List<char[]> entities = new ArrayList<>();
+
+        for (int i = 0; i < 100000; i++)
+        {
+            entities.add(("A" + i).toCharArray());
+        }
+
+        Map<Character, List<String>> dtos = this.transformAll(entities, BOARDING_PASS).toGroupedArrayLists(GROUPER);
+
+        assertThat(dtos.size(), is(1));
+        assertThat(dtos.get('A').size(), is(100000));
+        assertThat(dtos.get('A').get(0), is("A0"));
+        assertThat(dtos.get('A').get(99999), is("A99999"));
+    }
+
     @Test
     public void testToGroupedArrayListsKeepNullAndUnmodifiable()
     {